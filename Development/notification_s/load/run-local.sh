@@ -0,0 +1,36 @@
+#!/usr/bin/env sh
+# Runs the end-to-end load harness against throwaway Redis and Mongo processes bound to
+# loopback. Needs redis-server and mongod on PATH; nothing leaves the machine.
+#
+#   load/run-local.sh -Dload.rate=2000 -Dload.duration=120 -Dload.mix=like:50,message:50
+
+set -eu
+
+REDIS_PORT=${LOAD_REDIS_PORT:-6390}
+MONGO_PORT=${LOAD_MONGO_PORT:-27030}
+WORK_DIR=$(mktemp -d)
+
+cleanup() {
+  [ -n "${REDIS_PID:-}" ] && kill "$REDIS_PID" 2>/dev/null || true
+  [ -n "${MONGO_PID:-}" ] && kill "$MONGO_PID" 2>/dev/null || true
+  rm -rf "$WORK_DIR"
+}
+trap cleanup EXIT INT TERM
+
+redis-server --bind 127.0.0.1 --port "$REDIS_PORT" --save '' --appendonly no \
+  --dir "$WORK_DIR" >"$WORK_DIR/redis.log" 2>&1 &
+REDIS_PID=$!
+
+mkdir -p "$WORK_DIR/mongo"
+mongod --bind_ip 127.0.0.1 --port "$MONGO_PORT" --dbpath "$WORK_DIR/mongo" \
+  --nounixsocket >"$WORK_DIR/mongod.log" 2>&1 &
+MONGO_PID=$!
+
+# Give both stand-ins a moment to open their ports
+sleep 3
+
+cd "$(dirname "$0")/.."
+./mvnw -B -q -Pload test-compile exec:exec \
+  -Dload.redis.port="$REDIS_PORT" \
+  -Dload.mongo.uri="mongodb://127.0.0.1:$MONGO_PORT/notification_load" \
+  "$@"
@@ -0,0 +1,65 @@
+package com.unilink.notification_service.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationModelBenchmark {
+
+    private UserPreferences defaults;
+    private UserPreferences quietHoursEnabled;
+
+    @Setup
+    public void setup() {
+        defaults = UserPreferences.createDefault("65a1f0c2e4b0a1b2c3d4e5f6");
+
+        quietHoursEnabled = UserPreferences.createDefault("65a1f0c2e4b0a1b2c3d4e5f6");
+        quietHoursEnabled.setQuietHours(new UserPreferences.QuietHours(true, "22:00", "08:00"));
+    }
+
+    @Benchmark
+    public Notification buildNotification() {
+        return Notification.builder()
+                .userId("65a1f0c2e4b0a1b2c3d4e5f6")
+                .type(Notification.NotificationType.fromString("friend-request"))
+                .actorId("65a1f0c2e4b0a1b2c3d4e5f7")
+                .actorName("Jane Doe")
+                .actorPicture("jane.png")
+                .relatedId("65a1f0c2e4b0a1b2c3d4e5f8")
+                .message("Jane Doe sent you a friend request")
+                .priority(Notification.Priority.valueOf("high".toUpperCase()))
+                .metadata(new HashMap<>())
+                .build();
+    }
+
+    @Benchmark
+    public boolean isEnabled() {
+        return defaults.isEnabled("like");
+    }
+
+    @Benchmark
+    public boolean isInQuietHoursDisabled() {
+        return defaults.isInQuietHours();
+    }
+
+    @Benchmark
+    public boolean isInQuietHoursEnabled() {
+        return quietHoursEnabled.isInQuietHours();
+    }
+}
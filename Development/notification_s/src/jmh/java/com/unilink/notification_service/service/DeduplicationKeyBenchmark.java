@@ -0,0 +1,50 @@
+package com.unilink.notification_service.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeduplicationKeyBenchmark {
+
+    private String userId = "65a1f0c2e4b0a1b2c3d4e5f6";
+    private String actorId = "65a1f0c2e4b0a1b2c3d4e5f7";
+    private String relatedId = "65a1f0c2e4b0a1b2c3d4e5f8";
+
+    private String notificationId = "65a1f0c2e4b0a1b2c3d4e5f9";
+
+    @Benchmark
+    public byte[] likeKey() {
+        return DeduplicationKeys.key("like", userId, actorId, relatedId);
+    }
+
+    @Benchmark
+    public byte[] profileViewKeyWithoutRelatedId() {
+        return DeduplicationKeys.key("profile-view", userId, actorId, null);
+    }
+
+    @Benchmark
+    public byte[] encodeNotificationId() {
+        return DeduplicationKeys.encodeId(notificationId);
+    }
+
+    // Previous String.format layout, kept as the reference point
+    @Benchmark
+    public String legacyFormattedKey() {
+        return String.format("notification:dedup:%s:%s:%s:%s",
+                "like", userId, actorId, relatedId != null ? relatedId : "none");
+    }
+}
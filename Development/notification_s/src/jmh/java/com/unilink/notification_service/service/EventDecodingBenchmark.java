@@ -0,0 +1,65 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.config.NotificationChannels;
+import com.unilink.notification_service.dto.NotificationEventData;
+import com.unilink.notification_service.monitoring.PipelineRecorder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDecodingBenchmark {
+
+    private RedisEventListener listener;
+    private Message likeMessage;
+    private Message friendRequestMessage;
+
+    @Setup
+    public void setup() {
+        listener = new RedisEventListener(null, null, new ObjectMapper(), new PipelineRecorder(1024, false), null);
+
+        likeMessage = new DefaultMessage(
+                NotificationChannels.LIKE.getBytes(StandardCharsets.UTF_8),
+                ("{\"userId\":\"65a1f0c2e4b0a1b2c3d4e5f6\",\"actorId\":\"65a1f0c2e4b0a1b2c3d4e5f7\","
+                        + "\"actorName\":\"Jane Doe\",\"actorPicture\":\"jane.png\","
+                        + "\"relatedId\":\"65a1f0c2e4b0a1b2c3d4e5f8\",\"priority\":\"low\"}")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        friendRequestMessage = new DefaultMessage(
+                NotificationChannels.FRIEND_REQUEST.getBytes(StandardCharsets.UTF_8),
+                ("{\"userId\":\"65a1f0c2e4b0a1b2c3d4e5f6\",\"actorId\":\"65a1f0c2e4b0a1b2c3d4e5f7\","
+                        + "\"actorName\":\"Jane Doe\",\"priority\":\"high\","
+                        + "\"metadata\":{\"mutualFriends\":12,\"source\":\"search\"}}")
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public NotificationEventData decodeLike() throws IOException {
+        return listener.decode(likeMessage);
+    }
+
+    @Benchmark
+    public NotificationEventData decodeFriendRequestWithMetadata() throws IOException {
+        return listener.decode(friendRequestMessage);
+    }
+}
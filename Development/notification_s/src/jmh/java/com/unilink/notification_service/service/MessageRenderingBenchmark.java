@@ -0,0 +1,72 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.Notification;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageRenderingBenchmark {
+
+    @Param({"like", "message", "profile-view", "friend-post", "friend-request"})
+    private String type;
+
+    private NotificationMessages messages;
+    private Notification single;
+    private Notification groupedOne;
+    private Notification groupedMany;
+
+    @Setup
+    public void setup() {
+        messages = new NotificationMessages("en");
+        single = notification(1);
+        groupedOne = notification(2);
+        groupedMany = notification(43);
+
+        // Compile the templates outside the measurement
+        messages.render(single, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String renderMessage() {
+        return messages.render(single, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String renderGroupedSingleOther() {
+        return messages.render(groupedOne, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String renderGroupedManyOthers() {
+        return messages.render(groupedMany, Locale.ENGLISH);
+    }
+
+    private Notification notification(int groupCount) {
+        Notification notification = Notification.builder()
+                .userId("65a1f0c2e4b0a1b2c3d4e5f6")
+                .type(Notification.NotificationType.fromString(type))
+                .actorId("65a1f0c2e4b0a1b2c3d4e5f7")
+                .actorName("Jane Doe")
+                .build();
+        notification.setGroupCount(groupCount);
+        return notification;
+    }
+}
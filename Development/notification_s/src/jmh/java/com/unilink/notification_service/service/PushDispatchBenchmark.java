@@ -0,0 +1,85 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes for {@code users} offline users, one token each, chunked the way
+ * {@link PushDispatcher} does and sent through {@link HttpPushProvider} to a
+ * {@link PushGatewayStandIn} that answers after {@code gatewayDelayMs}. Reports the time to
+ * get every request of one flush acknowledged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PushDispatchBenchmark {
+
+    @Param({"1000", "10000"})
+    private int users;
+
+    @Param({"100", "500"})
+    private int maxTokensPerRequest;
+
+    @Param({"0", "20"})
+    private long gatewayDelayMs;
+
+    private PushGatewayStandIn gateway;
+    private HttpPushProvider provider;
+    private List<PushDispatcher.Outgoing> outgoing;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        gateway = new PushGatewayStandIn(gatewayDelayMs, 32);
+        // Room for a whole flush in flight; past max-in-flight the provider rejects, which is not
+        // what this measures
+        int requests = (users + maxTokensPerRequest - 1) / maxTokensPerRequest;
+        provider = new HttpPushProvider(new ObjectMapper(), "default", gateway.url(), "secret",
+                maxTokensPerRequest, Math.max(32, requests), 5000, 4);
+
+        outgoing = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            outgoing.add(new PushDispatcher.Outgoing("notification:push:collapse:u" + i + ":like:p1",
+                    new PushProvider.PushMessage(List.of("token-" + i), "UniLink", "Jane Doe liked your post",
+                            "like:p1", Map.of("notificationId", "n" + i, "type", "like"))));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.shutdown();
+        gateway.close();
+    }
+
+    @Benchmark
+    public int flush() {
+        List<CompletableFuture<PushProvider.PushResult>> sent = new ArrayList<>();
+        for (List<PushDispatcher.Outgoing> request : PushDispatcher.chunk(outgoing, maxTokensPerRequest)) {
+            sent.add(provider.send(request.stream().map(PushDispatcher.Outgoing::message).toList()));
+        }
+        CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).join();
+        return sent.size();
+    }
+}
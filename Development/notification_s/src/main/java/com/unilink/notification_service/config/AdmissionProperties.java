@@ -0,0 +1,138 @@
+package com.unilink.notification_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notification.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    // Types that are always admitted, whatever the load
+    private List<String> protectedTypes = List.of("message", "friend-request");
+
+    // Without new samples the persistence latency average halves every this many ms, so a
+    // pipeline that has gone quiet (for instance because it sheds) reads as recovered
+    private long latencyHalfLifeMs = 5000;
+
+    private Threshold elevated = new Threshold(10000, 200);
+    private Threshold critical = new Threshold(50000, 1000);
+
+    // Per-type sampling under load and usefulness window; unlisted types are always admitted
+    private Map<String, TypePolicy> types = new HashMap<>();
+
+    public static class Threshold {
+
+        private long queueDepth;
+        private long persistLatencyMs;
+
+        public Threshold() {
+        }
+
+        public Threshold(long queueDepth, long persistLatencyMs) {
+            this.queueDepth = queueDepth;
+            this.persistLatencyMs = persistLatencyMs;
+        }
+
+        public long getQueueDepth() {
+            return queueDepth;
+        }
+
+        public void setQueueDepth(long queueDepth) {
+            this.queueDepth = queueDepth;
+        }
+
+        public long getPersistLatencyMs() {
+            return persistLatencyMs;
+        }
+
+        public void setPersistLatencyMs(long persistLatencyMs) {
+            this.persistLatencyMs = persistLatencyMs;
+        }
+    }
+
+    public static class TypePolicy {
+
+        // Fraction of events admitted at each load level (1 = all, 0 = none)
+        private double elevatedSample = 1.0;
+        private double criticalSample = 1.0;
+
+        // Events older than this when processed are dropped; 0 keeps them forever
+        private long maxAgeMs = 0;
+
+        public double getElevatedSample() {
+            return elevatedSample;
+        }
+
+        public void setElevatedSample(double elevatedSample) {
+            this.elevatedSample = elevatedSample;
+        }
+
+        public double getCriticalSample() {
+            return criticalSample;
+        }
+
+        public void setCriticalSample(double criticalSample) {
+            this.criticalSample = criticalSample;
+        }
+
+        public long getMaxAgeMs() {
+            return maxAgeMs;
+        }
+
+        public void setMaxAgeMs(long maxAgeMs) {
+            this.maxAgeMs = maxAgeMs;
+        }
+    }
+
+    public long getLatencyHalfLifeMs() {
+        return latencyHalfLifeMs;
+    }
+
+    public void setLatencyHalfLifeMs(long latencyHalfLifeMs) {
+        this.latencyHalfLifeMs = latencyHalfLifeMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getProtectedTypes() {
+        return protectedTypes;
+    }
+
+    public void setProtectedTypes(List<String> protectedTypes) {
+        this.protectedTypes = protectedTypes;
+    }
+
+    public Threshold getElevated() {
+        return elevated;
+    }
+
+    public void setElevated(Threshold elevated) {
+        this.elevated = elevated;
+    }
+
+    public Threshold getCritical() {
+        return critical;
+    }
+
+    public void setCritical(Threshold critical) {
+        this.critical = critical;
+    }
+
+    public Map<String, TypePolicy> getTypes() {
+        return types;
+    }
+
+    public void setTypes(Map<String, TypePolicy> types) {
+        this.types = types;
+    }
+}
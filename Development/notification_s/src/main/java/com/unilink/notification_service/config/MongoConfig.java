@@ -1,30 +1,81 @@
 package com.unilink.notification_service.config;
 
+import com.unilink.notification_service.model.Notification;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 import org.springframework.data.mongodb.core.convert.DbRefResolver;
 import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
+import java.util.List;
+
 @Configuration
 @EnableMongoAuditing
 public class MongoConfig {
 
+    // Enums are stored as their small int codes. Notifications of the previous schema use other
+    // field names altogether and are converted by SchemaMigrationService before a pod is ready;
+    // activities keep their field names, so enum names they still hold read through the
+    // default enum conversion
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new TypeToCode(), new CodeToType(), new PriorityToCode(), new CodeToPriority()));
+    }
+
     @Bean
     public MappingMongoConverter mappingMongoConverter(
             MongoDatabaseFactory mongoDatabaseFactory,
-            MongoMappingContext mongoMappingContext) {
+            MongoMappingContext mongoMappingContext,
+            MongoCustomConversions mongoCustomConversions) {
 
         DbRefResolver dbRefResolver = new DefaultDbRefResolver(mongoDatabaseFactory);
         MappingMongoConverter converter = new MappingMongoConverter(dbRefResolver, mongoMappingContext);
+        converter.setCustomConversions(mongoCustomConversions);
 
         // Remove _class field from documents
         converter.setTypeMapper(new DefaultMongoTypeMapper(null));
 
         return converter;
     }
-}
\ No newline at end of file
+
+    @WritingConverter
+    static class TypeToCode implements Converter<Notification.NotificationType, Integer> {
+        @Override
+        public Integer convert(Notification.NotificationType source) {
+            return source.getCode();
+        }
+    }
+
+    @ReadingConverter
+    static class CodeToType implements Converter<Integer, Notification.NotificationType> {
+        @Override
+        public Notification.NotificationType convert(Integer source) {
+            return Notification.NotificationType.fromCode(source);
+        }
+    }
+
+    @WritingConverter
+    static class PriorityToCode implements Converter<Notification.Priority, Integer> {
+        @Override
+        public Integer convert(Notification.Priority source) {
+            return source.getCode();
+        }
+    }
+
+    @ReadingConverter
+    static class CodeToPriority implements Converter<Integer, Notification.Priority> {
+        @Override
+        public Notification.Priority convert(Integer source) {
+            return Notification.Priority.fromCode(source);
+        }
+    }
+}
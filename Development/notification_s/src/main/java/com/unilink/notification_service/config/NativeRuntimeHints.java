@@ -0,0 +1,115 @@
+package com.unilink.notification_service.config;
+
+import com.unilink.notification_service.monitoring.PipelineStage;
+import com.unilink.notification_service.monitoring.PipelineTrace;
+import com.unilink.notification_service.service.BroadcastService;
+import com.unilink.notification_service.service.NodeRelay;
+import com.unilink.notification_service.service.PushProvider;
+import com.unilink.notification_service.service.WarmupService;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+
+/**
+ * Reachability metadata for the native image ({@code -Pnative}). Spring's AOT pass covers
+ * beans and repository entities; this adds what it cannot see: types only touched through
+ * {@code MongoTemplate}, Redis/Jackson payloads, the Redisson codec, and the jjwt
+ * implementation classes that jjwt loads by name.
+ *
+ * Everything in the {@code dto} and {@code model} packages is registered by a scan at build
+ * time, nested types included. Payload types declared next to the services that use them are
+ * listed by hand; {@code NativeRuntimeHintsTest} fails for a record nobody decided on.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final List<String> SCANNED_PACKAGES = List.of(
+            "com.unilink.notification_service.dto",
+            "com.unilink.notification_service.model"
+    );
+
+    private static final List<Class<?>> SERIALIZED_TYPES = List.of(
+            NodeRelay.Delivery.class,
+            BroadcastService.Segment.class,
+            BroadcastService.Target.class,
+            PushProvider.PushMessage.class,
+            PushProvider.PushResult.class,
+            WarmupService.Progress.class,
+            WarmupService.Phase.class,
+            PipelineTrace.class,
+            PipelineStage.class
+    );
+
+    // Package-private payloads
+    private static final List<String> SERIALIZED_TYPE_NAMES = List.of(
+            "com.unilink.notification_service.service.BroadcastService$Envelope",
+            "com.unilink.notification_service.service.DigestSender$Digest"
+    );
+
+    private static final List<String> JJWT_IMPLEMENTATIONS = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String name : scan(classLoader)) {
+            hints.reflection().registerType(TypeReference.of(name), MemberCategory.values());
+        }
+        for (Class<?> type : SERIALIZED_TYPES) {
+            hints.reflection().registerType(type, MemberCategory.values());
+        }
+        for (String name : SERIALIZED_TYPE_NAMES) {
+            hints.reflection().registerType(TypeReference.of(name), MemberCategory.values());
+        }
+
+        for (String name : JJWT_IMPLEMENTATIONS) {
+            hints.reflection().registerType(TypeReference.of(name),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        // Notification wording, loaded through ResourceBundle
+        hints.resources().registerResourceBundle("messages.notifications");
+
+        // Redisson's default codec, created reflectively from its config
+        hints.reflection().registerType(TypeReference.of("org.redisson.codec.Kryo5Codec"),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+
+    // Every class, enum and record in the scanned packages, including static nested ones
+    private static List<String> scan(ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definition) {
+                return definition.getMetadata().isIndependent() && !definition.getMetadata().isAnnotation();
+            }
+        };
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter((reader, factory) -> true);
+
+        return SCANNED_PACKAGES.stream()
+                .flatMap(pkg -> scanner.findCandidateComponents(pkg).stream())
+                .map(BeanDefinition::getBeanClassName)
+                .sorted()
+                .toList();
+    }
+}
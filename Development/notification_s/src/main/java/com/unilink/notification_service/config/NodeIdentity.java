@@ -0,0 +1,36 @@
+package com.unilink.notification_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Identifies this instance in shared Redis state (presence leases, queue ownership). Set
+ * {@code notification.node-id} to pin it; otherwise it is the host name plus a random
+ * suffix, so a restarted pod never inherits its predecessor's leases.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String nodeId;
+
+    public NodeIdentity(@Value("${notification.node-id:}") String configured) {
+        this.nodeId = configured != null && !configured.isBlank() ? configured : generate();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static String generate() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,65 @@
+package com.unilink.notification_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notification.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Keyed by notification type value (like, profile-view, ...); unlisted types are unlimited
+    private Map<String, Limit> types = new HashMap<>();
+
+    public static class Limit {
+
+        // Token bucket per (actor, recipient, type), kept in-process
+        private int pairBurst = 0;
+        private double pairPerMinute = 0;
+
+        // Fixed one-minute window per (actor, type) across all recipients, kept in Redis
+        private int actorPerMinute = 0;
+
+        public int getPairBurst() {
+            return pairBurst;
+        }
+
+        public void setPairBurst(int pairBurst) {
+            this.pairBurst = pairBurst;
+        }
+
+        public double getPairPerMinute() {
+            return pairPerMinute;
+        }
+
+        public void setPairPerMinute(double pairPerMinute) {
+            this.pairPerMinute = pairPerMinute;
+        }
+
+        public int getActorPerMinute() {
+            return actorPerMinute;
+        }
+
+        public void setActorPerMinute(int actorPerMinute) {
+            this.actorPerMinute = actorPerMinute;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Limit> getTypes() {
+        return types;
+    }
+
+    public void setTypes(Map<String, Limit> types) {
+        this.types = types;
+    }
+}
@@ -33,7 +33,10 @@ public class RedisConfig extends NotificationChannels {
             config.setPassword(redisPassword);
         }
 
-        return new LettuceConnectionFactory(config);
+        // Connect during startup rather than on the first request
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(config);
+        factory.setEagerInitialization(true);
+        return factory;
     }
 
     @Bean
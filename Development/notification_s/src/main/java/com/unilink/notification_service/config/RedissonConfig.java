@@ -18,18 +18,29 @@ public class RedissonConfig {
     @Value("${spring.redis.password:}")
     private String redisPassword;
 
+    @Value("${notification.redisson.min-idle:24}")
+    private int minIdle;
+
+    @Value("${notification.redisson.pool-size:64}")
+    private int poolSize;
+
     @Bean
     public RedissonClient redissonClient() {
         Config config = new Config();
         String address = "redis://" + redisHost + ":" + redisPort;
 
+        // min-idle connections are opened when the client is created
         if (redisPassword != null && !redisPassword.isEmpty()) {
             config.useSingleServer()
                     .setAddress(address)
-                    .setPassword(redisPassword);
+                    .setPassword(redisPassword)
+                    .setConnectionMinimumIdleSize(minIdle)
+                    .setConnectionPoolSize(poolSize);
         } else {
             config.useSingleServer()
-                    .setAddress(address);
+                    .setAddress(address)
+                    .setConnectionMinimumIdleSize(minIdle)
+                    .setConnectionPoolSize(poolSize);
         }
 
         return Redisson.create(config);
@@ -0,0 +1,53 @@
+package com.unilink.notification_service.config;
+
+import com.unilink.notification_service.model.Notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Resolves expiry times from {@link RetentionProperties}. Every notification gets an
+ * {@code expiresAt} on creation; types with a read window have it pulled in when read.
+ */
+@Component
+public class RetentionPolicy {
+
+    private final Map<Notification.NotificationType, Integer> days =
+            new EnumMap<>(Notification.NotificationType.class);
+    private final Map<Notification.NotificationType, Integer> readDays =
+            new EnumMap<>(Notification.NotificationType.class);
+    private final int defaultDays;
+
+    public RetentionPolicy(RetentionProperties properties,
+                           @Value("${notification.expiration-days:90}") int defaultDays) {
+        this.defaultDays = defaultDays;
+        for (Notification.NotificationType type : Notification.NotificationType.values()) {
+            days.put(type, properties.getTypes().getOrDefault(type.getValue(), defaultDays));
+
+            Integer read = properties.getReadTypes().get(type.getValue());
+            if (read != null) {
+                readDays.put(type, read);
+            }
+        }
+    }
+
+    public LocalDateTime expiresAt(Notification.NotificationType type, LocalDateTime createdAt) {
+        return createdAt.plusDays(type != null ? days.get(type) : defaultDays);
+    }
+
+    /**
+     * Types whose expiry shrinks once read, mapped to the read window in days.
+     */
+    public Map<Notification.NotificationType, Integer> getReadDays() {
+        return readDays;
+    }
+
+    public LocalDateTime readExpiresAt(Notification.NotificationType type, LocalDateTime readAt) {
+        Integer window = type != null ? readDays.get(type) : null;
+        return window != null ? readAt.plusDays(window) : null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.unilink.notification_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notification.retention")
+public class RetentionProperties {
+
+    // Days to keep a notification of a type; types not listed use notification.expiration-days
+    private Map<String, Integer> types = new HashMap<>();
+
+    // Days to keep a notification of a type once it has been read
+    private Map<String, Integer> readTypes = new HashMap<>();
+
+    // Newest notifications kept per user; 0 disables the cap
+    private int maxPerUser = 0;
+
+    private Purge purge = new Purge();
+
+    public static class Purge {
+
+        private boolean enabled = true;
+        private long intervalMs = 60000;
+        private int batchSize = 500;
+        private int maxDeletesPerSecond = 2000;
+        private long maxRunMs = 50000;
+        private int usersPerRun = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxDeletesPerSecond() {
+            return maxDeletesPerSecond;
+        }
+
+        public void setMaxDeletesPerSecond(int maxDeletesPerSecond) {
+            this.maxDeletesPerSecond = maxDeletesPerSecond;
+        }
+
+        public long getMaxRunMs() {
+            return maxRunMs;
+        }
+
+        public void setMaxRunMs(long maxRunMs) {
+            this.maxRunMs = maxRunMs;
+        }
+
+        public int getUsersPerRun() {
+            return usersPerRun;
+        }
+
+        public void setUsersPerRun(int usersPerRun) {
+            this.usersPerRun = usersPerRun;
+        }
+    }
+
+    public Map<String, Integer> getTypes() {
+        return types;
+    }
+
+    public void setTypes(Map<String, Integer> types) {
+        this.types = types;
+    }
+
+    public Map<String, Integer> getReadTypes() {
+        return readTypes;
+    }
+
+    public void setReadTypes(Map<String, Integer> readTypes) {
+        this.readTypes = readTypes;
+    }
+
+    public int getMaxPerUser() {
+        return maxPerUser;
+    }
+
+    public void setMaxPerUser(int maxPerUser) {
+        this.maxPerUser = maxPerUser;
+    }
+
+    public Purge getPurge() {
+        return purge;
+    }
+
+    public void setPurge(Purge purge) {
+        this.purge = purge;
+    }
+}
@@ -0,0 +1,106 @@
+package com.unilink.notification_service.controller;
+
+import com.unilink.notification_service.dto.NotificationBatchRequest;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.service.ActorDirectory;
+import com.unilink.notification_service.service.BatchIngestionService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/notifications/batch")
+
+public class BatchIngestionController {
+
+    private final BatchIngestionService batchIngestionService;
+    private final ActorDirectory actorDirectory;
+
+    // Tokens carry no roles, so producers are listed by user id like broadcast senders
+    @Value("${notification.batch.producers:}")
+    private List<String> producers;
+
+    @Value("${notification.batch.max-recipients:10000}")
+    private int maxRecipients;
+
+    public BatchIngestionController(BatchIngestionService batchIngestionService, ActorDirectory actorDirectory) {
+        this.batchIngestionService = batchIngestionService;
+        this.actorDirectory = actorDirectory;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> ingest(
+            Authentication authentication,
+            @RequestBody NotificationBatchRequest request) {
+
+        String actorId = authentication.getName();
+        if (!producers.contains(actorId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "Not allowed to send notification batches"));
+        }
+
+        String error = validate(request);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("message", error));
+        }
+
+        // The caller is always the actor, and is shown under the name the user directory has for it
+        Optional<ActorDirectory.Actor> actor = actorDirectory.find(actorId);
+        if (actor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "Unknown actor"));
+        }
+
+        Map<String, Integer> result = batchIngestionService.ingest(actor.get(), request);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "message", "Batch accepted",
+                "result", result
+        ));
+    }
+
+    private String validate(NotificationBatchRequest request) {
+        if (request.getEvents() == null || request.getEvents().isEmpty()) {
+            return "At least one event is required";
+        }
+
+        int recipients = 0;
+        for (NotificationBatchRequest.Event event : request.getEvents()) {
+            Notification.NotificationType type;
+            try {
+                type = Notification.NotificationType.fromString(event.getType());
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+            // No template renders a batch announcement; those go through /api/broadcasts
+            if (type == Notification.NotificationType.ANNOUNCEMENT) {
+                return "Announcements cannot be sent in a batch, use /api/broadcasts";
+            }
+
+            if (event.getPriority() != null) {
+                try {
+                    Notification.Priority.valueOf(event.getPriority().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return "Invalid priority: " + event.getPriority();
+                }
+            }
+
+            if (event.getRecipients() == null || event.getRecipients().isEmpty()) {
+                return "Each event needs at least one recipient";
+            }
+            recipients += event.getRecipients().size();
+        }
+
+        if (recipients > maxRecipients) {
+            return "A batch may target at most " + maxRecipients + " recipients";
+        }
+        return null;
+    }
+}
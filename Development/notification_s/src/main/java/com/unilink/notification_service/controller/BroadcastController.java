@@ -0,0 +1,88 @@
+package com.unilink.notification_service.controller;
+
+import com.unilink.notification_service.dto.BroadcastRequest;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.service.BroadcastService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/broadcasts")
+
+public class BroadcastController {
+
+    private final BroadcastService broadcastService;
+
+    // Tokens carry no roles, so announcers are listed by user id
+    @Value("${notification.broadcast.senders:}")
+    private List<String> senders;
+
+    @Value("${notification.batch.max-recipients:10000}")
+    private int maxRecipients;
+
+    public BroadcastController(BroadcastService broadcastService) {
+        this.broadcastService = broadcastService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> announce(
+            Authentication authentication,
+            @RequestBody BroadcastRequest request) {
+
+        String senderId = authentication.getName();
+        if (!senders.contains(senderId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "Not allowed to send broadcasts"));
+        }
+
+        if (request.getMessage() == null || request.getMessage().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "message is required"));
+        }
+
+        if (request.getPriority() != null) {
+            try {
+                Notification.Priority.valueOf(request.getPriority().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("message", "Invalid priority: " + request.getPriority()));
+            }
+        }
+
+        BroadcastService.Segment segment;
+        switch (request.getSegment() == null ? "all" : request.getSegment().toLowerCase()) {
+            case "all" -> segment = BroadcastService.Segment.all();
+            case "users" -> {
+                if (request.getUserIds() == null || request.getUserIds().isEmpty()) {
+                    return ResponseEntity.badRequest().body(Map.of("message", "userIds is required for a users segment"));
+                }
+                if (request.getUserIds().size() > maxRecipients) {
+                    return ResponseEntity.badRequest().body(Map.of("message",
+                            "A users segment may list at most " + maxRecipients + " users; use a set segment"));
+                }
+                segment = BroadcastService.Segment.users(request.getUserIds());
+            }
+            case "set" -> {
+                if (request.getSetKey() == null || request.getSetKey().isBlank()) {
+                    return ResponseEntity.badRequest().body(Map.of("message", "setKey is required for a set segment"));
+                }
+                segment = BroadcastService.Segment.set(request.getSetKey());
+            }
+            default -> {
+                return ResponseEntity.badRequest().body(Map.of("message", "Invalid segment: " + request.getSegment()));
+            }
+        }
+
+        Notification announcement = broadcastService.announce(senderId, request, segment);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "message", "Broadcast accepted",
+                "announcement", announcement
+        ));
+    }
+}
@@ -0,0 +1,57 @@
+package com.unilink.notification_service.controller;
+
+import com.unilink.notification_service.dto.DeviceRegistration;
+import com.unilink.notification_service.model.DeviceToken;
+import com.unilink.notification_service.service.DeviceTokenService;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/devices")
+
+public class DeviceController {
+
+    private final DeviceTokenService deviceTokenService;
+
+    public DeviceController(DeviceTokenService deviceTokenService) {
+        this.deviceTokenService = deviceTokenService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> register(
+            Authentication authentication,
+            @RequestBody DeviceRegistration registration) {
+
+        if (registration.getToken() == null || registration.getToken().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "token is required"));
+        }
+        if (!deviceTokenService.isKnownProvider(registration.getProvider())) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Unknown push provider"));
+        }
+
+        DeviceToken device = deviceTokenService.register(authentication.getName(), registration.getToken().trim(),
+                registration.getPlatform(), registration.getProvider());
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Device registered",
+                "provider", device.getProvider()
+        ));
+    }
+
+    @DeleteMapping("/{token}")
+    public ResponseEntity<Map<String, Object>> unregister(
+            Authentication authentication,
+            @PathVariable String token) {
+
+        if (!deviceTokenService.unregister(authentication.getName(), token)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("message", "Device not found"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Device unregistered"));
+    }
+}
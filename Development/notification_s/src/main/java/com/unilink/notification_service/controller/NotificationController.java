@@ -4,16 +4,21 @@ package com.unilink.notification_service.controller;
 
 import com.unilink.notification_service.dto.NotificationStatistics;
 import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.service.NotificationMessages;
 import com.unilink.notification_service.service.NotificationService;
 
 //import lombok.extern.slf4j.Slf4j;
 //import org.slf4j.Logger;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 //@Slf4j
@@ -24,9 +29,11 @@ public class NotificationController {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NotificationController.class);
 
     private final NotificationService notificationService;
+    private final NotificationMessages messages;
 
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService, NotificationMessages messages) {
         this.notificationService = notificationService;
+        this.messages = messages;
     }
 
     @GetMapping
@@ -34,30 +41,34 @@ public class NotificationController {
             Authentication authentication,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(required = false) Boolean unreadOnly) {
+            @RequestParam(required = false) Boolean unreadOnly,
+            WebRequest request) {
 
         String userId = authentication.getName();
         log.info("📍 getNotifications - User ID: {}", userId);
 
+        if (isNotModified(userId, request)) {
+            return null;
+        }
+
         Page<Notification> notifications = notificationService.getNotifications(
                 userId, page, size, unreadOnly);
 
-        return ResponseEntity.ok(Map.of(
-                "notifications", notifications.getContent(),
-                "totalPages", notifications.getTotalPages(),
-                "currentPage", notifications.getNumber(),
-                "totalNotifications", notifications.getTotalElements()
-        ));
+        return pageResponse(notifications, LocaleContextHolder.getLocale());
     }
 
     @GetMapping("/unread-count")
-    public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication) {
+    public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication, WebRequest request) {
         String userId = authentication.getName();
         log.info("📍 getUnreadCount - User ID: {}", userId);
 
+        if (isNotModified(userId, request)) {
+            return null;
+        }
+
         Long count = notificationService.getUnreadCount(userId);
 
-        return ResponseEntity.ok(Map.of("count", count));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(Map.of("count", count));
     }
 
     @PatchMapping("/{id}/read")
@@ -70,7 +81,7 @@ public class NotificationController {
         return notificationService.markAsRead(userId, id)
                 .map(notification -> ResponseEntity.ok(Map.of(
                         "message", "Notification marked as read",
-                        "notification", notification
+                        "notification", messages.apply(notification, LocaleContextHolder.getLocale())
                 )))
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -119,4 +130,19 @@ public class NotificationController {
 
         return ResponseEntity.ok(Map.of("statistics", stats));
     }
+
+    private ResponseEntity<Map<String, Object>> pageResponse(Page<Notification> notifications, Locale locale) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy("Accept-Language").body(Map.of(
+                "notifications", messages.applyAll(notifications.getContent(), locale),
+                "totalPages", notifications.getTotalPages(),
+                "currentPage", notifications.getNumber(),
+                "totalNotifications", notifications.getTotalElements()
+        ));
+    }
+
+    // Read the version before querying, so a concurrent change yields an older tag, never a newer one
+    private boolean isNotModified(String userId, WebRequest request) {
+        Long version = notificationService.getInboxVersion(userId);
+        return version != null && request.checkNotModified("\"" + version + "\"");
+    }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package com.unilink.notification_service.controller;
 
+import com.unilink.notification_service.dto.ReadBatchRequest;
+import com.unilink.notification_service.service.ConnectSnapshotService;
 import com.unilink.notification_service.service.NotificationService;
+import com.unilink.notification_service.service.UnreadCountPusher;
 import com.unilink.notification_service.service.WebSocketService;
 
 //import lombok.extern.slf4j.Slf4j;
 //import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -14,7 +18,10 @@ import org.springframework.web.socket.messaging.SessionConnectEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import java.security.Principal;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 //@Slf4j
 @Controller
@@ -24,10 +31,17 @@ public class WebSocketController {
 
     private final NotificationService notificationService;
     private final WebSocketService webSocketService;
+    private final ConnectSnapshotService connectSnapshotService;
+    private final UnreadCountPusher unreadCountPusher;
 
-    public WebSocketController(NotificationService notificationService, WebSocketService webSocketService) {
+    @Value("${notification.read-batch.max-ids:200}")
+    private int maxBatchIds;
+
+    public WebSocketController(NotificationService notificationService, WebSocketService webSocketService, ConnectSnapshotService connectSnapshotService, UnreadCountPusher unreadCountPusher) {
         this.notificationService = notificationService;
         this.webSocketService = webSocketService;
+        this.connectSnapshotService = connectSnapshotService;
+        this.unreadCountPusher = unreadCountPusher;
     }
 
     @EventListener
@@ -41,10 +55,8 @@ public class WebSocketController {
 
             webSocketService.addOnlineUser(userId, sessionId);
 
-            // Send initial unread count
-            Long unreadCount = notificationService.getUnreadCount(userId);
-            webSocketService.sendToUser(userId, "notification:unread-count",
-                    Map.of("count", unreadCount));
+            // Send unread count and newest items in one frame, paced during reconnect storms
+            connectSnapshotService.deliverOnConnect(userId);
         }
     }
 
@@ -55,7 +67,7 @@ public class WebSocketController {
 
         if (user != null) {
             String userId = user.getName();
-            webSocketService.removeOnlineUser(userId);
+            webSocketService.removeOnlineUser(userId, headerAccessor.getSessionId());
         }
     }
 
@@ -68,16 +80,43 @@ public class WebSocketController {
                 notification -> {
                     webSocketService.sendToUser(userId, "notification:read-success",
                             Map.of("notificationId", notificationId));
-
-                    Long newUnreadCount = notificationService.getUnreadCount(userId);
-                    webSocketService.sendToUser(userId, "notification:unread-count",
-                            Map.of("count", newUnreadCount));
+                    unreadCountPusher.schedule(userId);
                 },
                 () -> webSocketService.sendToUser(userId, "notification:error",
                         Map.of("message", "Failed to mark as read"))
         );
     }
 
+    /**
+     * Read receipts for many notifications at once: {@code {"notificationIds": [...]}}.
+     * Applied with bulk updates; the new unread count follows as one debounced push.
+     */
+    @MessageMapping("/notification.markReadBatch")
+    public void markReadBatch(@Payload ReadBatchRequest payload, Principal principal) {
+        String userId = principal.getName();
+        List<String> requested = payload.getNotificationIds();
+
+        if (requested == null || requested.isEmpty() || requested.size() > maxBatchIds) {
+            webSocketService.sendToUser(userId, "notification:error",
+                    Map.of("message", "Expected 1 to " + maxBatchIds + " notificationIds"));
+            return;
+        }
+
+        Set<String> notificationIds = new LinkedHashSet<>(requested);
+        try {
+            long marked = notificationService.markReadBatch(userId, notificationIds);
+            webSocketService.sendToUser(userId, "notification:read-batch-success",
+                    Map.of("notificationIds", notificationIds, "marked", marked));
+            if (marked > 0) {
+                unreadCountPusher.schedule(userId);
+            }
+        } catch (Exception e) {
+            log.error("Error marking notifications as read", e);
+            webSocketService.sendToUser(userId, "notification:error",
+                    Map.of("message", "Failed to mark as read"));
+        }
+    }
+
     @MessageMapping("/notification.markAllRead")
     public void markAllAsRead(Principal principal) {
         String userId = principal.getName();
@@ -0,0 +1,95 @@
+package com.unilink.notification_service.dto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of {@code POST /api/broadcasts}: an announcement for everyone ({@code segment = all}),
+ * an explicit list of users ({@code users}), or the members of a precomputed Redis set
+ * ({@code set}, named by {@code setKey}).
+ */
+public class BroadcastRequest {
+    private String segment = "all";
+    private List<String> userIds = new ArrayList<>();
+    private String setKey;
+    private String actorName;
+    private String actorPicture;
+    private String message;
+    private String relatedId;
+    private String priority;
+    private Map<String, Object> metadata = new HashMap<>();
+
+    public String getSegment() {
+        return segment;
+    }
+
+    public void setSegment(String segment) {
+        this.segment = segment;
+    }
+
+    public List<String> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<String> userIds) {
+        this.userIds = userIds;
+    }
+
+    public String getSetKey() {
+        return setKey;
+    }
+
+    public void setSetKey(String setKey) {
+        this.setKey = setKey;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public void setActorName(String actorName) {
+        this.actorName = actorName;
+    }
+
+    public String getActorPicture() {
+        return actorPicture;
+    }
+
+    public void setActorPicture(String actorPicture) {
+        this.actorPicture = actorPicture;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getRelatedId() {
+        return relatedId;
+    }
+
+    public void setRelatedId(String relatedId) {
+        this.relatedId = relatedId;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+    }
+}
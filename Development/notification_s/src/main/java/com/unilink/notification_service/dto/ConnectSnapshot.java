@@ -0,0 +1,48 @@
+package com.unilink.notification_service.dto;
+
+import com.unilink.notification_service.model.Notification;
+
+import java.util.List;
+
+/**
+ * Payload of the {@code notification:snapshot} frame sent on WebSocket connect: everything a
+ * client needs to render its inbox without a follow-up REST call.
+ */
+public class ConnectSnapshot {
+    private Long version;
+    private Long unreadCount;
+    private List<Notification> notifications;
+
+    public ConnectSnapshot() {
+    }
+
+    public ConnectSnapshot(Long version, Long unreadCount, List<Notification> notifications) {
+        this.version = version;
+        this.unreadCount = unreadCount;
+        this.notifications = notifications;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(Long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+
+    public void setNotifications(List<Notification> notifications) {
+        this.notifications = notifications;
+    }
+}
@@ -0,0 +1,35 @@
+package com.unilink.notification_service.dto;
+
+/**
+ * Body of {@code POST /api/devices}: a push token from the client SDK, the platform it runs
+ * on ({@code ios}, {@code android}, {@code web}) and, optionally, the push provider to use.
+ */
+public class DeviceRegistration {
+    private String token;
+    private String platform;
+    private String provider;
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public void setPlatform(String platform) {
+        this.platform = platform;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+}
@@ -0,0 +1,71 @@
+package com.unilink.notification_service.dto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of {@code POST /api/notifications/batch}: one or more events, each fanned out to its
+ * recipients. The actor is always the authenticated caller; its name and picture come from
+ * the user directory, not from the request.
+ */
+public class NotificationBatchRequest {
+    private List<Event> events = new ArrayList<>();
+
+    public static class Event {
+        private String type;
+        private String relatedId;
+        private String priority;
+        private Map<String, Object> metadata = new HashMap<>();
+        private List<String> recipients = new ArrayList<>();
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public String getRelatedId() {
+            return relatedId;
+        }
+
+        public void setRelatedId(String relatedId) {
+            this.relatedId = relatedId;
+        }
+
+        public String getPriority() {
+            return priority;
+        }
+
+        public void setPriority(String priority) {
+            this.priority = priority;
+        }
+
+        public Map<String, Object> getMetadata() {
+            return metadata;
+        }
+
+        public void setMetadata(Map<String, Object> metadata) {
+            this.metadata = metadata;
+        }
+
+        public List<String> getRecipients() {
+            return recipients;
+        }
+
+        public void setRecipients(List<String> recipients) {
+            this.recipients = recipients;
+        }
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<Event> events) {
+        this.events = events;
+    }
+}
@@ -25,6 +25,8 @@ public class NotificationEventData implements Serializable {
     private String message;
     private String priority;
     private Map<String, Object> metadata;
+    // Epoch millis when the event was ingested, used to drop events that are no longer useful
+    private Long receivedAt;
 
     // Explicit builder method (in case Lombok doesn't work)
     public static NotificationEventDataBuilder builder() {
@@ -42,6 +44,7 @@ public class NotificationEventData implements Serializable {
         private String message;
         private String priority;
         private Map<String, Object> metadata;
+        private Long receivedAt;
 
         public NotificationEventDataBuilder userId(String userId) {
             this.userId = userId;
@@ -88,6 +91,11 @@ public class NotificationEventData implements Serializable {
             return this;
         }
 
+        public NotificationEventDataBuilder receivedAt(Long receivedAt) {
+            this.receivedAt = receivedAt;
+            return this;
+        }
+
         public NotificationEventData build() {
             NotificationEventData data = new NotificationEventData();
             data.userId = this.userId;
@@ -99,6 +107,7 @@ public class NotificationEventData implements Serializable {
             data.message = this.message;
             data.priority = this.priority;
             data.metadata = this.metadata != null ? this.metadata : new HashMap<>();
+            data.receivedAt = this.receivedAt;
             return data;
         }
     }
@@ -175,4 +184,12 @@ public class NotificationEventData implements Serializable {
     public void setMetadata(Map<String, Object> metadata) {
         this.metadata = metadata;
     }
-}
\ No newline at end of file
+
+    public Long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(Long receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+}
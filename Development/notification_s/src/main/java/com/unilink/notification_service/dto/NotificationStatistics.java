@@ -15,4 +15,37 @@ public class NotificationStatistics {
     private String type;
     private Long count;
     private Long unread;
+
+    public NotificationStatistics() {
+    }
+
+    public NotificationStatistics(String type, Long count, Long unread) {
+        this.type = type;
+        this.count = count;
+        this.unread = unread;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Long getUnread() {
+        return unread;
+    }
+
+    public void setUnread(Long unread) {
+        this.unread = unread;
+    }
 }
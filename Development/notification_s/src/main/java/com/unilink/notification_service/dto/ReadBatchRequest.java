@@ -0,0 +1,19 @@
+package com.unilink.notification_service.dto;
+
+import java.util.List;
+
+/**
+ * Payload of the {@code /notification.markReadBatch} STOMP message: the ids of the
+ * notifications (own or activities) the user has read.
+ */
+public class ReadBatchRequest {
+    private List<String> notificationIds;
+
+    public List<String> getNotificationIds() {
+        return notificationIds;
+    }
+
+    public void setNotificationIds(List<String> notificationIds) {
+        this.notificationIds = notificationIds;
+    }
+}
@@ -0,0 +1,172 @@
+package com.unilink.notification_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A notification stored once for a whole audience (fan-out-on-read). Recipients see it merged
+ * into their timeline at read time; their read/deleted state lives in
+ * {@link ActivityReadMarker}. Large audiences are split over several documents; an audience of
+ * {@link #EVERYONE} reaches every user.
+ */
+@Document(collection = "activities")
+@CompoundIndex(name = "audience_createdAt", def = "{'audience': 1, 'createdAt': -1}")
+public class Activity {
+
+    public static final String EVERYONE = "*";
+
+    @Id
+    private String id;
+
+    private Notification.NotificationType type;
+
+    private String actorId;
+
+    private String actorName;
+
+    private String actorPicture;
+
+    private String relatedId;
+
+    private String message;
+
+    private Notification.Priority priority = Notification.Priority.MEDIUM;
+
+    private Map<String, Object> metadata = new HashMap<>();
+
+    private List<String> audience = new ArrayList<>();
+
+    @Indexed
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+
+    public Activity() {
+    }
+
+    /**
+     * The activity as the given recipient sees it in their timeline.
+     */
+    public Notification toNotification(String userId, boolean read) {
+        return Notification.builder()
+                .id(id)
+                .userId(userId)
+                .type(type)
+                .actorId(actorId)
+                .actorName(actorName)
+                .actorPicture(actorPicture)
+                .relatedId(relatedId)
+                .message(message)
+                .read(read)
+                .priority(priority)
+                .metadata(metadata != null ? new HashMap<>(metadata) : new HashMap<>())
+                .expiresAt(expiresAt)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Notification.NotificationType getType() {
+        return type;
+    }
+
+    public void setType(Notification.NotificationType type) {
+        this.type = type;
+    }
+
+    public String getActorId() {
+        return actorId;
+    }
+
+    public void setActorId(String actorId) {
+        this.actorId = actorId;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public void setActorName(String actorName) {
+        this.actorName = actorName;
+    }
+
+    public String getActorPicture() {
+        return actorPicture;
+    }
+
+    public void setActorPicture(String actorPicture) {
+        this.actorPicture = actorPicture;
+    }
+
+    public String getRelatedId() {
+        return relatedId;
+    }
+
+    public void setRelatedId(String relatedId) {
+        this.relatedId = relatedId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Notification.Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Notification.Priority priority) {
+        this.priority = priority;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+    }
+
+    public List<String> getAudience() {
+        return audience;
+    }
+
+    public void setAudience(List<String> audience) {
+        this.audience = audience;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
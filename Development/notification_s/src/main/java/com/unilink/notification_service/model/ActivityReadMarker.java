@@ -0,0 +1,80 @@
+package com.unilink.notification_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One user's state over shared {@link Activity} documents: everything up to
+ * {@code readBefore}/{@code deletedBefore} is read/deleted, plus individually marked ids
+ * after that point.
+ */
+@Document(collection = "activity_read_markers")
+public class ActivityReadMarker {
+
+    @Id
+    private String userId;
+
+    private LocalDateTime readBefore;
+
+    private LocalDateTime deletedBefore;
+
+    private Set<String> readIds = new HashSet<>();
+
+    private Set<String> deletedIds = new HashSet<>();
+
+    public ActivityReadMarker() {
+    }
+
+    public ActivityReadMarker(String userId) {
+        this.userId = userId;
+    }
+
+    public boolean isRead(Activity activity) {
+        return (readBefore != null && !activity.getCreatedAt().isAfter(readBefore))
+                || readIds.contains(activity.getId());
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getReadBefore() {
+        return readBefore;
+    }
+
+    public void setReadBefore(LocalDateTime readBefore) {
+        this.readBefore = readBefore;
+    }
+
+    public LocalDateTime getDeletedBefore() {
+        return deletedBefore;
+    }
+
+    public void setDeletedBefore(LocalDateTime deletedBefore) {
+        this.deletedBefore = deletedBefore;
+    }
+
+    public Set<String> getReadIds() {
+        return readIds;
+    }
+
+    public void setReadIds(Set<String> readIds) {
+        this.readIds = readIds;
+    }
+
+    public Set<String> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public void setDeletedIds(Set<String> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+}
@@ -0,0 +1,82 @@
+package com.unilink.notification_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A mobile or web push token registered by one of a user's devices. {@code provider} names
+ * the {@code PushProvider} that delivers to it. A token belongs to one user at a time; when
+ * another user signs in on the device, the registration moves over.
+ */
+@Document(collection = "device_tokens")
+public class DeviceToken {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String userId;
+
+    @Indexed(unique = true)
+    private String token;
+
+    private String platform;
+
+    private String provider;
+
+    private LocalDateTime updatedAt;
+
+    public DeviceToken() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public void setPlatform(String platform) {
+        this.platform = platform;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,56 +1,95 @@
 package com.unilink.notification_service.model;
 
-import org.springframework.data.annotation.CreatedDate;
+import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Stored under short field names (see the {@code F_*} constants), with type and priority as
+ * small ints (see {@code MongoConfig}). Creation time is not stored: it is read from the
+ * ObjectId, which is also what the inbox sorts on. The JSON shape is unchanged.
+ */
 @Document(collection = "notifications")
 @CompoundIndexes({
-        @CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}"),
-        @CompoundIndex(name = "userId_read", def = "{'userId': 1, 'read': 1}")
+        @CompoundIndex(name = "u_id", def = "{'u': 1, '_id': -1}"),
+        @CompoundIndex(name = "u_rd", def = "{'u': 1, 'rd': 1}")
 })
 public class Notification {
 
+    // Stored names, for paths the query mapper does not translate (array filters, raw aggregations)
+    public static final String F_USER_ID = "u";
+    public static final String F_TYPE = "t";
+    public static final String F_READ = "rd";
+    public static final String F_EXPIRES_AT = "x";
+    public static final String F_UPDATED_AT = "ua";
+
+    // Actors kept for a grouped notification, newest first
+    public static final int MAX_LAST_ACTORS = 3;
+
     @Id
     private String id;
 
-    @Indexed
+    // Indexed through the prefix of u_id and u_rd
+    @Field(F_USER_ID)
     private String userId;
 
+    @Field(F_TYPE)
     private NotificationType type;
 
+    @Field("a")
     private String actorId;
 
+    @Field("an")
     private String actorName;
 
+    @Field("ap")
     private String actorPicture;
 
+    @Field("r")
     private String relatedId;
 
+    @Field("m")
     private String message;
 
+    @Field(F_READ)
     private Boolean read = false;
 
-    private Priority priority = Priority.MEDIUM;
+    // Null (not written) when MEDIUM, which nearly every notification is
+    @Field("p")
+    private Priority priority;
+
+    // Null (not written) while ungrouped
+    @Field("gc")
+    private Integer groupCount;
 
+    @Field("la")
+    private List<String> lastActorIds;
+
+    @Field("md")
     private Map<String, Object> metadata = new HashMap<>();
 
-    @Indexed(expireAfterSeconds = 0)
+    // Plain index created by RetentionPurgeService, which replaces the old TTL index
+    @Field(F_EXPIRES_AT)
     private LocalDateTime expiresAt;
 
-    @CreatedDate
+    // Derived from the id unless set explicitly; never stored
+    @Transient
     private LocalDateTime createdAt;
 
     @LastModifiedDate
+    @Field(F_UPDATED_AT)
     private LocalDateTime updatedAt;
 
     // No-arg constructor
@@ -71,7 +110,7 @@ public class Notification {
         this.relatedId = relatedId;
         this.message = message;
         this.read = read != null ? read : false;
-        this.priority = priority != null ? priority : Priority.MEDIUM;
+        setPriority(priority);
         this.metadata = metadata != null ? metadata : new HashMap<>();
         this.expiresAt = expiresAt;
         this.createdAt = createdAt;
@@ -81,35 +120,102 @@ public class Notification {
     // Virtual fields (computed on the fly)
     @Transient
     public Boolean isGrouped() {
-        return metadata != null &&
-                metadata.containsKey("groupCount") &&
-                ((Integer) metadata.get("groupCount")) > 1;
+        return getGroupCount() > 1;
     }
 
-    @Transient
     public Integer getGroupCount() {
-        return metadata != null && metadata.containsKey("groupCount")
-                ? (Integer) metadata.get("groupCount")
-                : 1;
+        if (groupCount != null) {
+            return groupCount;
+        }
+        // Documents written before the compact schema kept the count in metadata
+        Object legacy = metadata != null ? metadata.get("groupCount") : null;
+        return legacy instanceof Number number ? number.intValue() : 1;
+    }
+
+    public void setGroupCount(Integer groupCount) {
+        this.groupCount = groupCount != null && groupCount > 1 ? groupCount : null;
+    }
+
+    public List<String> getLastActorIds() {
+        return lastActorIds != null ? lastActorIds : List.of();
+    }
+
+    public void setLastActorIds(List<String> lastActorIds) {
+        this.lastActorIds = lastActorIds != null && !lastActorIds.isEmpty() ? lastActorIds : null;
+    }
+
+    /**
+     * Records another actor joining the group, keeping the newest {@link #MAX_LAST_ACTORS}.
+     */
+    public void addLastActor(String actorId) {
+        if (actorId == null) {
+            return;
+        }
+
+        List<String> actors = new ArrayList<>(MAX_LAST_ACTORS);
+        actors.add(actorId);
+        for (String previous : getLastActorIds()) {
+            if (actors.size() == MAX_LAST_ACTORS) {
+                break;
+            }
+            if (!previous.equals(actorId)) {
+                actors.add(previous);
+            }
+        }
+        lastActorIds = actors;
+    }
+
+    /**
+     * Creation time encoded in an ObjectId hex string, or null for other ids.
+     */
+    public static LocalDateTime createdAtOf(String id) {
+        if (id == null || !ObjectId.isValid(id)) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(new ObjectId(id).getDate().toInstant(), ZoneId.systemDefault());
     }
 
+    // Codes are what is stored; never reuse or renumber one
     public enum NotificationType {
-        LIKE("like"),
-        MESSAGE("message"),
-        PROFILE_VIEW("profile-view"),
-        FRIEND_POST("friend-post"),
-        FRIEND_REQUEST("friend-request");
+        LIKE("like", 1),
+        MESSAGE("message", 2),
+        PROFILE_VIEW("profile-view", 3),
+        FRIEND_POST("friend-post", 4),
+        FRIEND_REQUEST("friend-request", 5),
+        ANNOUNCEMENT("announcement", 6);
 
         private final String value;
+        private final int code;
 
-        NotificationType(String value) {
+        NotificationType(String value, int code) {
             this.value = value;
+            this.code = code;
         }
 
         public String getValue() {
             return value;
         }
 
+        public int getCode() {
+            return code;
+        }
+
+        public static NotificationType fromCode(int code) {
+            for (NotificationType type : NotificationType.values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Invalid notification type code: " + code);
+        }
+
+        /**
+         * Type from a raw stored value: a code, or the enum name written before the compact schema.
+         */
+        public static NotificationType fromStored(Object stored) {
+            return stored instanceof Number number ? fromCode(number.intValue()) : valueOf(String.valueOf(stored));
+        }
+
         public static NotificationType fromString(String value) {
             for (NotificationType type : NotificationType.values()) {
                 if (type.value.equals(value)) {
@@ -121,7 +227,26 @@ public class Notification {
     }
 
     public enum Priority {
-        HIGH, MEDIUM, LOW
+        HIGH(1), MEDIUM(2), LOW(3);
+
+        private final int code;
+
+        Priority(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public static Priority fromCode(int code) {
+            for (Priority priority : Priority.values()) {
+                if (priority.code == code) {
+                    return priority;
+                }
+            }
+            throw new IllegalArgumentException("Invalid priority code: " + code);
+        }
     }
 
     // Manual builder (kept as-is)
@@ -226,7 +351,7 @@ public class Notification {
             notification.relatedId = this.relatedId;
             notification.message = this.message;
             notification.read = this.read;
-            notification.priority = this.priority;
+            notification.setPriority(this.priority);
             notification.metadata = this.metadata != null ? this.metadata : new HashMap<>();
             notification.expiresAt = this.expiresAt;
             notification.createdAt = this.createdAt;
@@ -309,11 +434,11 @@ public class Notification {
     }
 
     public Priority getPriority() {
-        return priority;
+        return priority != null ? priority : Priority.MEDIUM;
     }
 
     public void setPriority(Priority priority) {
-        this.priority = priority;
+        this.priority = priority != Priority.MEDIUM ? priority : null;
     }
 
     public Map<String, Object> getMetadata() {
@@ -333,7 +458,7 @@ public class Notification {
     }
 
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return createdAt != null ? createdAt : createdAtOf(id);
     }
 
     public void setCreatedAt(LocalDateTime createdAt) {
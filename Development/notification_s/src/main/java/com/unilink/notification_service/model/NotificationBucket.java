@@ -0,0 +1,134 @@
+package com.unilink.notification_service.model;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Up to {@code notification.storage.bucket-size} notifications of one user, newest first,
+ * spanning at most {@code notification.storage.bucket-span-hours}. Only the user's single
+ * unsealed bucket receives inserts, so buckets ordered by {@code maxId} descending yield the
+ * inbox in creation order.
+ */
+@Document(collection = "notification_buckets")
+@CompoundIndexes({
+        @CompoundIndex(name = "userId_maxId", def = "{'userId': 1, 'maxId': -1}"),
+        @CompoundIndex(name = "userId_open", def = "{'userId': 1}", unique = true, partialFilter = "{'sealed': false}")
+})
+public class NotificationBucket {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private Boolean sealed = false;
+
+    private Integer count = 0;
+
+    private Integer unreadCount = 0;
+
+    private Map<String, Integer> typeCounts = new HashMap<>();
+
+    private ObjectId minId;
+
+    private ObjectId maxId;
+
+    // Earliest expiresAt among the items, for the retention purge
+    @Indexed
+    private LocalDateTime minExpiresAt;
+
+    private List<Notification> items = new ArrayList<>();
+
+    public NotificationBucket() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Boolean getSealed() {
+        return sealed;
+    }
+
+    public void setSealed(Boolean sealed) {
+        this.sealed = sealed;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+
+    public Integer getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(Integer unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public Map<String, Integer> getTypeCounts() {
+        return typeCounts;
+    }
+
+    public void setTypeCounts(Map<String, Integer> typeCounts) {
+        this.typeCounts = typeCounts;
+    }
+
+    public ObjectId getMinId() {
+        return minId;
+    }
+
+    public void setMinId(ObjectId minId) {
+        this.minId = minId;
+    }
+
+    public ObjectId getMaxId() {
+        return maxId;
+    }
+
+    public void setMaxId(ObjectId maxId) {
+        this.maxId = maxId;
+    }
+
+    public LocalDateTime getMinExpiresAt() {
+        return minExpiresAt;
+    }
+
+    public void setMinExpiresAt(LocalDateTime minExpiresAt) {
+        this.minExpiresAt = minExpiresAt;
+    }
+
+    public List<Notification> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Notification> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,46 @@
+package com.unilink.notification_service.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Per-user totals for the bucketed storage engine, keyed by user id, so counts and page
+ * totals never need to touch the buckets themselves.
+ */
+@Document(collection = "notification_inboxes")
+public class NotificationInbox {
+
+    @Id
+    private String userId;
+
+    private Long count = 0L;
+
+    private Long unreadCount = 0L;
+
+    public NotificationInbox() {
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(Long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
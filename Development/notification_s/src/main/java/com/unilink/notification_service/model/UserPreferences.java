@@ -30,6 +30,9 @@ public class UserPreferences {
 
     private Boolean emailNotifications = true;
 
+    // Where digests go; nothing is emailed until it is set
+    private String email;
+
     private Boolean pushNotifications = true;
 
     private QuietHours quietHours = new QuietHours(false, "22:00", "08:00");
@@ -252,9 +255,20 @@ public class UserPreferences {
     public Boolean getEmailNotifications() { return emailNotifications; }
     public void setEmailNotifications(Boolean value) { this.emailNotifications = value; }
 
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public boolean wantsEmail() {
+        return Boolean.TRUE.equals(emailNotifications) && email != null && !email.isBlank();
+    }
+
     public Boolean getPushNotifications() { return pushNotifications; }
     public void setPushNotifications(Boolean value) { this.pushNotifications = value; }
 
+    public boolean wantsPush() {
+        return Boolean.TRUE.equals(pushNotifications);
+    }
+
     public QuietHours getQuietHours() { return quietHours; }
     public void setQuietHours(QuietHours quietHours) { this.quietHours = quietHours; }
 
@@ -0,0 +1,91 @@
+package com.unilink.notification_service.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Records each notification pipeline stage as a JFR event and as an entry in the in-memory
+ * trace ring buffer.
+ *
+ * <pre>
+ * PipelineStageEvent event = pipelineRecorder.begin(PipelineStage.DEDUP);
+ * ...
+ * pipelineRecorder.end(event, userId, type, "hit");
+ * </pre>
+ */
+@Component
+public class PipelineRecorder {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final PipelineTraceBuffer traceBuffer;
+    private final boolean logEvents;
+
+    public PipelineRecorder(
+            @Value("${notification.pipeline.trace-buffer-size:65536}") int traceBufferSize,
+            @Value("${notification.pipeline.log-events:false}") boolean logEvents) {
+        this.traceBuffer = new PipelineTraceBuffer(traceBufferSize);
+        this.logEvents = logEvents;
+    }
+
+    public PipelineStageEvent begin(PipelineStage stage) {
+        PipelineStageEvent event = switch (stage) {
+            case INGEST -> new PipelineStageEvent.Ingest();
+            case QUEUE -> new PipelineStageEvent.Queue();
+            case PREFERENCE_CHECK -> new PipelineStageEvent.PreferenceCheck();
+            case DEDUP -> new PipelineStageEvent.Dedup();
+            case PERSIST -> new PipelineStageEvent.Persist();
+            case PUSH -> new PipelineStageEvent.Push();
+        };
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    public void end(PipelineStageEvent event, String userId, String type, String outcome) {
+        event.end();
+        long durationNanos = System.nanoTime() - event.startNanos;
+        long userIdHash = hash(userId);
+
+        if (event.shouldCommit()) {
+            event.userIdHash = userIdHash;
+            event.notificationType = type;
+            event.outcome = outcome;
+            event.commit();
+        }
+
+        traceBuffer.add(new PipelineTrace(System.currentTimeMillis(), userIdHash,
+                event.stage(), type, durationNanos, outcome));
+    }
+
+    public List<PipelineTrace> recentTraces(String userId, int limit) {
+        return traceBuffer.findByUserIdHash(hash(userId), limit);
+    }
+
+    public PipelineTraceBuffer getTraceBuffer() {
+        return traceBuffer;
+    }
+
+    /**
+     * Whether the per-event INFO lines should still be written. Off by default; the JFR
+     * events and the trace buffer carry the same information.
+     */
+    public boolean logEvents() {
+        return logEvents;
+    }
+
+    public static long hash(String userId) {
+        if (userId == null) {
+            return 0;
+        }
+
+        long h = FNV_OFFSET;
+        for (int i = 0; i < userId.length(); i++) {
+            h = (h ^ userId.charAt(i)) * FNV_PRIME;
+        }
+        return h;
+    }
+}
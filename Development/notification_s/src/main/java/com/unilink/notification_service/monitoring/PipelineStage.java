@@ -0,0 +1,10 @@
+package com.unilink.notification_service.monitoring;
+
+public enum PipelineStage {
+    INGEST,
+    QUEUE,
+    PREFERENCE_CHECK,
+    DEDUP,
+    PERSIST,
+    PUSH
+}
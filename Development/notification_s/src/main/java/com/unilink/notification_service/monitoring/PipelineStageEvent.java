@@ -0,0 +1,87 @@
+package com.unilink.notification_service.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base JFR event for one notification pipeline stage. The JFR duration covers the stage.
+ */
+@Category({"UniLink", "Notification Pipeline"})
+@StackTrace(false)
+@Enabled(true)
+public abstract class PipelineStageEvent extends Event {
+
+    @Label("User ID Hash")
+    @Description("64-bit FNV-1a hash of the recipient user id")
+    long userIdHash;
+
+    @Label("Notification Type")
+    String notificationType;
+
+    @Label("Outcome")
+    String outcome;
+
+    // Not recorded by JFR; used for the in-memory trace duration
+    transient long startNanos;
+
+    abstract PipelineStage stage();
+
+    @Name("com.unilink.notification.Ingest")
+    @Label("Notification Ingest")
+    static class Ingest extends PipelineStageEvent {
+        @Override
+        PipelineStage stage() {
+            return PipelineStage.INGEST;
+        }
+    }
+
+    @Name("com.unilink.notification.Queue")
+    @Label("Notification Queue")
+    static class Queue extends PipelineStageEvent {
+        @Override
+        PipelineStage stage() {
+            return PipelineStage.QUEUE;
+        }
+    }
+
+    @Name("com.unilink.notification.PreferenceCheck")
+    @Label("Notification Preference Check")
+    static class PreferenceCheck extends PipelineStageEvent {
+        @Override
+        PipelineStage stage() {
+            return PipelineStage.PREFERENCE_CHECK;
+        }
+    }
+
+    @Name("com.unilink.notification.Dedup")
+    @Label("Notification Dedup")
+    static class Dedup extends PipelineStageEvent {
+        @Override
+        PipelineStage stage() {
+            return PipelineStage.DEDUP;
+        }
+    }
+
+    @Name("com.unilink.notification.Persist")
+    @Label("Notification Persist")
+    static class Persist extends PipelineStageEvent {
+        @Override
+        PipelineStage stage() {
+            return PipelineStage.PERSIST;
+        }
+    }
+
+    @Name("com.unilink.notification.Push")
+    @Label("Notification Push")
+    static class Push extends PipelineStageEvent {
+        @Override
+        PipelineStage stage() {
+            return PipelineStage.PUSH;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.unilink.notification_service.monitoring;
+
+public record PipelineTrace(
+        long timestamp,
+        long userIdHash,
+        PipelineStage stage,
+        String type,
+        long durationNanos,
+        String outcome) {
+}
@@ -0,0 +1,50 @@
+package com.unilink.notification_service.monitoring;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of the most recent pipeline traces. Writers claim a slot with a
+ * single atomic increment and overwrite whatever was there; readers scan a snapshot.
+ */
+public class PipelineTraceBuffer {
+
+    private final AtomicReferenceArray<PipelineTrace> slots;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int mask;
+
+    public PipelineTraceBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public void add(PipelineTrace trace) {
+        slots.lazySet((int) (sequence.getAndIncrement() & mask), trace);
+    }
+
+    public List<PipelineTrace> findByUserIdHash(long userIdHash, int limit) {
+        List<PipelineTrace> matches = new ArrayList<>();
+
+        for (int i = 0; i < slots.length(); i++) {
+            PipelineTrace trace = slots.get(i);
+            if (trace != null && trace.userIdHash() == userIdHash) {
+                matches.add(trace);
+            }
+        }
+
+        matches.sort(Comparator.comparingLong(PipelineTrace::timestamp).reversed());
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long written() {
+        return sequence.get();
+    }
+}
@@ -0,0 +1,46 @@
+package com.unilink.notification_service.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/pipelinetraces/{userId}?limit=100} returns the most recent pipeline
+ * stages recorded for that user on this pod. Not exposed by default; when it is, only the
+ * user ids in {@code notification.ops.users} may read it.
+ */
+@Component
+@Endpoint(id = "pipelinetraces")
+public class PipelineTraceEndpoint {
+
+    private final PipelineRecorder pipelineRecorder;
+
+    public PipelineTraceEndpoint(PipelineRecorder pipelineRecorder) {
+        this.pipelineRecorder = pipelineRecorder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        PipelineTraceBuffer buffer = pipelineRecorder.getTraceBuffer();
+        return Map.of(
+                "capacity", buffer.capacity(),
+                "written", buffer.written()
+        );
+    }
+
+    @ReadOperation
+    public Map<String, Object> traces(@Selector String userId, @Nullable Integer limit) {
+        List<PipelineTrace> traces = pipelineRecorder.recentTraces(
+                userId, limit != null ? limit : 100);
+
+        return Map.of(
+                "userIdHash", Long.toHexString(PipelineRecorder.hash(userId)),
+                "traces", traces
+        );
+    }
+}
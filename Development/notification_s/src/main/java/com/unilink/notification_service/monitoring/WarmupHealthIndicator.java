@@ -0,0 +1,42 @@
+package com.unilink.notification_service.monitoring;
+
+import com.unilink.notification_service.service.WarmupService;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code warmup} health: OUT_OF_SERVICE until the start-up warm-up has finished, with the
+ * current step and what was completed or skipped. Part of the readiness group only, so a
+ * warming pod is kept out of rotation but never restarted.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupService warmupService;
+
+    public WarmupHealthIndicator(WarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+    @Override
+    public Health health() {
+        WarmupService.Progress progress = warmupService.progress();
+
+        Health.Builder builder = progress.phase() == WarmupService.Phase.DONE
+                ? Health.up()
+                : Health.outOfService();
+
+        builder.withDetail("phase", progress.phase())
+                .withDetail("elapsedMs", progress.elapsedMs())
+                .withDetail("budgetMs", progress.budgetMs())
+                .withDetail("completed", progress.completed())
+                .withDetail("skipped", progress.skipped());
+
+        if (progress.step() != null) {
+            builder.withDetail("step", progress.step());
+        }
+        return builder.build();
+    }
+}
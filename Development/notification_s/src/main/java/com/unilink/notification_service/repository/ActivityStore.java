@@ -0,0 +1,164 @@
+package com.unilink.notification_service.repository;
+
+import com.unilink.notification_service.model.Activity;
+import com.unilink.notification_service.model.ActivityReadMarker;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Shared activities and per-user read markers for fan-out-on-read delivery. Queries never
+ * load the audience arrays; they only match on them through the {@code audience_createdAt}
+ * index.
+ */
+@Component
+public class ActivityStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ActivityStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public List<Activity> insertAll(List<Activity> activities) {
+        return List.copyOf(mongoTemplate.insertAll(activities));
+    }
+
+    public ActivityReadMarker marker(String userId) {
+        ActivityReadMarker marker = mongoTemplate.findById(userId, ActivityReadMarker.class);
+        return marker != null ? marker : new ActivityReadMarker(userId);
+    }
+
+    /**
+     * Newest activities visible to the user, optionally only unread ones.
+     */
+    public List<Activity> findForUser(String userId, ActivityReadMarker marker, boolean unreadOnly, int limit) {
+        Query query = visibleTo(userId, marker, unreadOnly)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .limit(limit);
+        query.fields().exclude("audience");
+        return mongoTemplate.find(query, Activity.class);
+    }
+
+    public long countForUser(String userId, ActivityReadMarker marker, boolean unreadOnly) {
+        return mongoTemplate.count(visibleTo(userId, marker, unreadOnly), Activity.class);
+    }
+
+    public Optional<Activity> findById(String userId, String activityId) {
+        Query query = Query.query(Criteria.where("id").is(activityId).and("audience").in(userId, Activity.EVERYONE));
+        query.fields().exclude("audience");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Activity.class));
+    }
+
+    /**
+     * Those of {@code activityIds} visible to the user that they have neither read nor hidden.
+     */
+    public Set<String> findUnreadIds(String userId, ActivityReadMarker marker, Collection<String> activityIds) {
+        Query query = Query.query(Criteria.where("id").in(activityIds).and("audience").in(userId, Activity.EVERYONE));
+        query.fields().include("id").include("createdAt");
+
+        return unreadAmong(marker, mongoTemplate.find(query, Activity.class));
+    }
+
+    public void markRead(String userId, String activityId) {
+        upsertMarker(userId, new Update().addToSet("readIds", activityId));
+    }
+
+    /**
+     * Marks those of {@code activityIds} visible to the user as read; returns the ids that were
+     * unread until now, leaving out hidden ones and ones already read.
+     */
+    public Set<String> markReadBatch(String userId, Collection<String> activityIds) {
+        Query visible = Query.query(Criteria.where("id").in(activityIds).and("audience").in(userId, Activity.EVERYONE));
+        visible.fields().include("id").include("createdAt");
+
+        // Only ids that look unread are added, so readIds does not fill up with redundant ones
+        List<Activity> found = mongoTemplate.find(visible, Activity.class);
+        Set<String> unread = unreadAmong(marker(userId), found);
+        List<Activity> activities = found.stream().filter(activity -> unread.contains(activity.getId())).toList();
+        if (activities.isEmpty()) {
+            return Set.of();
+        }
+
+        // The marker as it was before this update, so a concurrent read of the same ids counts once
+        ActivityReadMarker before = mongoTemplate.findAndModify(Query.query(Criteria.where("userId").is(userId)),
+                new Update().addToSet("readIds").each(activities.stream().map(Activity::getId).toArray()),
+                FindAndModifyOptions.options().upsert(true).returnNew(false), ActivityReadMarker.class);
+        return unreadAmong(before != null ? before : new ActivityReadMarker(userId), activities);
+    }
+
+    public void markAllRead(String userId, LocalDateTime now) {
+        // Ids before the new watermark are redundant now
+        upsertMarker(userId, new Update().set("readBefore", now).set("readIds", new HashSet<>()));
+    }
+
+    public void hide(String userId, String activityId) {
+        upsertMarker(userId, new Update().addToSet("deletedIds", activityId));
+    }
+
+    public void hideAll(String userId, LocalDateTime now) {
+        upsertMarker(userId, new Update().set("deletedBefore", now).set("deletedIds", new HashSet<>()));
+    }
+
+    public long purgeExpired(LocalDateTime now, int limit) {
+        Query expired = Query.query(Criteria.where("expiresAt").lt(now)).limit(limit);
+        expired.fields().include("id");
+
+        List<String> ids = mongoTemplate.find(expired, Activity.class).stream().map(Activity::getId).toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.remove(Query.query(Criteria.where("id").in(ids)), Activity.class).getDeletedCount();
+    }
+
+    private static Set<String> unreadAmong(ActivityReadMarker marker, List<Activity> activities) {
+        Set<String> unread = new HashSet<>();
+        for (Activity activity : activities) {
+            boolean hidden = marker.getDeletedIds().contains(activity.getId())
+                    || (marker.getDeletedBefore() != null && !activity.getCreatedAt().isAfter(marker.getDeletedBefore()));
+            if (!hidden && !marker.isRead(activity)) {
+                unread.add(activity.getId());
+            }
+        }
+        return unread;
+    }
+
+    private void upsertMarker(String userId, Update update) {
+        mongoTemplate.findAndModify(Query.query(Criteria.where("userId").is(userId)), update,
+                FindAndModifyOptions.options().upsert(true), ActivityReadMarker.class);
+    }
+
+    private static Query visibleTo(String userId, ActivityReadMarker marker, boolean unreadOnly) {
+        Criteria criteria = Criteria.where("audience").in(userId, Activity.EVERYONE);
+
+        LocalDateTime after = marker.getDeletedBefore();
+        if (unreadOnly && marker.getReadBefore() != null
+                && (after == null || marker.getReadBefore().isAfter(after))) {
+            after = marker.getReadBefore();
+        }
+        if (after != null) {
+            criteria.and("createdAt").gt(after);
+        }
+
+        Set<String> excluded = new HashSet<>(marker.getDeletedIds());
+        if (unreadOnly) {
+            excluded.addAll(marker.getReadIds());
+        }
+        if (!excluded.isEmpty()) {
+            criteria.and("id").nin(excluded);
+        }
+
+        return Query.query(criteria);
+    }
+}
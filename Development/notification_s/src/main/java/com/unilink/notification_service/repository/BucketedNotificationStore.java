@@ -0,0 +1,536 @@
+package com.unilink.notification_service.repository;
+
+import com.unilink.notification_service.config.RetentionPolicy;
+import com.unilink.notification_service.dto.NotificationStatistics;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.NotificationBucket;
+import com.unilink.notification_service.model.NotificationInbox;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Packs each user's notifications into {@link NotificationBucket} documents of up to
+ * {@code bucket-size} entries spanning at most {@code bucket-span-hours}, with per-user
+ * totals in {@link NotificationInbox}. The first page is the inbox document plus (usually)
+ * the newest bucket, and buckets are indexed by {@code {userId, maxId}} instead of three
+ * indexes over every notification.
+ *
+ * A user has at most one open bucket, enforced by a unique partial index. Inserts match it
+ * only while it has room and its first entry is within the span, so capacity is checked in
+ * the same atomic update that adds the entry; a full or stale bucket makes the upsert
+ * collide with the index, and is sealed before the insert is retried.
+ *
+ * Notification ids are ObjectIds, assigned here unless the caller preset one, so a bucket
+ * can be located from an id with a range match on {@code minId}/{@code maxId}.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.storage.engine", havingValue = "bucketed")
+public class BucketedNotificationStore implements NotificationStore {
+    // Each collision but a persistent one means another insert for the user landed meanwhile
+    private static final int MAX_INSERT_ATTEMPTS = 10;
+
+    private final MongoTemplate mongoTemplate;
+    private final RetentionPolicy retentionPolicy;
+
+    @Value("${notification.storage.bucket-size:200}")
+    private int bucketSize;
+
+    @Value("${notification.storage.bucket-span-hours:168}")
+    private long bucketSpanHours;
+
+    public BucketedNotificationStore(MongoTemplate mongoTemplate, RetentionPolicy retentionPolicy) {
+        this.mongoTemplate = mongoTemplate;
+        this.retentionPolicy = retentionPolicy;
+    }
+
+    @Override
+    public Notification insert(Notification notification) {
+        // Keep an id the caller assigned up front (e.g. one already claimed for a dedup group)
+        ObjectId id = objectId(notification.getId()).orElseGet(ObjectId::new);
+        notification.setId(id.toHexString());
+        boolean unread = !Boolean.TRUE.equals(notification.getRead());
+
+        ObjectId spanStart = spanStart();
+        // Only equality criteria are copied into an upserted bucket; the room and span checks are not
+        Query openBucket = Query.query(Criteria.where("userId").is(notification.getUserId())
+                .and("sealed").is(false)
+                .and("count").lt(bucketSize)
+                .orOperator(Criteria.where("minId").exists(false), Criteria.where("minId").gte(spanStart)));
+
+        Update push = new Update()
+                .push("items").atPosition(Update.Position.FIRST).value(notification)
+                .inc("count", 1)
+                .inc("unreadCount", unread ? 1 : 0)
+                .inc("typeCounts." + notification.getType().getValue(), 1)
+                .max("maxId", id)
+                .min("minId", id);
+        if (notification.getExpiresAt() != null) {
+            push.min("minExpiresAt", notification.getExpiresAt());
+        }
+
+        NotificationBucket bucket = null;
+        for (int attempt = 0; bucket == null; attempt++) {
+            try {
+                bucket = mongoTemplate.findAndModify(openBucket, push,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), NotificationBucket.class);
+            } catch (DuplicateKeyException e) {
+                // The open bucket is full or past its span; a concurrent insert that just opened one also lands here
+                if (attempt + 1 >= MAX_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+                sealClosedBuckets(notification.getUserId(), spanStart);
+            }
+        }
+
+        // Already out of reach of inserts; sealing frees the open slot for the next bucket
+        if (bucket.getCount() >= bucketSize) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(bucket.getId())),
+                    Update.update("sealed", true), NotificationBucket.class);
+        }
+
+        incrementInbox(notification.getUserId(), 1, unread ? 1 : 0);
+        return notification;
+    }
+
+    private void sealClosedBuckets(String userId, ObjectId spanStart) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("sealed").is(false)
+                        .orOperator(Criteria.where("count").gte(bucketSize), Criteria.where("minId").lt(spanStart))),
+                Update.update("sealed", true), NotificationBucket.class);
+    }
+
+    private ObjectId spanStart() {
+        return ObjectId.getSmallestWithDate(new Date(System.currentTimeMillis() - bucketSpanHours * 3_600_000L));
+    }
+
+    // Each insert is one upsert into the user's open bucket, so there is no batch form to use
+    @Override
+    public List<Notification> insertAll(List<Notification> notifications) {
+        List<Notification> inserted = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            inserted.add(insert(notification));
+        }
+        return inserted;
+    }
+
+    @Override
+    public Notification update(Notification notification) {
+        Optional<ObjectId> id = objectId(notification.getId());
+        if (id.isEmpty()) {
+            return notification;
+        }
+
+        mongoTemplate.updateFirst(
+                locate(notification.getUserId(), id.get()),
+                new Update().set("items.$", notification),
+                NotificationBucket.class);
+        return notification;
+    }
+
+    @Override
+    public Optional<Notification> findById(String userId, String notificationId) {
+        return objectId(notificationId).flatMap(id -> findItem(userId, id));
+    }
+
+    @Override
+    public Page<Notification> findByUserId(String userId, Pageable pageable) {
+        NotificationInbox inbox = inbox(userId);
+        return page(userId, pageable, inbox.getCount(), null);
+    }
+
+    @Override
+    public Page<Notification> findByUserIdAndRead(String userId, Boolean read, Pageable pageable) {
+        NotificationInbox inbox = inbox(userId);
+        long total = Boolean.TRUE.equals(read)
+                ? inbox.getCount() - inbox.getUnreadCount()
+                : inbox.getUnreadCount();
+        return page(userId, pageable, total, read);
+    }
+
+    @Override
+    public Long countByUserIdAndRead(String userId, Boolean read) {
+        NotificationInbox inbox = inbox(userId);
+        return Boolean.TRUE.equals(read)
+                ? inbox.getCount() - inbox.getUnreadCount()
+                : inbox.getUnreadCount();
+    }
+
+    @Override
+    public Optional<Notification> markAsRead(String userId, String notificationId) {
+        Optional<ObjectId> parsed = objectId(notificationId);
+        if (parsed.isEmpty()) {
+            return Optional.empty();
+        }
+        ObjectId id = parsed.get();
+
+        Optional<Notification> existing = findItem(userId, id);
+        if (existing.isEmpty() || Boolean.TRUE.equals(existing.get().getRead())) {
+            return existing;
+        }
+
+        Notification notification = existing.get();
+        applyRead(userId, id, notification, LocalDateTime.now());
+        return Optional.of(notification);
+    }
+
+    // One at a time: each bucket's unread counter has to move with exactly the items that changed
+    @Override
+    public long markReadBatch(String userId, Collection<String> notificationIds) {
+        LocalDateTime now = LocalDateTime.now();
+
+        long marked = 0;
+        for (ObjectId id : notificationIds.stream().distinct().flatMap(raw -> objectId(raw).stream()).toList()) {
+            Optional<Notification> existing = findItem(userId, id);
+            if (existing.isPresent() && !Boolean.TRUE.equals(existing.get().getRead())
+                    && applyRead(userId, id, existing.get(), now)) {
+                marked++;
+            }
+        }
+        return marked;
+    }
+
+    // Marks one unread item read and updates the counters; false if it was read meanwhile
+    private boolean applyRead(String userId, ObjectId id, Notification notification, LocalDateTime now) {
+        // Item paths use the stored names: positional paths are not translated by the mapper
+        Query unreadItem = Query.query(Criteria.where("userId").is(userId)
+                .and("minId").lte(id)
+                .and("maxId").gte(id)
+                .and("items").elemMatch(Criteria.where("_id").is(id).and(Notification.F_READ).is(false)));
+        Update markRead = new Update()
+                .set("items.$." + Notification.F_READ, true)
+                .set("items.$." + Notification.F_UPDATED_AT, now)
+                .inc("unreadCount", -1);
+
+        LocalDateTime readExpiry = retentionPolicy.readExpiresAt(notification.getType(), now);
+        if (readExpiry != null) {
+            markRead.min("items.$." + Notification.F_EXPIRES_AT, readExpiry).min("minExpiresAt", readExpiry);
+        }
+
+        boolean modified = mongoTemplate.updateFirst(unreadItem, markRead, NotificationBucket.class).getModifiedCount() > 0;
+        if (modified) {
+            incrementInbox(userId, 0, -1);
+        }
+
+        notification.setRead(true);
+        notification.setUpdatedAt(now);
+        if (readExpiry != null && (notification.getExpiresAt() == null
+                || readExpiry.isBefore(notification.getExpiresAt()))) {
+            notification.setExpiresAt(readExpiry);
+        }
+        return modified;
+    }
+
+    @Override
+    public void markAllAsRead(String userId) {
+        LocalDateTime now = LocalDateTime.now();
+
+        retentionPolicy.getReadDays().forEach((type, days) -> mongoTemplate.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("unreadCount").gt(0)),
+                new Update()
+                        .min("items.$[e]." + Notification.F_EXPIRES_AT, now.plusDays(days))
+                        .min("minExpiresAt", now.plusDays(days))
+                        .filterArray(Criteria.where("e." + Notification.F_TYPE).is(type.getCode())
+                                .and("e." + Notification.F_READ).is(false)),
+                NotificationBucket.class));
+
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("unreadCount").gt(0)),
+                new Update()
+                        .set("items.$[]." + Notification.F_READ, true)
+                        .set("items.$[]." + Notification.F_UPDATED_AT, now)
+                        .set("unreadCount", 0),
+                NotificationBucket.class);
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("userId").is(userId)),
+                Update.update("unreadCount", 0L), NotificationInbox.class);
+    }
+
+    @Override
+    public Set<String> findUnreadIds(String userId, Collection<String> notificationIds) {
+        Set<String> found = new HashSet<>();
+        for (ObjectId id : notificationIds.stream().distinct().flatMap(raw -> objectId(raw).stream()).toList()) {
+            findItem(userId, id)
+                    .filter(notification -> !Boolean.TRUE.equals(notification.getRead()))
+                    .ifPresent(notification -> found.add(id.toHexString()));
+        }
+        return found;
+    }
+
+    @Override
+    public boolean deleteById(String userId, String notificationId) {
+        Optional<ObjectId> parsed = objectId(notificationId);
+        if (parsed.isEmpty()) {
+            return false;
+        }
+        ObjectId id = parsed.get();
+
+        Optional<Notification> existing = findItem(userId, id);
+        if (existing.isEmpty()) {
+            return false;
+        }
+
+        Notification notification = existing.get();
+        boolean unread = !Boolean.TRUE.equals(notification.getRead());
+
+        Update pull = new Update()
+                .pull("items", Query.query(Criteria.where("_id").is(id)).getQueryObject())
+                .inc("count", -1)
+                .inc("unreadCount", unread ? -1 : 0)
+                .inc("typeCounts." + notification.getType().getValue(), -1);
+
+        // Matching on the item keeps a concurrent double delete from decrementing twice
+        boolean removed = mongoTemplate.updateFirst(locate(userId, id), pull, NotificationBucket.class)
+                .getModifiedCount() > 0;
+
+        if (removed) {
+            incrementInbox(userId, -1, unread ? -1 : 0);
+        }
+        return removed;
+    }
+
+    @Override
+    public Long deleteByUserId(String userId) {
+        Long count = inbox(userId).getCount();
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)), NotificationBucket.class);
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)), NotificationInbox.class);
+        return count;
+    }
+
+    @Override
+    public List<NotificationStatistics> getStatistics(String userId) {
+        Map<String, Long> counts = new HashMap<>();
+        Query buckets = Query.query(Criteria.where("userId").is(userId));
+        buckets.fields().include("typeCounts");
+        for (NotificationBucket bucket : mongoTemplate.find(buckets, NotificationBucket.class)) {
+            bucket.getTypeCounts().forEach((type, count) -> counts.merge(type, count.longValue(), Long::sum));
+        }
+
+        // Unread entries live in the few newest buckets; only those are unwound
+        Aggregation unreadByType = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").is(userId).and("unreadCount").gt(0)),
+                Aggregation.unwind("items"),
+                Aggregation.group("items.type")
+                        .sum(ConditionalOperators.when(Criteria.where("items.read").is(false))
+                                .then(1).otherwise(0)).as("unread")
+        );
+        Map<String, Long> unread = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(unreadByType,
+                NotificationBucket.class, Document.class).getMappedResults()) {
+            // Grouped on the stored type, which is a code rather than the API value
+            unread.put(Notification.NotificationType.fromStored(row.get("_id")).getValue(),
+                    ((Number) row.get("unread")).longValue());
+        }
+
+        List<NotificationStatistics> statistics = new ArrayList<>();
+        counts.forEach((type, count) -> {
+            if (count > 0) {
+                statistics.add(new NotificationStatistics(type, count, unread.getOrDefault(type, 0L)));
+            }
+        });
+        return statistics;
+    }
+
+    @Override
+    public long purgeExpired(LocalDateTime now, int limit) {
+        Query candidates = Query.query(Criteria.where("minExpiresAt").lt(now))
+                .limit(Math.max(1, limit / bucketSize + 1));
+
+        long removed = 0;
+        for (NotificationBucket bucket : mongoTemplate.find(candidates, NotificationBucket.class)) {
+            removed += removeItems(bucket, item ->
+                    item.getExpiresAt() != null && item.getExpiresAt().isBefore(now));
+        }
+        return removed;
+    }
+
+    @Override
+    public long trimToLimit(String userId, int maxNotifications, int limit) {
+        long count = inbox(userId).getCount();
+        if (count <= maxNotifications) {
+            return 0;
+        }
+
+        // Whole sealed buckets are dropped oldest first; the cap may be exceeded by up to one bucket
+        Query oldestFirst = Query.query(Criteria.where("userId").is(userId).and("sealed").is(true))
+                .with(Sort.by(Sort.Direction.ASC, "maxId"));
+        oldestFirst.fields().exclude("items");
+
+        long removed = 0;
+        for (NotificationBucket bucket : mongoTemplate.find(oldestFirst, NotificationBucket.class)) {
+            if (count - bucket.getCount() < maxNotifications || removed >= limit) {
+                break;
+            }
+
+            if (mongoTemplate.remove(Query.query(Criteria.where("id").is(bucket.getId())),
+                    NotificationBucket.class).getDeletedCount() > 0) {
+                incrementInbox(userId, -bucket.getCount(), -bucket.getUnreadCount());
+                count -= bucket.getCount();
+                removed += bucket.getCount();
+            }
+        }
+        return removed;
+    }
+
+    private long removeItems(NotificationBucket bucket, Predicate<Notification> filter) {
+        List<Object> ids = new ArrayList<>();
+        Map<String, Integer> typeCounts = new HashMap<>();
+        int unread = 0;
+        LocalDateTime remainingMinExpiry = null;
+
+        for (Notification item : bucket.getItems()) {
+            if (filter.test(item)) {
+                ids.add(new ObjectId(item.getId()));
+                typeCounts.merge(item.getType().getValue(), 1, Integer::sum);
+                if (!Boolean.TRUE.equals(item.getRead())) {
+                    unread++;
+                }
+            } else if (item.getExpiresAt() != null && (remainingMinExpiry == null
+                    || item.getExpiresAt().isBefore(remainingMinExpiry))) {
+                remainingMinExpiry = item.getExpiresAt();
+            }
+        }
+
+        Query query = Query.query(Criteria.where("id").is(bucket.getId()));
+        Update update = new Update();
+        if (remainingMinExpiry != null) {
+            update.set("minExpiresAt", remainingMinExpiry);
+        } else {
+            update.unset("minExpiresAt");
+        }
+
+        if (ids.isEmpty()) {
+            mongoTemplate.updateFirst(query, update, NotificationBucket.class);
+            return 0;
+        }
+
+        // Only applies if every item is still there, so counters never go out of step
+        query.addCriteria(Criteria.where("items._id").all(ids));
+        update.pull("items", Query.query(Criteria.where("_id").in(ids)).getQueryObject())
+                .inc("count", -ids.size())
+                .inc("unreadCount", -unread);
+        typeCounts.forEach((type, n) -> update.inc("typeCounts." + type, -n));
+
+        if (mongoTemplate.updateFirst(query, update, NotificationBucket.class).getModifiedCount() == 0) {
+            return 0;
+        }
+
+        incrementInbox(bucket.getUserId(), -ids.size(), -unread);
+
+        if (ids.size() == bucket.getCount() && Boolean.TRUE.equals(bucket.getSealed())) {
+            mongoTemplate.remove(Query.query(Criteria.where("id").is(bucket.getId()).and("count").lte(0)),
+                    NotificationBucket.class);
+        }
+        return ids.size();
+    }
+
+    private Page<Notification> page(String userId, Pageable pageable, long total, Boolean read) {
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<Notification> content = new ArrayList<>(Math.min(limit, bucketSize));
+
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (Boolean.FALSE.equals(read)) {
+            criteria = criteria.and("unreadCount").gt(0);
+        }
+        Query buckets = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "maxId"));
+        buckets.cursorBatchSize(2);
+
+        try (Stream<NotificationBucket> stream = mongoTemplate.stream(buckets, NotificationBucket.class)) {
+            Iterator<NotificationBucket> iterator = stream.iterator();
+            while (iterator.hasNext() && content.size() < limit) {
+                NotificationBucket bucket = iterator.next();
+
+                // Whole buckets before the requested offset are skipped by their counters
+                int matching = read == null ? bucket.getCount()
+                        : read ? bucket.getCount() - bucket.getUnreadCount() : bucket.getUnreadCount();
+                if (skip >= matching) {
+                    skip -= matching;
+                    continue;
+                }
+
+                for (Notification item : bucket.getItems()) {
+                    if (read != null && read != Boolean.TRUE.equals(item.getRead())) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    content.add(item);
+                    if (content.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        return new PageImpl<>(content, pageable, Math.max(total, content.size()));
+    }
+
+    private Optional<Notification> findItem(String userId, ObjectId id) {
+        Query query = locate(userId, id);
+        query.fields().elemMatch("items", Criteria.where("_id").is(id));
+
+        NotificationBucket bucket = mongoTemplate.findOne(query, NotificationBucket.class);
+        if (bucket == null || bucket.getItems() == null || bucket.getItems().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(bucket.getItems().get(0));
+    }
+
+    // The range narrows the candidates; the item match picks the right one where ranges of adjacent buckets overlap
+    private Query locate(String userId, ObjectId id) {
+        return Query.query(Criteria.where("userId").is(userId)
+                .and("minId").lte(id)
+                .and("maxId").gte(id)
+                .and("items._id").is(id));
+    }
+
+    private NotificationInbox inbox(String userId) {
+        NotificationInbox inbox = mongoTemplate.findById(userId, NotificationInbox.class);
+        if (inbox == null) {
+            inbox = new NotificationInbox();
+            inbox.setUserId(userId);
+        }
+        return inbox;
+    }
+
+    private void incrementInbox(String userId, long count, long unread) {
+        mongoTemplate.upsert(Query.query(Criteria.where("userId").is(userId)),
+                new Update().inc("count", count).inc("unreadCount", unread),
+                NotificationInbox.class);
+    }
+
+    private static Optional<ObjectId> objectId(String id) {
+        return id != null && ObjectId.isValid(id) ? Optional.of(new ObjectId(id)) : Optional.empty();
+    }
+}
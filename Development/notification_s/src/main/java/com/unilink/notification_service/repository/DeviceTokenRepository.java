@@ -0,0 +1,21 @@
+package com.unilink.notification_service.repository;
+
+import com.unilink.notification_service.model.DeviceToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DeviceTokenRepository extends MongoRepository<DeviceToken, String> {
+
+    Optional<DeviceToken> findByToken(String token);
+
+    List<DeviceToken> findByUserIdIn(Collection<String> userIds);
+
+    Long deleteByUserIdAndToken(String userId, String token);
+
+    Long deleteByTokenIn(Collection<String> tokens);
+}
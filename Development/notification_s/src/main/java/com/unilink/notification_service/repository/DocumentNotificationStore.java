@@ -0,0 +1,243 @@
+package com.unilink.notification_service.repository;
+
+import com.unilink.notification_service.config.RetentionPolicy;
+import com.unilink.notification_service.dto.NotificationStatistics;
+import com.unilink.notification_service.model.Notification;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "notification.storage.engine", havingValue = "document", matchIfMissing = true)
+public class DocumentNotificationStore implements NotificationStore {
+
+    private final NotificationRepository notificationRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RetentionPolicy retentionPolicy;
+
+    public DocumentNotificationStore(NotificationRepository notificationRepository, MongoTemplate mongoTemplate, RetentionPolicy retentionPolicy) {
+        this.notificationRepository = notificationRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.retentionPolicy = retentionPolicy;
+    }
+
+    @Override
+    public Notification insert(Notification notification) {
+        // An insert, not a save: ids are assigned up front and save would upsert on them
+        return mongoTemplate.insert(notification);
+    }
+
+    @Override
+    public List<Notification> insertAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return notifications;
+        }
+
+        // Ids are assigned up front because bulk inserts do not write them back to the entities
+        notifications.forEach(notification -> {
+            if (notification.getId() == null) {
+                notification.setId(new ObjectId().toHexString());
+            }
+        });
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class)
+                    .insert(notifications)
+                    .execute();
+            return notifications;
+        } catch (BulkOperationException e) {
+            // Unordered: everything except the failed positions was written
+            Set<Integer> failed = new HashSet<>();
+            e.getErrors().forEach(error -> failed.add(error.getIndex()));
+
+            List<Notification> inserted = new ArrayList<>(notifications.size() - failed.size());
+            for (int i = 0; i < notifications.size(); i++) {
+                if (!failed.contains(i)) {
+                    inserted.add(notifications.get(i));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    @Override
+    public Notification update(Notification notification) {
+        return notificationRepository.save(notification);
+    }
+
+    @Override
+    public Optional<Notification> findById(String userId, String notificationId) {
+        return notificationRepository.findById(notificationId)
+                .filter(notification -> notification.getUserId().equals(userId));
+    }
+
+    @Override
+    public Page<Notification> findByUserId(String userId, Pageable pageable) {
+        return notificationRepository.findByUserId(userId, pageable);
+    }
+
+    @Override
+    public Page<Notification> findByUserIdAndRead(String userId, Boolean read, Pageable pageable) {
+        return notificationRepository.findByUserIdAndRead(userId, read, pageable);
+    }
+
+    @Override
+    public Long countByUserIdAndRead(String userId, Boolean read) {
+        return notificationRepository.countByUserIdAndRead(userId, read);
+    }
+
+    @Override
+    public Optional<Notification> markAsRead(String userId, String notificationId) {
+        return findById(userId, notificationId).map(notification -> {
+            LocalDateTime now = LocalDateTime.now();
+            notification.setRead(true);
+            notification.setUpdatedAt(now);
+
+            LocalDateTime readExpiry = retentionPolicy.readExpiresAt(notification.getType(), now);
+            if (readExpiry != null && (notification.getExpiresAt() == null
+                    || readExpiry.isBefore(notification.getExpiresAt()))) {
+                notification.setExpiresAt(readExpiry);
+            }
+
+            return notificationRepository.save(notification);
+        });
+    }
+
+    @Override
+    public void markAllAsRead(String userId) {
+        LocalDateTime now = LocalDateTime.now();
+
+        retentionPolicy.getReadDays().forEach((type, days) -> mongoTemplate.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("read").is(false).and("type").is(type)),
+                new Update().set("read", true).set("updatedAt", now).min("expiresAt", now.plusDays(days)),
+                Notification.class));
+
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("read").is(false)),
+                new Update().set("read", true).set("updatedAt", now),
+                Notification.class);
+    }
+
+    @Override
+    public long markReadBatch(String userId, Collection<String> notificationIds) {
+        List<ObjectId> ids = notificationIds.stream().filter(ObjectId::isValid).map(ObjectId::new).toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Criteria unread = Criteria.where("id").in(ids).and("userId").is(userId).and("read").is(false);
+
+        // Types with a shorter read retention first, as in markAllAsRead; usually none or one
+        long marked = 0;
+        for (var readDays : retentionPolicy.getReadDays().entrySet()) {
+            marked += mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("id").in(ids).and("userId").is(userId).and("read").is(false)
+                            .and("type").is(readDays.getKey())),
+                    new Update().set("read", true).set("updatedAt", now)
+                            .min("expiresAt", now.plusDays(readDays.getValue())),
+                    Notification.class).getModifiedCount();
+        }
+
+        return marked + mongoTemplate.updateMulti(Query.query(unread),
+                new Update().set("read", true).set("updatedAt", now),
+                Notification.class).getModifiedCount();
+    }
+
+    @Override
+    public Set<String> findUnreadIds(String userId, Collection<String> notificationIds) {
+        List<ObjectId> ids = notificationIds.stream().filter(ObjectId::isValid).map(ObjectId::new).toList();
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+
+        Query unread = Query.query(Criteria.where("id").in(ids).and("userId").is(userId).and("read").is(false));
+        unread.fields().include("id");
+
+        Set<String> found = new HashSet<>();
+        mongoTemplate.find(unread, Notification.class).forEach(notification -> found.add(notification.getId()));
+        return found;
+    }
+
+    @Override
+    public boolean deleteById(String userId, String notificationId) {
+        return mongoTemplate.remove(
+                Query.query(Criteria.where("id").is(notificationId).and("userId").is(userId)),
+                Notification.class).getDeletedCount() > 0;
+    }
+
+    @Override
+    public Long deleteByUserId(String userId) {
+        return notificationRepository.deleteByUserId(userId);
+    }
+
+    @Override
+    public List<NotificationStatistics> getStatistics(String userId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                Aggregation.group("type")
+                        .count().as("count")
+                        .sum(ConditionalOperators.when(Criteria.where("read").is(false))
+                                .then(1).otherwise(0)).as("unread")
+        );
+
+        // Grouped on the stored type, which is a code rather than the API value
+        List<NotificationStatistics> statistics = new ArrayList<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Notification.class, Document.class).getMappedResults()) {
+            statistics.add(new NotificationStatistics(
+                    Notification.NotificationType.fromStored(row.get("_id")).getValue(),
+                    ((Number) row.get("count")).longValue(),
+                    ((Number) row.get("unread")).longValue()));
+        }
+        return statistics;
+    }
+
+    @Override
+    public long purgeExpired(LocalDateTime now, int limit) {
+        Query expired = Query.query(Criteria.where("expiresAt").lt(now)).limit(limit);
+        expired.fields().include("id");
+
+        return removeAll(mongoTemplate.find(expired, Notification.class));
+    }
+
+    @Override
+    public long trimToLimit(String userId, int maxNotifications, int limit) {
+        Query overflow = Query.query(Criteria.where("userId").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "id"))
+                .skip(maxNotifications)
+                .limit(limit);
+        overflow.fields().include("id");
+
+        return removeAll(mongoTemplate.find(overflow, Notification.class));
+    }
+
+    private long removeAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+
+        List<String> ids = notifications.stream().map(Notification::getId).toList();
+        return mongoTemplate.remove(Query.query(Criteria.where("id").in(ids)), Notification.class)
+                .getDeletedCount();
+    }
+}
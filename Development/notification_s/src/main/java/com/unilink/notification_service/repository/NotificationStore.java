@@ -0,0 +1,68 @@
+package com.unilink.notification_service.repository;
+
+import com.unilink.notification_service.dto.NotificationStatistics;
+import com.unilink.notification_service.model.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Storage engine for a user's notifications. Selected with {@code notification.storage.engine}:
+ * {@code document} (one Mongo document per notification, the default) or {@code bucketed}.
+ * Pages are always newest first.
+ */
+public interface NotificationStore {
+
+    Notification insert(Notification notification);
+
+    /**
+     * Inserts many notifications without ordering guarantees; returns the ones that were stored.
+     */
+    List<Notification> insertAll(List<Notification> notifications);
+
+    Notification update(Notification notification);
+
+    Optional<Notification> findById(String userId, String notificationId);
+
+    Page<Notification> findByUserId(String userId, Pageable pageable);
+
+    Page<Notification> findByUserIdAndRead(String userId, Boolean read, Pageable pageable);
+
+    Long countByUserIdAndRead(String userId, Boolean read);
+
+    Optional<Notification> markAsRead(String userId, String notificationId);
+
+    void markAllAsRead(String userId);
+
+    /**
+     * Marks the user's notifications among {@code notificationIds} as read; returns how many
+     * were unread. Ids that are unknown, already read or another user's are ignored.
+     */
+    long markReadBatch(String userId, Collection<String> notificationIds);
+
+    /**
+     * Those of {@code notificationIds} that are the user's and still unread.
+     */
+    Set<String> findUnreadIds(String userId, Collection<String> notificationIds);
+
+    boolean deleteById(String userId, String notificationId);
+
+    Long deleteByUserId(String userId);
+
+    List<NotificationStatistics> getStatistics(String userId);
+
+    /**
+     * Removes up to roughly {@code limit} notifications whose {@code expiresAt} has passed.
+     */
+    long purgeExpired(LocalDateTime now, int limit);
+
+    /**
+     * Removes a user's oldest notifications beyond {@code maxNotifications}, at most {@code limit}.
+     */
+    long trimToLimit(String userId, int maxNotifications, int limit);
+}
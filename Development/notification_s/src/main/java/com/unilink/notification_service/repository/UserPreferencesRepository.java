@@ -6,6 +6,8 @@ import com.unilink.notification_service.model.UserPreferences;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,5 +15,7 @@ public interface UserPreferencesRepository extends MongoRepository<UserPreferenc
 
     Optional<UserPreferences> findByUserId(String userId);
 
+    List<UserPreferences> findByUserIdIn(Collection<String> userIds);
+
     boolean existsByUserId(String userId);
 }
\ No newline at end of file
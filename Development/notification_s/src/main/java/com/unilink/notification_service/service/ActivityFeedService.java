@@ -0,0 +1,291 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.RetentionPolicy;
+import com.unilink.notification_service.model.Activity;
+import com.unilink.notification_service.model.ActivityReadMarker;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.repository.ActivityStore;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+
+/**
+ * Hybrid fan-out for types listed in {@code notification.fanout.read-types}: an event with at
+ * least {@code read-threshold} recipients is stored once as an {@link Activity} and merged
+ * into each recipient's timeline when read. Smaller audiences keep one notification each.
+ * Stored broadcasts ({@code notification.broadcast.persist}) are merged the same way.
+ *
+ * Reads only touch the activity collections for users who can see an activity: storing one
+ * records, per recipient, when their newest activity expires ({@code notification:activity-until:<userId>},
+ * expiring with it). Activities for everyone record the same in one global key, which each
+ * node caches.
+ */
+@Service
+
+public class ActivityFeedService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ActivityFeedService.class);
+
+    private static final Comparator<Notification> NEWEST_FIRST =
+            Comparator.comparing(Notification::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private static final String UNTIL_PREFIX = "notification:activity-until:";
+    private static final String EVERYONE_KEY = "notification:activity-until-everyone";
+
+    // KEYS: until  ARGV: expiry (epoch millis); keeps the later expiry
+    private static final byte[] EXTEND_LUA = """
+            local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+            if tonumber(ARGV[1]) > current then
+                redis.call('SET', KEYS[1], ARGV[1], 'PXAT', ARGV[1])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final ActivityStore activityStore;
+    private final RetentionPolicy retentionPolicy;
+    private final InboxVersionService inboxVersions;
+    private final StringRedisTemplate redisTemplate;
+
+    private volatile long everyoneUntil;
+
+    @Value("${notification.fanout.read-threshold:0}")
+    private int readThreshold;
+
+    @Value("${notification.fanout.read-types:friend-post}")
+    private List<String> readTypes;
+
+    @Value("${notification.fanout.audience-chunk-size:10000}")
+    private int audienceChunkSize;
+
+    @Value("${notification.broadcast.persist:false}")
+    private boolean mergeBroadcasts;
+
+    public ActivityFeedService(ActivityStore activityStore, RetentionPolicy retentionPolicy, InboxVersionService inboxVersions, StringRedisTemplate redisTemplate) {
+        this.activityStore = activityStore;
+        this.retentionPolicy = retentionPolicy;
+        this.inboxVersions = inboxVersions;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Whether activities are stored at all: fan-out-on-read ({@code read-threshold > 0}) or
+     * stored broadcasts.
+     */
+    public boolean isEnabled() {
+        return readThreshold > 0 || mergeBroadcasts;
+    }
+
+    /**
+     * Whether the user may see any activity, so reads have to consult the activity store.
+     * Errs towards true when Redis cannot tell.
+     */
+    public boolean hasActivities(String userId) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        if (everyoneUntil > now) {
+            return true;
+        }
+
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(UNTIL_PREFIX + userId));
+        } catch (Exception e) {
+            log.warn("⚠️ Activity marker unavailable for {}: {}", userId, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Re-reads the expiry of the newest activity for everyone; other nodes call this when a
+     * broadcast to everyone arrives, and every node polls it as a fallback.
+     */
+    @Scheduled(fixedDelayString = "${notification.fanout.everyone-refresh-ms:5000}")
+    public void refreshEveryone() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            String until = redisTemplate.opsForValue().get(EVERYONE_KEY);
+            everyoneUntil = until != null ? Long.parseLong(until) : 0;
+        } catch (Exception e) {
+            log.warn("⚠️ Could not refresh the activity marker for everyone: {}", e.getMessage());
+        }
+    }
+
+    public int getAudienceChunkSize() {
+        return audienceChunkSize;
+    }
+
+    public boolean fansOutOnRead(String type, int recipients) {
+        return readThreshold > 0 && recipients >= readThreshold && readTypes.contains(type);
+    }
+
+    /**
+     * Stores one activity (split by audience size) and bumps every recipient's inbox version.
+     */
+    public List<Activity> publish(Activity template, List<String> audience) {
+        List<Activity> stored = store(template, audience);
+        inboxVersions.bumpAll(audience);
+        return stored;
+    }
+
+    /**
+     * Stores the activity without touching inbox versions; callers bump them as fits the audience.
+     */
+    public List<Activity> store(Activity template, List<String> audience) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Activity> chunks = new ArrayList<>();
+
+        for (int from = 0; from < audience.size(); from += audienceChunkSize) {
+            Activity chunk = copyOf(template);
+            chunk.setId(new ObjectId().toHexString());
+            chunk.setCreatedAt(now);
+            chunk.setExpiresAt(retentionPolicy.expiresAt(template.getType(), now));
+            chunk.setAudience(new ArrayList<>(audience.subList(from, Math.min(audience.size(), from + audienceChunkSize))));
+            chunks.add(chunk);
+        }
+
+        List<Activity> stored = activityStore.insertAll(chunks);
+        markAudience(audience, retentionPolicy.expiresAt(template.getType(), now));
+
+        log.info("📣 Stored {} activity for {} recipients in {} documents",
+                template.getType(), audience.size(), stored.size());
+        return stored;
+    }
+
+    /**
+     * Merges the user's activities into a window of their own notifications. {@code own} must
+     * hold the first {@code (page + 1) * size} of their notifications, newest first.
+     */
+    public Page<Notification> merge(String userId, Page<Notification> own, Pageable pageable, boolean unreadOnly) {
+        int window = (pageable.getPageNumber() + 1) * pageable.getPageSize();
+        ActivityReadMarker marker = activityStore.marker(userId);
+        List<Activity> activities = activityStore.findForUser(userId, marker, unreadOnly, window);
+
+        long activityTotal = activities.size() < window
+                ? activities.size()
+                : activityStore.countForUser(userId, marker, unreadOnly);
+
+        List<Notification> merged = new ArrayList<>(own.getContent());
+        activities.forEach(activity -> merged.add(activity.toNotification(userId, marker.isRead(activity))));
+        merged.sort(NEWEST_FIRST);
+
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        return new PageImpl<>(merged.subList(from, to), pageable, own.getTotalElements() + activityTotal);
+    }
+
+    public long countUnread(String userId) {
+        if (!hasActivities(userId)) {
+            return 0;
+        }
+        return activityStore.countForUser(userId, activityStore.marker(userId), true);
+    }
+
+    public Optional<Notification> markRead(String userId, String activityId) {
+        if (!ObjectId.isValid(activityId) || !hasActivities(userId)) {
+            return Optional.empty();
+        }
+
+        return activityStore.findById(userId, activityId).map(activity -> {
+            activityStore.markRead(userId, activityId);
+            return activity.toNotification(userId, true);
+        });
+    }
+
+    /**
+     * Marks the activities read; returns the ids that were unread until now.
+     */
+    public Set<String> markReadBatch(String userId, Collection<String> activityIds) {
+        List<String> ids = activityIds.stream().filter(ObjectId::isValid).toList();
+        if (ids.isEmpty() || !hasActivities(userId)) {
+            return Set.of();
+        }
+        return activityStore.markReadBatch(userId, ids);
+    }
+
+    public Set<String> unreadAmong(String userId, Collection<String> activityIds) {
+        List<String> ids = activityIds.stream().filter(ObjectId::isValid).toList();
+        if (ids.isEmpty() || !hasActivities(userId)) {
+            return Set.of();
+        }
+        return activityStore.findUnreadIds(userId, activityStore.marker(userId), ids);
+    }
+
+    public void markAllRead(String userId) {
+        if (hasActivities(userId)) {
+            activityStore.markAllRead(userId, LocalDateTime.now());
+        }
+    }
+
+    public boolean hide(String userId, String activityId) {
+        if (!ObjectId.isValid(activityId) || !hasActivities(userId) || activityStore.findById(userId, activityId).isEmpty()) {
+            return false;
+        }
+
+        activityStore.hide(userId, activityId);
+        return true;
+    }
+
+    public void hideAll(String userId) {
+        if (hasActivities(userId)) {
+            activityStore.hideAll(userId, LocalDateTime.now());
+        }
+    }
+
+    // Recipients' markers only ever move to a later expiry
+    private void markAudience(List<String> audience, LocalDateTime expiresAt) {
+        long until = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        byte[] value = String.valueOf(until).getBytes(StandardCharsets.UTF_8);
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String userId : audience) {
+                    String key = Activity.EVERYONE.equals(userId) ? EVERYONE_KEY : UNTIL_PREFIX + userId;
+                    connection.scriptingCommands().eval(EXTEND_LUA, ReturnType.INTEGER, 1,
+                            key.getBytes(StandardCharsets.UTF_8), value);
+                }
+                return null;
+            });
+            if (audience.contains(Activity.EVERYONE)) {
+                everyoneUntil = Math.max(everyoneUntil, until);
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to mark {} recipients of an activity; it stays hidden from them", audience.size(), e);
+        }
+    }
+
+    private static Activity copyOf(Activity template) {
+        Activity copy = new Activity();
+        copy.setType(template.getType());
+        copy.setActorId(template.getActorId());
+        copy.setActorName(template.getActorName());
+        copy.setActorPicture(template.getActorPicture());
+        copy.setRelatedId(template.getRelatedId());
+        copy.setMessage(template.getMessage());
+        copy.setPriority(template.getPriority());
+        copy.setMetadata(template.getMetadata());
+        return copy;
+    }
+}
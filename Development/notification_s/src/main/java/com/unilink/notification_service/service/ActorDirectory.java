@@ -0,0 +1,52 @@
+package com.unilink.notification_service.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+
+/**
+ * Display name and picture of an actor, read from the main application's user documents in
+ * {@code notification.batch.actor-collection}. Used where the actor is an authenticated
+ * caller rather than an event from the main application, so the name shown to recipients
+ * is never taken from a request body.
+ */
+@Component
+
+public class ActorDirectory {
+
+    public record Actor(String id, String name, String picture) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${notification.batch.actor-collection:users}")
+    private String collection;
+
+    public ActorDirectory(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Optional<Actor> find(String actorId) {
+        if (actorId == null || !ObjectId.isValid(actorId)) {
+            return Optional.empty();
+        }
+
+        Query query = Query.query(Criteria.where("_id").is(new ObjectId(actorId)));
+        query.fields().include("firstName").include("lastName").include("picturePath");
+        Document user = mongoTemplate.findOne(query, Document.class, collection);
+        if (user == null) {
+            return Optional.empty();
+        }
+
+        // Same form the main application uses when it publishes events
+        String name = (user.get("firstName", "") + " " + user.get("lastName", "")).trim();
+        return Optional.of(new Actor(actorId, name, user.get("picturePath", "")));
+    }
+}
@@ -0,0 +1,183 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.AdmissionProperties;
+import com.unilink.notification_service.dto.NotificationEventData;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Decides which events enter the pipeline while it is overloaded.
+ *
+ * The load level is derived from the total partition queue depth and an EWMA of persistence
+ * latency, which decays towards zero while no samples arrive ({@code latency-half-life-ms}).
+ * At {@code ELEVATED} and {@code CRITICAL}, each type is sampled at its configured
+ * rate, so low-value types such as {@code profile-view} are shed first; protected types are
+ * always admitted. Independently, events that sat in the queue past their type's
+ * {@code max-age-ms} are dropped when dequeued. Every decision is counted in
+ * {@code notification.admission.decisions}.
+ */
+@Component
+
+public class AdmissionController {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AdmissionController.class);
+
+    public enum Level { NORMAL, ELEVATED, CRITICAL }
+
+    // Weight of the newest sample in the persistence latency EWMA
+    private static final double EWMA_ALPHA = 0.1;
+
+    private final AdmissionProperties properties;
+    private final QueuePartitionManager partitionManager;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> decisionCounters = new ConcurrentHashMap<>();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private volatile Level level = Level.NORMAL;
+
+    // Guarded by this; the EWMA as of lastSampleNanos, decayed by the time since when read
+    private double persistLatencyEwmaNanos;
+    private long lastSampleNanos;
+
+    LongSupplier nanoTime = System::nanoTime;
+
+    public AdmissionController(AdmissionProperties properties, QueuePartitionManager partitionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.partitionManager = partitionManager;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("notification.admission.level", () -> level.ordinal())
+                .description("0 = normal, 1 = elevated, 2 = critical")
+                .register(meterRegistry);
+        Gauge.builder("notification.queue.depth", queueDepth, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("notification.persist.latency.ewma", this, admission -> admission.persistLatencyNanos() / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ingest-time check; false means the event is shed before it is queued.
+     */
+    public boolean admit(NotificationEventData data) {
+        String type = data.getType();
+        Level current = level;
+
+        if (!properties.isEnabled() || current == Level.NORMAL || isProtected(type)) {
+            record(type, "admitted");
+            return true;
+        }
+
+        AdmissionProperties.TypePolicy policy = properties.getTypes().get(type);
+        double sample = policy == null ? 1.0
+                : current == Level.CRITICAL ? policy.getCriticalSample() : policy.getElevatedSample();
+
+        if (sample >= 1.0 || ThreadLocalRandom.current().nextDouble() < sample) {
+            record(type, "admitted");
+            return true;
+        }
+
+        record(type, sample <= 0 ? "shed" : "sampled_out");
+        return false;
+    }
+
+    /**
+     * Dequeue-time check; false means the event outlived its usefulness window.
+     */
+    public boolean isFresh(NotificationEventData data) {
+        if (!properties.isEnabled() || data.getReceivedAt() == null || isProtected(data.getType())) {
+            return true;
+        }
+
+        AdmissionProperties.TypePolicy policy = properties.getTypes().get(data.getType());
+        if (policy == null || policy.getMaxAgeMs() <= 0) {
+            return true;
+        }
+
+        if (System.currentTimeMillis() - data.getReceivedAt() <= policy.getMaxAgeMs()) {
+            return true;
+        }
+
+        record(data.getType(), "stale");
+        return false;
+    }
+
+    public void recordPersistLatency(long nanos) {
+        long now = nanoTime.getAsLong();
+        synchronized (this) {
+            double previous = decayed(now);
+            persistLatencyEwmaNanos = previous == 0 ? nanos : EWMA_ALPHA * nanos + (1 - EWMA_ALPHA) * previous;
+            lastSampleNanos = now;
+        }
+    }
+
+    /**
+     * The persistence latency EWMA, decayed for the time since its last sample.
+     */
+    public double persistLatencyNanos() {
+        long now = nanoTime.getAsLong();
+        synchronized (this) {
+            return decayed(now);
+        }
+    }
+
+    private double decayed(long now) {
+        long halfLifeNanos = properties.getLatencyHalfLifeMs() * 1_000_000;
+        if (persistLatencyEwmaNanos == 0 || halfLifeNanos <= 0) {
+            return persistLatencyEwmaNanos;
+        }
+        return persistLatencyEwmaNanos * Math.pow(0.5, (double) (now - lastSampleNanos) / halfLifeNanos);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.admission.refresh-ms:1000}")
+    public void refresh() {
+        try {
+            queueDepth.set(partitionManager.totalDepth());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read queue depth: {}", e.getMessage());
+        }
+
+        long depth = queueDepth.get();
+        long latencyMs = (long) (persistLatencyNanos() / 1_000_000);
+
+        Level next = exceeds(properties.getCritical(), depth, latencyMs) ? Level.CRITICAL
+                : exceeds(properties.getElevated(), depth, latencyMs) ? Level.ELEVATED
+                : Level.NORMAL;
+
+        if (next != level) {
+            log.warn("🚦 Admission level {} -> {} (queue depth {}, persist latency {}ms)",
+                    level, next, depth, latencyMs);
+            level = next;
+        }
+    }
+
+    private boolean isProtected(String type) {
+        return properties.getProtectedTypes().contains(type);
+    }
+
+    private static boolean exceeds(AdmissionProperties.Threshold threshold, long depth, long latencyMs) {
+        return depth >= threshold.getQueueDepth() || latencyMs >= threshold.getPersistLatencyMs();
+    }
+
+    private void record(String type, String decision) {
+        decisionCounters.computeIfAbsent(type + ':' + decision, key -> Counter
+                .builder("notification.admission.decisions")
+                .tag("type", String.valueOf(type))
+                .tag("decision", decision)
+                .register(meterRegistry)).increment();
+    }
+}
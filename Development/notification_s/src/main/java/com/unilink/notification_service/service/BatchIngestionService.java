@@ -0,0 +1,236 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.dto.NotificationBatchRequest;
+import com.unilink.notification_service.dto.NotificationEventData;
+import com.unilink.notification_service.model.Activity;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.UserPreferences;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Fans one request out to many recipients with a fixed number of round trips: one
+ * {@code $in} preference query, unordered bulk inserts of up to {@code chunk-size}, one
+ * pipelined presence lookup and one relay message per node holding recipient sessions.
+ *
+ * Groupable types (like, profile-view) still go through the partitioned queue so they are
+ * grouped with events arriving over pub/sub. Events large enough for fan-out-on-read are
+ * stored once as a shared activity instead of one notification per recipient.
+ */
+@Service
+
+public class BatchIngestionService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BatchIngestionService.class);
+
+    private final NotificationService notificationService;
+    private final UserPreferencesService preferencesService;
+    private final NotificationQueueService queueService;
+    private final AdmissionController admissionController;
+    private final PresenceService presenceService;
+    private final NodeRelay nodeRelay;
+    private final ActivityFeedService activityFeed;
+    private final NotificationRateLimiter rateLimiter;
+    private final OfflineDelivery offlineDelivery;
+
+    @Value("${notification.batch.chunk-size:1000}")
+    private int chunkSize;
+
+    public BatchIngestionService(NotificationService notificationService, UserPreferencesService preferencesService, NotificationQueueService queueService, AdmissionController admissionController, PresenceService presenceService, NodeRelay nodeRelay, ActivityFeedService activityFeed, NotificationRateLimiter rateLimiter, OfflineDelivery offlineDelivery) {
+        this.notificationService = notificationService;
+        this.preferencesService = preferencesService;
+        this.queueService = queueService;
+        this.admissionController = admissionController;
+        this.presenceService = presenceService;
+        this.nodeRelay = nodeRelay;
+        this.activityFeed = activityFeed;
+        this.rateLimiter = rateLimiter;
+        this.offlineDelivery = offlineDelivery;
+    }
+
+    public Map<String, Integer> ingest(ActorDirectory.Actor actor, NotificationBatchRequest request) {
+        String actorId = actor.id();
+        List<NotificationEventData> direct = new ArrayList<>();
+        Map<NotificationBatchRequest.Event, List<NotificationEventData>> shared = new LinkedHashMap<>();
+        int queued = 0;
+        int shed = 0;
+        int limited = 0;
+
+        for (NotificationBatchRequest.Event event : request.getEvents()) {
+            boolean groupable = "like".equals(event.getType()) || "profile-view".equals(event.getType());
+            boolean fanOutOnRead = activityFeed.fansOutOnRead(event.getType(), event.getRecipients().size());
+
+            List<NotificationEventData> admitted = new ArrayList<>();
+            for (String recipient : new LinkedHashSet<>(event.getRecipients())) {
+                NotificationEventData data = toEventData(actor, event, recipient);
+                if (admissionController.admit(data)) {
+                    admitted.add(data);
+                } else {
+                    shed++;
+                }
+            }
+
+            // Groupable events are rate limited on the queue path, like those arriving over pub/sub
+            if (groupable) {
+                admitted.forEach(queueService::queueNotification);
+                queued += admitted.size();
+                continue;
+            }
+
+            List<NotificationEventData> allowed = rateLimiter.checkFanOut(admitted);
+            limited += admitted.size() - allowed.size();
+            if (fanOutOnRead) {
+                if (!allowed.isEmpty()) {
+                    shared.put(event, allowed);
+                }
+            } else {
+                direct.addAll(allowed);
+            }
+        }
+
+        Set<String> recipients = new LinkedHashSet<>();
+        direct.forEach(data -> recipients.add(data.getUserId()));
+        shared.values().forEach(events -> events.forEach(data -> recipients.add(data.getUserId())));
+        Map<String, UserPreferences> preferences = preferencesService.getAll(recipients);
+
+        List<Notification> pending = new ArrayList<>(direct.size());
+        int disabled = 0;
+        for (NotificationEventData data : direct) {
+            if (preferences.get(data.getUserId()).isEnabled(data.getType())) {
+                pending.add(toNotification(data));
+            } else {
+                disabled++;
+            }
+        }
+
+        List<Notification> created = new ArrayList<>(pending.size());
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            created.addAll(notificationService.createNotifications(
+                    pending.subList(from, Math.min(pending.size(), from + chunkSize))));
+        }
+
+        // Shared activities: one document per audience chunk, per-recipient views only for the push
+        List<Notification> views = new ArrayList<>();
+        int sharedRecipients = 0;
+        for (List<NotificationEventData> events : shared.values()) {
+            List<String> audience = new ArrayList<>(events.size());
+            for (NotificationEventData data : events) {
+                if (preferences.get(data.getUserId()).isEnabled(data.getType())) {
+                    audience.add(data.getUserId());
+                } else {
+                    disabled++;
+                }
+            }
+            if (audience.isEmpty()) {
+                continue;
+            }
+
+            for (Activity activity : activityFeed.publish(toActivity(events.get(0)), audience)) {
+                activity.getAudience().forEach(userId -> views.add(activity.toNotification(userId, false)));
+            }
+            sharedRecipients += audience.size();
+        }
+
+        List<Notification> toPush = new ArrayList<>(created);
+        toPush.addAll(views);
+        int pushed = push(toPush);
+
+        log.info("📦 Batch from {}: {} created, {} shared, {} queued, {} disabled, {} shed, {} rate limited, {} pushed",
+                actorId, created.size(), sharedRecipients, queued, disabled, shed, limited, pushed);
+
+        return Map.of(
+                "created", created.size(),
+                "shared", sharedRecipients,
+                "queued", queued,
+                "disabled", disabled,
+                "shed", shed,
+                "rateLimited", limited,
+                "failed", pending.size() - created.size()
+        );
+    }
+
+    private int push(List<Notification> created) {
+        if (created.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<Notification>> byUser = new HashMap<>();
+        created.forEach(notification -> byUser
+                .computeIfAbsent(notification.getUserId(), id -> new ArrayList<>())
+                .add(notification));
+
+        Map<String, List<NodeRelay.Delivery>> byNode = new HashMap<>();
+        Set<String> online = new HashSet<>();
+        presenceService.usersByNode(new ArrayList<>(byUser.keySet())).forEach((node, users) -> {
+            List<NodeRelay.Delivery> deliveries = byNode.computeIfAbsent(node, n -> new ArrayList<>());
+            for (String userId : users) {
+                online.add(userId);
+                byUser.get(userId).forEach(notification ->
+                        deliveries.add(new NodeRelay.Delivery(userId, "notification:new", notification)));
+            }
+        });
+
+        List<Notification> offline = new ArrayList<>();
+        byUser.forEach((userId, notifications) -> {
+            if (!online.contains(userId)) {
+                offline.addAll(notifications);
+            }
+        });
+        offlineDelivery.deliverAll(offline);
+
+        return nodeRelay.deliver(byNode);
+    }
+
+    private static NotificationEventData toEventData(ActorDirectory.Actor actor, NotificationBatchRequest.Event event, String recipient) {
+        NotificationEventData data = NotificationEventData.builder()
+                .userId(recipient)
+                .type(event.getType())
+                .actorId(actor.id())
+                .actorName(actor.name())
+                .actorPicture(actor.picture())
+                .relatedId(event.getRelatedId())
+                .priority(event.getPriority() != null ? event.getPriority() : "medium")
+                // Each recipient gets its own copy; grouped updates mutate metadata in place
+                .metadata(event.getMetadata() != null ? new HashMap<>(event.getMetadata()) : new HashMap<>())
+                .receivedAt(System.currentTimeMillis())
+                .build();
+        return data;
+    }
+
+    private static Activity toActivity(NotificationEventData data) {
+        Activity activity = new Activity();
+        activity.setType(Notification.NotificationType.fromString(data.getType()));
+        activity.setActorId(data.getActorId());
+        activity.setActorName(data.getActorName());
+        activity.setActorPicture(data.getActorPicture());
+        activity.setRelatedId(data.getRelatedId());
+        activity.setMessage(data.getMessage());
+        activity.setPriority(Notification.Priority.valueOf(data.getPriority().toUpperCase()));
+        activity.setMetadata(data.getMetadata());
+        return activity;
+    }
+
+    private static Notification toNotification(NotificationEventData data) {
+        return Notification.builder()
+                .userId(data.getUserId())
+                .type(Notification.NotificationType.fromString(data.getType()))
+                .actorId(data.getActorId())
+                .actorName(data.getActorName())
+                .actorPicture(data.getActorPicture())
+                .relatedId(data.getRelatedId())
+                .message(data.getMessage())
+                .priority(Notification.Priority.valueOf(data.getPriority().toUpperCase()))
+                .metadata(data.getMetadata())
+                .build();
+    }
+}
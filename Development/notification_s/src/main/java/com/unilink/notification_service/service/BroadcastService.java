@@ -0,0 +1,308 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.dto.BroadcastRequest;
+import com.unilink.notification_service.model.Activity;
+import com.unilink.notification_service.model.Notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Announcements to everyone or to a segment of users, across all nodes.
+ *
+ * The sender serializes the payload once and publishes a single message on
+ * {@code notification:broadcast}, so every node receives it exactly once. Each node then
+ * delivers to its own sessions only: {@code /topic/<event>} for everyone, or the segment
+ * members it holds sessions for, sent in parallel slices. With {@code persist} on, users who
+ * are offline get nothing written per user; the announcement is stored once as an
+ * {@link Activity} and shows up in their timeline on their next read; members of a users or
+ * set segment who are offline also get it through {@link OfflineDelivery}. Broadcasts to
+ * everyone have no member list to do that with. A set segment is read page by page, one
+ * activity document per page, so it is never held in memory whole.
+ */
+@Service
+
+public class BroadcastService implements MessageListener {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BroadcastService.class);
+
+    private static final String CHANNEL = "notification:broadcast";
+    private static final String DEFAULT_EVENT = "notification:new";
+
+    public enum Target {
+        ALL, USERS, SET
+    }
+
+    /**
+     * Who a broadcast is for: everyone, the listed users, or the members of a Redis set.
+     */
+    public record Segment(Target target, List<String> userIds, String setKey) {
+
+        public static Segment all() {
+            return new Segment(Target.ALL, List.of(), null);
+        }
+
+        public static Segment users(List<String> userIds) {
+            return new Segment(Target.USERS, List.copyOf(userIds), null);
+        }
+
+        public static Segment set(String setKey) {
+            return new Segment(Target.SET, List.of(), setKey);
+        }
+    }
+
+    // payload is already JSON so relaying nodes never re-serialize it
+    record Envelope(String event, String payload, Segment segment) {
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final PresenceService presenceService;
+    private final ActivityFeedService activityFeed;
+    private final InboxVersionService inboxVersions;
+    private final OfflineDelivery offlineDelivery;
+
+    @Value("${notification.broadcast.persist:false}")
+    private boolean persist;
+
+    @Value("${notification.broadcast.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${notification.broadcast.membership-chunk-size:1000}")
+    private int membershipChunkSize;
+
+    private ExecutorService sendPool;
+
+    public BroadcastService(SimpMessagingTemplate messagingTemplate, StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer, ObjectMapper objectMapper, PresenceService presenceService, ActivityFeedService activityFeed, InboxVersionService inboxVersions, OfflineDelivery offlineDelivery) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.presenceService = presenceService;
+        this.activityFeed = activityFeed;
+        this.inboxVersions = inboxVersions;
+        this.offlineDelivery = offlineDelivery;
+    }
+
+    @PostConstruct
+    public void init() {
+        sendPool = Executors.newFixedThreadPool(sendThreads);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendPool.shutdownNow();
+    }
+
+    /**
+     * Stores the announcement for the segment (unless persistence is off) and pushes it to
+     * everyone online in it. Returns the stored view that was pushed.
+     */
+    public Notification announce(String senderId, BroadcastRequest request, Segment segment) {
+        Activity template = new Activity();
+        template.setType(Notification.NotificationType.ANNOUNCEMENT);
+        template.setActorId(senderId);
+        template.setActorName(request.getActorName());
+        template.setActorPicture(request.getActorPicture());
+        template.setRelatedId(request.getRelatedId());
+        template.setMessage(request.getMessage());
+        if (request.getPriority() != null) {
+            template.setPriority(Notification.Priority.valueOf(request.getPriority().toUpperCase()));
+        }
+        if (request.getMetadata() != null) {
+            template.setMetadata(request.getMetadata());
+        }
+
+        Activity stored = persist ? store(template, segment) : null;
+        if (stored == null) {
+            template.setCreatedAt(LocalDateTime.now());
+        }
+
+        // The pushed view is the same for every recipient; clients fill in their own user
+        Notification view = (stored != null ? stored : template).toNotification(null, false);
+        broadcast(DEFAULT_EVENT, view, segment);
+        return view;
+    }
+
+    /**
+     * Pushes a payload to every online member of the segment on every node. Nothing is stored.
+     */
+    public void broadcast(String event, Object payload, Segment segment) {
+        try {
+            Envelope envelope = new Envelope(event, objectMapper.writeValueAsString(payload), segment);
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(envelope));
+            log.info("📡 Published {} broadcast to {}", event, segment.target());
+        } catch (Exception e) {
+            log.error("❌ Failed to publish {} broadcast", event, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Envelope envelope = objectMapper.readValue(
+                    new String(message.getBody(), StandardCharsets.UTF_8), Envelope.class);
+            if (persist && envelope.segment().target() == Target.ALL) {
+                // Stored and bumped by the sender before publishing
+                inboxVersions.refreshGlobal();
+                activityFeed.refreshEveryone();
+            }
+            deliverLocally(envelope);
+        } catch (Exception e) {
+            log.error("❌ Error handling broadcast", e);
+        }
+    }
+
+    private Activity store(Activity template, Segment segment) {
+        return switch (segment.target()) {
+            case ALL -> {
+                List<Activity> stored = activityFeed.store(template, List.of(Activity.EVERYONE));
+                inboxVersions.bumpGlobal();
+                yield stored.isEmpty() ? null : stored.get(0);
+            }
+            case USERS -> segment.userIds().isEmpty() ? null : storeFor(template, segment.userIds());
+            case SET -> storeForSet(template, segment.setKey());
+        };
+    }
+
+    // Pages of one activity document each; only the current page is held
+    private Activity storeForSet(Activity template, String setKey) {
+        int pageSize = activityFeed.getAudienceChunkSize();
+        Activity first = null;
+        List<String> page = new ArrayList<>(pageSize);
+
+        ScanOptions options = ScanOptions.scanOptions().count(membershipChunkSize).build();
+        try (Cursor<String> cursor = redisTemplate.opsForSet().scan(setKey, options)) {
+            while (cursor.hasNext()) {
+                page.add(cursor.next());
+                if (page.size() == pageSize) {
+                    Activity stored = storeFor(template, page);
+                    first = first != null ? first : stored;
+                    page = new ArrayList<>(pageSize);
+                }
+            }
+        }
+
+        if (!page.isEmpty()) {
+            Activity stored = storeFor(template, page);
+            first = first != null ? first : stored;
+        }
+        return first;
+    }
+
+    private Activity storeFor(Activity template, List<String> audience) {
+        List<Activity> stored = activityFeed.store(template, audience);
+        inboxVersions.bumpAll(audience);
+
+        // Members without a session right now get it through the offline channels too
+        Set<String> online = new HashSet<>();
+        presenceService.usersByNode(audience).values().forEach(online::addAll);
+        List<Notification> offline = new ArrayList<>();
+        for (Activity activity : stored) {
+            for (String userId : activity.getAudience()) {
+                if (!online.contains(userId)) {
+                    offline.add(activity.toNotification(userId, false));
+                }
+            }
+        }
+        offlineDelivery.deliverAll(offline);
+
+        return stored.isEmpty() ? null : stored.get(0);
+    }
+
+    private void deliverLocally(Envelope envelope) {
+        byte[] payload = envelope.payload().getBytes(StandardCharsets.UTF_8);
+
+        if (envelope.segment().target() == Target.ALL) {
+            // The broker fans a topic out to its subscribers itself
+            messagingTemplate.send("/topic/" + envelope.event(), jsonMessage(payload));
+            log.info("📡 Broadcasted {} to all local sessions", envelope.event());
+            return;
+        }
+
+        List<String> recipients = localMembers(envelope.segment());
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        String destination = "/queue/" + envelope.event();
+        int slice = Math.max(1, (recipients.size() + sendThreads - 1) / sendThreads);
+        for (int from = 0; from < recipients.size(); from += slice) {
+            List<String> part = recipients.subList(from, Math.min(recipients.size(), from + slice));
+            sendPool.execute(() -> part.forEach(userId ->
+                    messagingTemplate.send("/user/" + userId + destination, jsonMessage(payload))));
+        }
+
+        log.info("📡 Broadcasted {} to {} local users", envelope.event(), recipients.size());
+    }
+
+    // Segment members holding a session on this node
+    private List<String> localMembers(Segment segment) {
+        Set<String> local = presenceService.localUsers();
+        if (local.isEmpty()) {
+            return List.of();
+        }
+
+        if (segment.target() == Target.USERS) {
+            List<String> members = new ArrayList<>();
+            for (String userId : new HashSet<>(segment.userIds())) {
+                if (local.contains(userId)) {
+                    members.add(userId);
+                }
+            }
+            return members;
+        }
+
+        // SMISMEMBER in chunks: local sessions are far fewer than a campus-sized set
+        List<String> candidates = new ArrayList<>(local);
+        List<String> members = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += membershipChunkSize) {
+            Object[] chunk = candidates.subList(from, Math.min(candidates.size(), from + membershipChunkSize)).toArray();
+            Map<Object, Boolean> result = redisTemplate.opsForSet().isMember(segment.setKey(), chunk);
+            if (result != null) {
+                result.forEach((userId, member) -> {
+                    if (Boolean.TRUE.equals(member)) {
+                        members.add((String) userId);
+                    }
+                });
+            }
+        }
+        return members;
+    }
+
+    // Headers are per message since the template stamps the destination on them
+    private static org.springframework.messaging.Message<byte[]> jsonMessage(byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
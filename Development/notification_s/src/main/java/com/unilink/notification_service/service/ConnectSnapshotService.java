@@ -0,0 +1,176 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.dto.ConnectSnapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Builds and delivers the connect-time snapshot (inbox version, unread count, newest items).
+ *
+ * Snapshots are cached in Redis tagged with the inbox version they were built at and reused
+ * while the version is unchanged, so a reconnect storm after a deploy is served from Redis.
+ * When this node sees more connects per second than {@code connect-rate-threshold}, the
+ * excess is paced out over the following seconds with random jitter instead of all hitting
+ * the stores at once.
+ */
+@Service
+
+public class ConnectSnapshotService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ConnectSnapshotService.class);
+
+    private static final String SNAPSHOT_PREFIX = "notification:snapshot:";
+
+    private final NotificationService notificationService;
+    private final WebSocketService webSocketService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationMessages messages;
+
+    private final AtomicLong currentSecond = new AtomicLong();
+    private final AtomicInteger connectsThisSecond = new AtomicInteger();
+
+    private ScheduledExecutorService deliveryScheduler;
+
+    @Value("${notification.snapshot.items:20}")
+    private int items;
+
+    @Value("${notification.snapshot.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${notification.snapshot.connect-rate-threshold:200}")
+    private int connectRateThreshold;
+
+    @Value("${notification.snapshot.max-delay-ms:10000}")
+    private long maxDelayMs;
+
+    public ConnectSnapshotService(NotificationService notificationService, WebSocketService webSocketService, StringRedisTemplate redisTemplate, ObjectMapper objectMapper, NotificationMessages messages) {
+        this.notificationService = notificationService;
+        this.messages = messages;
+        this.webSocketService = webSocketService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        deliveryScheduler = Executors.newScheduledThreadPool(2);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryScheduler.shutdownNow();
+    }
+
+    /**
+     * Sends the snapshot for a freshly connected user, now or paced if connects are spiking.
+     */
+    public void deliverOnConnect(String userId) {
+        long delayMs = admissionDelayMs();
+
+        if (delayMs == 0) {
+            deliver(userId);
+            return;
+        }
+
+        deliveryScheduler.schedule(() -> deliver(userId), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public ConnectSnapshot getSnapshot(String userId) {
+        Long version = notificationService.getInboxVersion(userId);
+
+        ConnectSnapshot cached = readCached(userId);
+        if (cached != null && version != null && Objects.equals(cached.getVersion(), version)) {
+            return cached;
+        }
+
+        // Tagged with the version read before building, so a racing change only causes a miss
+        ConnectSnapshot snapshot = new ConnectSnapshot(version,
+                notificationService.getUnreadCount(userId),
+                notificationService.getRecentNotifications(userId, items));
+
+        if (version != null) {
+            writeCached(userId, snapshot);
+        }
+        return snapshot;
+    }
+
+    private void deliver(String userId) {
+        try {
+            if (!webSocketService.isUserOnline(userId)) {
+                return;
+            }
+
+            // The cached snapshot holds structured notifications; text is rendered per delivery
+            ConnectSnapshot snapshot = getSnapshot(userId);
+            messages.applyAll(snapshot.getNotifications(), messages.defaultLocale());
+            webSocketService.sendToUser(userId, "notification:snapshot", snapshot);
+
+            // Older clients only listen for the count
+            webSocketService.sendToUser(userId, "notification:unread-count",
+                    Map.of("count", snapshot.getUnreadCount()));
+        } catch (Exception e) {
+            log.error("❌ Error sending connect snapshot to {}", userId, e);
+        }
+    }
+
+    private long admissionDelayMs() {
+        long second = System.currentTimeMillis() / 1000;
+        long seen = currentSecond.get();
+        if (seen != second && currentSecond.compareAndSet(seen, second)) {
+            connectsThisSecond.set(0);
+        }
+
+        int connects = connectsThisSecond.incrementAndGet();
+        if (connectRateThreshold <= 0 || connects <= connectRateThreshold) {
+            return 0;
+        }
+
+        if (maxDelayMs <= 0) {
+            return 0;
+        }
+
+        // Push each excess connect into a later one-second slot, jittered within the slot
+        long slotStart = (long) (connects - connectRateThreshold) / connectRateThreshold * 1000;
+        if (slotStart >= maxDelayMs) {
+            // More excess than the slots up to maxDelayMs hold: spread it over the whole range
+            // rather than bunching it at the cap
+            return ThreadLocalRandom.current().nextLong(maxDelayMs + 1);
+        }
+        return slotStart + ThreadLocalRandom.current().nextLong(Math.min(1000, maxDelayMs - slotStart + 1));
+    }
+
+    private ConnectSnapshot readCached(String userId) {
+        try {
+            String json = redisTemplate.opsForValue().get(SNAPSHOT_PREFIX + userId);
+            return json != null ? objectMapper.readValue(json, ConnectSnapshot.class) : null;
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read connect snapshot for {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCached(String userId, ConnectSnapshot snapshot) {
+        try {
+            redisTemplate.opsForValue().set(SNAPSHOT_PREFIX + userId,
+                    objectMapper.writeValueAsString(snapshot), Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            log.warn("⚠️ Could not cache connect snapshot for {}: {}", userId, e.getMessage());
+        }
+    }
+}
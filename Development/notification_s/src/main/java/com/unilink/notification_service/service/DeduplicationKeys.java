@@ -0,0 +1,114 @@
+package com.unilink.notification_service.service;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary keys and values for the grouping dedup window.
+ *
+ * A key is {@code "nd:"}, one type byte and a 128-bit hash of (userId, actorId, relatedId),
+ * 20 bytes in total, built without any intermediate strings. The grouped notification id is
+ * stored as the 12 raw ObjectId bytes instead of a JSON string.
+ */
+final class DeduplicationKeys {
+
+    private static final byte[] PREFIX = "nd:".getBytes(StandardCharsets.US_ASCII);
+    static final int KEY_LENGTH = PREFIX.length + 1 + 16;
+
+    private static final long SEED_1 = 0xcbf29ce484222325L;
+    private static final long SEED_2 = 0x84222325cbf29ce4L;
+    private static final long PRIME_1 = 0x100000001b3L;
+    private static final long PRIME_2 = 0x9e3779b97f4a7c15L;
+    private static final char FIELD_SEPARATOR = 0xFFFF;
+    private static final char NULL_MARKER = 0xFFFE;
+
+    private DeduplicationKeys() {
+    }
+
+    static byte[] key(String type, String userId, String actorId, String relatedId) {
+        long h1 = hash1(hash1(hash1(SEED_1, userId), actorId), relatedId);
+        long h2 = hash2(hash2(hash2(SEED_2, userId), actorId), relatedId);
+
+        h1 = fmix64(h1 + h2);
+        h2 = fmix64(h2 + h1);
+
+        byte[] key = new byte[KEY_LENGTH];
+        System.arraycopy(PREFIX, 0, key, 0, PREFIX.length);
+        key[PREFIX.length] = typeCode(type);
+        putLong(key, PREFIX.length + 1, h1);
+        putLong(key, PREFIX.length + 9, h2);
+        return key;
+    }
+
+    /**
+     * Counter of over-limit events folded into the group behind {@code dedupKey}.
+     */
+    static byte[] foldKey(byte[] dedupKey) {
+        byte[] key = dedupKey.clone();
+        key[1] = 'f';
+        return key;
+    }
+
+    static byte[] encodeId(String notificationId) {
+        return ObjectId.isValid(notificationId)
+                ? new ObjectId(notificationId).toByteArray()
+                : notificationId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String decodeId(byte[] value) {
+        return value.length == 12
+                ? new ObjectId(value).toHexString()
+                : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static long hash1(long h, String part) {
+        if (part == null) {
+            h = (h ^ NULL_MARKER) * PRIME_1;
+        } else {
+            for (int i = 0; i < part.length(); i++) {
+                h = (h ^ part.charAt(i)) * PRIME_1;
+            }
+        }
+        return (h ^ FIELD_SEPARATOR) * PRIME_1;
+    }
+
+    private static long hash2(long h, String part) {
+        if (part == null) {
+            h = (h ^ NULL_MARKER) * PRIME_2;
+        } else {
+            for (int i = 0; i < part.length(); i++) {
+                h = Long.rotateLeft(h ^ part.charAt(i), 31) * PRIME_2;
+            }
+        }
+        return (h ^ FIELD_SEPARATOR) * PRIME_2;
+    }
+
+    private static byte typeCode(String type) {
+        return switch (type) {
+            case "like" -> 1;
+            case "message" -> 2;
+            case "profile-view" -> 3;
+            case "friend-post" -> 4;
+            case "friend-request" -> 5;
+            default -> 0;
+        };
+    }
+
+    private static void putLong(byte[] target, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            target[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    // MurmurHash3 finalizer
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
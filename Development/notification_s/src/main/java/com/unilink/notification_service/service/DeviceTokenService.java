@@ -0,0 +1,82 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.DeviceToken;
+import com.unilink.notification_service.repository.DeviceTokenRepository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+
+/**
+ * Registry of users' push tokens, looked up in bulk by the {@link PushDispatcher}.
+ */
+@Service
+
+public class DeviceTokenService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DeviceTokenService.class);
+
+    private final DeviceTokenRepository repository;
+    private final Set<String> providers;
+
+    @Value("${notification.push.default-provider:default}")
+    private String defaultProvider;
+
+    public DeviceTokenService(DeviceTokenRepository repository, ObjectProvider<PushProvider> providers) {
+        this.repository = repository;
+        this.providers = providers.stream().map(PushProvider::name).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Whether tokens registered for {@code provider} can be pushed to: no provider (the
+     * default one) or the name of a configured {@link PushProvider}.
+     */
+    public boolean isKnownProvider(String provider) {
+        return provider == null || provider.isBlank() || provider.equals(defaultProvider) || providers.contains(provider);
+    }
+
+    public DeviceToken register(String userId, String token, String platform, String provider) {
+        DeviceToken device = repository.findByToken(token).orElseGet(DeviceToken::new);
+        device.setUserId(userId);
+        device.setToken(token);
+        device.setPlatform(platform);
+        device.setProvider(provider != null && !provider.isBlank() ? provider : defaultProvider);
+        device.setUpdatedAt(LocalDateTime.now());
+
+        try {
+            return repository.save(device);
+        } catch (DuplicateKeyException e) {
+            // Registered concurrently (the app retries on launch); the other write stands
+            return repository.findByToken(token).orElseThrow(() -> e);
+        }
+    }
+
+    public boolean unregister(String userId, String token) {
+        return repository.deleteByUserIdAndToken(userId, token) > 0;
+    }
+
+    /**
+     * Tokens of all the given users, grouped by user, in one query.
+     */
+    public Map<String, List<DeviceToken>> tokensFor(Collection<String> userIds) {
+        return repository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.groupingBy(DeviceToken::getUserId));
+    }
+
+    /**
+     * Drops tokens a provider reported as no longer valid (app uninstalled, token rotated).
+     */
+    public void removeInvalid(Collection<String> tokens) {
+        if (!tokens.isEmpty()) {
+            log.info("🧹 Removing {} invalid push tokens", repository.deleteByTokenIn(tokens));
+        }
+    }
+}
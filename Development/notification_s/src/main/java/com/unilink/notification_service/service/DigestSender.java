@@ -0,0 +1,23 @@
+package com.unilink.notification_service.service;
+
+import java.util.List;
+
+/**
+ * Delivers rendered email digests. {@link EmailDigestService} hands over one batch at a time
+ * from several threads, so implementations must be thread-safe. Digests that were not
+ * accepted are returned (or, when that is unknown, the whole batch fails by throwing) and are
+ * tried again on the next run.
+ */
+public interface DigestSender {
+
+    /**
+     * One user's digest, already rendered.
+     */
+    record Digest(String userId, String email, String subject, String body) {
+    }
+
+    /**
+     * Sends the batch; returns the digests that were not accepted.
+     */
+    List<Digest> send(List<Digest> digests) throws Exception;
+}
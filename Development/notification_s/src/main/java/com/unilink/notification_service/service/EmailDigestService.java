@@ -0,0 +1,378 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.UserPreferences;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Email digests for users who were offline when their notifications arrived.
+ *
+ * Notifications are accumulated per user in time buckets of {@code interval-seconds}, split
+ * into {@code shards} by user. Each bucket and shard has a set of pending users and, per
+ * user, a hash of notification id to JSON (so a grouped update replaces its earlier state)
+ * plus a total count. All keys of a bucket and shard share a hash tag.
+ *
+ * Once a bucket has closed, the pod holding a shard's Redisson lock drains it: pending users
+ * are scanned in chunks, their items read, and each user rendered into one digest with the
+ * items they have read since left out. Digests go to the {@link DigestSender} in parallel
+ * batches, and a user's keys are removed only once their digest was accepted, so a crash or
+ * a failed send leaves them for the next run (the closed bucket stays in the lookback).
+ */
+@Service
+@ConditionalOnProperty(name = "notification.digest.enabled", havingValue = "true")
+
+public class EmailDigestService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(EmailDigestService.class);
+
+    private static final String KEY_PREFIX = "notification:digest:";
+    private static final String LOCK_PREFIX = "notification:digest:lock:";
+
+    // KEYS: users, items, count  ARGV: userId, notificationId, json, maxItems, ttl
+    // Ids past the cap only bump the count, so a grouped update to one of them counts again
+    private static final byte[] RECORD_LUA = """
+            local known = redis.call('HEXISTS', KEYS[2], ARGV[2]) == 1
+            if not known then
+                redis.call('INCR', KEYS[3])
+            end
+            if known or redis.call('HLEN', KEYS[2]) < tonumber(ARGV[4]) then
+                redis.call('HSET', KEYS[2], ARGV[2], ARGV[3])
+            end
+            redis.call('SADD', KEYS[1], ARGV[1])
+            for i = 1, 3 do
+                redis.call('EXPIRE', KEYS[i], ARGV[5])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    // items: notification id -> JSON
+    record Pending(String userId, Map<String, String> items, int total) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final UserPreferencesService preferencesService;
+    private final NotificationService notificationService;
+    private final NotificationMessages messages;
+    private final DigestSender sender;
+
+    Clock clock = Clock.systemUTC();
+
+    @Value("${notification.digest.interval-seconds:3600}")
+    private long intervalSeconds;
+
+    @Value("${notification.digest.shards:16}")
+    private int shards;
+
+    // Closed buckets still drained, in case every pod was down when one closed or a send failed
+    @Value("${notification.digest.lookback-buckets:3}")
+    private int lookbackBuckets;
+
+    @Value("${notification.digest.max-items:20}")
+    private int maxItems;
+
+    @Value("${notification.digest.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${notification.digest.send-batch-size:50}")
+    private int sendBatchSize;
+
+    @Value("${notification.digest.send-threads:4}")
+    private int sendThreads;
+
+    private ExecutorService sendPool;
+
+    public EmailDigestService(StringRedisTemplate redisTemplate, RedissonClient redissonClient, ObjectMapper objectMapper, UserPreferencesService preferencesService, NotificationService notificationService, NotificationMessages messages, DigestSender sender) {
+        this.redisTemplate = redisTemplate;
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.preferencesService = preferencesService;
+        this.notificationService = notificationService;
+        this.messages = messages;
+        this.sender = sender;
+    }
+
+    @PostConstruct
+    public void init() {
+        sendPool = Executors.newFixedThreadPool(sendThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendPool.shutdownNow();
+    }
+
+    /**
+     * Adds a notification for an offline user to the current digest, if they get email.
+     */
+    public void record(Notification notification) {
+        recordAll(List.of(notification));
+    }
+
+    /**
+     * Adds notifications for offline users to the current digest in one pipeline; those of
+     * users without email digests are skipped.
+     */
+    public void recordAll(List<Notification> notifications) {
+        try {
+            Map<String, UserPreferences> preferences = preferencesService.getAll(
+                    notifications.stream().map(Notification::getUserId).distinct().toList());
+            long bucket = currentBucket();
+            byte[] max = bytes(String.valueOf(maxItems));
+            byte[] ttl = bytes(String.valueOf(intervalSeconds * (lookbackBuckets + 2)));
+
+            List<byte[][]> records = new ArrayList<>();
+            for (Notification notification : notifications) {
+                UserPreferences prefs = preferences.get(notification.getUserId());
+                if (notification.getId() != null && prefs != null && prefs.wantsEmail()) {
+                    records.add(recordArgs(bucket, notification.getUserId(), notification.getId(),
+                            objectMapper.writeValueAsString(notification), max, ttl));
+                }
+            }
+            if (records.isEmpty()) {
+                return;
+            }
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (byte[][] args : records) {
+                    connection.scriptingCommands().eval(RECORD_LUA, ReturnType.INTEGER, 3, args);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // A missed digest line is not worth failing the delivery path for
+            log.warn("⚠️ Failed to add {} notifications to digests: {}", notifications.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.digest.tick-ms:60000}")
+    public void drainClosedBuckets() {
+        long current = currentBucket();
+
+        // Pods start at different shards so they spread over them instead of queueing on one lock
+        int offset = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            int shard = (offset + i) % shards;
+            RLock lock = redissonClient.getLock(LOCK_PREFIX + shard);
+            if (!lock.tryLock()) {
+                continue;
+            }
+
+            try {
+                for (long bucket = current - lookbackBuckets; bucket < current; bucket++) {
+                    drain(bucket, shard);
+                }
+            } catch (Exception e) {
+                log.error("❌ Digest run failed for shard {}", shard, e);
+            } finally {
+                if (lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    long currentBucket() {
+        return clock.millis() / 1000 / intervalSeconds;
+    }
+
+    int shardOf(String userId) {
+        return Math.floorMod(userId.hashCode(), shards);
+    }
+
+    static String key(long bucket, int shard, String suffix) {
+        return KEY_PREFIX + "{" + bucket + ":" + shard + "}:" + suffix;
+    }
+
+    // Only the shard lock holder drains, so scanning without popping mails nobody twice
+    private void drain(long bucket, int shard) throws InterruptedException {
+        String users = key(bucket, shard, "users");
+        long sent = 0;
+
+        List<String> chunk = new ArrayList<>(chunkSize);
+        ScanOptions options = ScanOptions.scanOptions().count(chunkSize).build();
+        try (Cursor<String> cursor = redisTemplate.opsForSet().scan(users, options)) {
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == chunkSize) {
+                    sent += drainChunk(bucket, shard, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            sent += drainChunk(bucket, shard, chunk);
+        }
+
+        if (sent > 0) {
+            log.info("📧 Sent {} digests for bucket {} shard {}", sent, bucket, shard);
+        }
+    }
+
+    private long drainChunk(long bucket, int shard, List<String> userIds) throws InterruptedException {
+        Map<String, Pending> pending = read(bucket, shard, userIds);
+
+        // Users with nothing left to send are done as well, only failed sends stay
+        List<DigestSender.Digest> digests = render(pending.values());
+        List<String> done = new ArrayList<>(userIds);
+        Collection<String> failed = send(digests);
+        done.removeAll(failed);
+
+        acknowledge(bucket, shard, done);
+        return digests.size() - failed.size();
+    }
+
+    // Reads the users' items and counts in one pipeline; they stay until acknowledged
+    private Map<String, Pending> read(long bucket, int shard, List<String> userIds) {
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String userId : userIds) {
+                connection.hashCommands().hGetAll(bytes(key(bucket, shard, "items:" + userId)));
+                connection.stringCommands().get(bytes(key(bucket, shard, "count:" + userId)));
+            }
+            return null;
+        });
+
+        Map<String, Pending> pending = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> items = (Map<String, String>) replies.get(i * 2);
+            Object count = replies.get(i * 2 + 1);
+            if (items != null && !items.isEmpty()) {
+                int total = count != null ? Integer.parseInt(count.toString()) : items.size();
+                pending.put(userIds.get(i), new Pending(userIds.get(i), items, Math.max(total, items.size())));
+            }
+        }
+        return pending;
+    }
+
+    private void acknowledge(long bucket, int shard, List<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        byte[] users = bytes(key(bucket, shard, "users"));
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String userId : userIds) {
+                connection.keyCommands().del(bytes(key(bucket, shard, "items:" + userId)),
+                        bytes(key(bucket, shard, "count:" + userId)));
+                connection.setCommands().sRem(users, bytes(userId));
+            }
+            return null;
+        });
+    }
+
+    List<DigestSender.Digest> render(Collection<Pending> pending) {
+        Map<String, UserPreferences> preferences = preferencesService.getAll(pending.stream().map(Pending::userId).toList());
+        Locale locale = messages.defaultLocale();
+
+        List<DigestSender.Digest> digests = new ArrayList<>(pending.size());
+        for (Pending entry : pending) {
+            // Checked again at send time: the user may have turned email off since
+            UserPreferences prefs = preferences.get(entry.userId());
+            if (prefs == null || !prefs.wantsEmail()) {
+                continue;
+            }
+
+            // Items read (or deleted) since they were recorded are left out and no longer counted
+            Set<String> unread = notificationService.unreadAmong(entry.userId(), entry.items().keySet());
+            int total = entry.total() - (entry.items().size() - unread.size());
+
+            List<Notification> items = new ArrayList<>(unread.size());
+            for (String notificationId : unread) {
+                try {
+                    items.add(objectMapper.readValue(entry.items().get(notificationId), Notification.class));
+                } catch (Exception e) {
+                    log.warn("⚠️ Skipping unreadable digest item for user {}", entry.userId());
+                }
+            }
+            if (items.isEmpty()) {
+                continue;
+            }
+            items.sort(Comparator.comparing(Notification::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+
+            StringBuilder body = new StringBuilder();
+            for (Notification item : items) {
+                body.append("- ").append(messages.render(item, locale)).append('\n');
+            }
+            if (total > items.size()) {
+                body.append(messages.format("digest.more", locale, total - items.size())).append('\n');
+            }
+            body.append('\n').append(messages.format("digest.footer", locale, total));
+
+            String subject = messages.format(total == 1 ? "digest.subject.one" : "digest.subject.many",
+                    locale, total);
+            digests.add(new DigestSender.Digest(entry.userId(), prefs.getEmail(), subject, body.toString()));
+        }
+        return digests;
+    }
+
+    // Returns the users whose digest was not accepted
+    private Collection<String> send(List<DigestSender.Digest> digests) throws InterruptedException {
+        Collection<String> failed = new ConcurrentLinkedQueue<>();
+
+        List<Callable<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < digests.size(); from += sendBatchSize) {
+            List<DigestSender.Digest> batch = digests.subList(from, Math.min(digests.size(), from + sendBatchSize));
+            batches.add(() -> {
+                try {
+                    List<DigestSender.Digest> rejected = sender.send(batch);
+                    if (!rejected.isEmpty()) {
+                        log.warn("⚠️ {} of {} digests were not accepted, retried next run", rejected.size(), batch.size());
+                        rejected.forEach(digest -> failed.add(digest.userId()));
+                    }
+                } catch (Exception e) {
+                    log.error("❌ Failed to send {} digests, retried next run: {}", batch.size(), e.getMessage());
+                    batch.forEach(digest -> failed.add(digest.userId()));
+                }
+                return null;
+            });
+        }
+
+        sendPool.invokeAll(batches);
+        return failed;
+    }
+
+    private byte[][] recordArgs(long bucket, String userId, String notificationId, String json, byte[] max, byte[] ttl) {
+        int shard = shardOf(userId);
+        return new byte[][]{
+                bytes(key(bucket, shard, "users")), bytes(key(bucket, shard, "items:" + userId)),
+                bytes(key(bucket, shard, "count:" + userId)),
+                bytes(userId), bytes(notificationId), bytes(json), max, ttl
+        };
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
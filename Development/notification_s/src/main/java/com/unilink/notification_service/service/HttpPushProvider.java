@@ -0,0 +1,134 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+
+/**
+ * Push provider behind a JSON-over-HTTP gateway: a batch is POSTed as
+ * {@code {"messages":[...]}} with a bearer key and the gateway answers with the tokens it
+ * found unregistered, {@code {"invalidTokens":[...]}}. Provider SDKs (FCM, APNs) sit behind
+ * the gateway, which keeps this service free of them and lets tests and local runs point
+ * {@code url} at a stand-in.
+ *
+ * Requests share one HTTP/2 client on a fixed pool. At most {@code max-in-flight} requests
+ * are outstanding; beyond that a send fails at once rather than queueing behind a slow
+ * gateway.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.push.enabled", havingValue = "true")
+
+public class HttpPushProvider implements PushProvider {
+
+    private final ObjectMapper objectMapper;
+    private final String name;
+    private final URI url;
+    private final String apiKey;
+    private final int maxTokensPerRequest;
+    private final Duration timeout;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    public HttpPushProvider(ObjectMapper objectMapper,
+                            @Value("${notification.push.http.name:default}") String name,
+                            @Value("${notification.push.http.url}") String url,
+                            @Value("${notification.push.http.api-key:}") String apiKey,
+                            @Value("${notification.push.http.max-tokens-per-request:500}") int maxTokensPerRequest,
+                            @Value("${notification.push.http.max-in-flight:32}") int maxInFlight,
+                            @Value("${notification.push.http.timeout-ms:5000}") long timeoutMs,
+                            @Value("${notification.push.http.threads:4}") int threads) {
+        this.objectMapper = objectMapper;
+        this.name = name;
+        this.url = URI.create(url);
+        this.apiKey = apiKey;
+        this.maxTokensPerRequest = maxTokensPerRequest;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int maxTokensPerRequest() {
+        return maxTokensPerRequest;
+    }
+
+    @Override
+    public CompletableFuture<PushResult> send(List<PushMessage> messages) {
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many push requests in flight"));
+        }
+
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(url)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of("messages", messages))));
+            if (!apiKey.isBlank()) {
+                builder.header("Authorization", "Bearer " + apiKey);
+            }
+            request = builder.build();
+        } catch (Exception e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> inFlight.release())
+                .thenApply(this::parse);
+    }
+
+    private PushResult parse(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Push gateway answered " + response.statusCode());
+        }
+        if (response.body() == null || response.body().isBlank()) {
+            return new PushResult(List.of());
+        }
+
+        try {
+            List<String> invalid = new ArrayList<>();
+            for (JsonNode token : objectMapper.readTree(response.body()).path("invalidTokens")) {
+                invalid.add(token.asText());
+            }
+            return new PushResult(invalid);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable push gateway response", e);
+        }
+    }
+}
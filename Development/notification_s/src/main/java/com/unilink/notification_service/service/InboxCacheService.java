@@ -0,0 +1,302 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.model.Notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Write-through Redis cache of each user's newest notifications, used for first-page reads.
+ *
+ * Per user: a ZSET of ids scored by {@code createdAt}, a hash of id to JSON, a meta hash
+ * with the inbox total, and a generation counter bumped by every mutation. The meta hash
+ * marks the cache as warm; mutations only touch a warm cache, and a warm-up is discarded
+ * if the generation moved while Mongo was being read.
+ */
+@Service
+
+public class InboxCacheService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(InboxCacheService.class);
+
+    private static final String KEY_PREFIX = "notification:inbox:";
+
+    // KEYS: ids, items, meta, gen  ARGV: id, score, json, maxItems, genTtl
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of("""
+            redis.call('INCR', KEYS[4])
+            redis.call('EXPIRE', KEYS[4], ARGV[5])
+            if redis.call('EXISTS', KEYS[3]) == 0 then return 0 end
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[3])
+            redis.call('HINCRBY', KEYS[3], 'total', 1)
+            local overflow = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[4])
+            if overflow > 0 then
+                local evicted = redis.call('ZRANGE', KEYS[1], 0, overflow - 1)
+                redis.call('ZREMRANGEBYRANK', KEYS[1], 0, overflow - 1)
+                redis.call('HDEL', KEYS[2], unpack(evicted))
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: ids, items, meta, gen  ARGV: id, json, genTtl
+    private static final RedisScript<Long> UPDATE_SCRIPT = RedisScript.of("""
+            redis.call('INCR', KEYS[4])
+            redis.call('EXPIRE', KEYS[4], ARGV[3])
+            if redis.call('EXISTS', KEYS[3]) == 0 then return 0 end
+            if redis.call('HEXISTS', KEYS[2], ARGV[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: ids, items, meta, gen  ARGV: id, genTtl
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+            redis.call('INCR', KEYS[4])
+            redis.call('EXPIRE', KEYS[4], ARGV[2])
+            if redis.call('EXISTS', KEYS[3]) == 0 then return 0 end
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            redis.call('HINCRBY', KEYS[3], 'total', -1)
+            return 1
+            """, Long.class);
+
+    // KEYS: ids, items, meta, gen  ARGV: genTtl
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = RedisScript.of("""
+            redis.call('INCR', KEYS[4])
+            redis.call('EXPIRE', KEYS[4], ARGV[1])
+            return redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+            """, Long.class);
+
+    // KEYS: ids, items, meta, gen  ARGV: expectedGen, total, ttl, then (id, score, json) triples
+    private static final RedisScript<Long> POPULATE_SCRIPT = RedisScript.of("""
+            local gen = redis.call('GET', KEYS[4]) or '0'
+            if gen ~= ARGV[1] then return 0 end
+            redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+            for i = 4, #ARGV, 3 do
+                redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])
+                redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 2])
+            end
+            redis.call('HSET', KEYS[3], 'total', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            redis.call('EXPIRE', KEYS[3], ARGV[3])
+            return 1
+            """, Long.class);
+
+    // KEYS: ids, items, meta  ARGV: count, ttl  ->  [total, json...] or empty when cold
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = RedisScript.of("""
+            local total = redis.call('HGET', KEYS[3], 'total')
+            if not total then return {} end
+            local ids = redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            local result = { total }
+            if #ids > 0 then
+                local items = redis.call('HMGET', KEYS[2], unpack(ids))
+                for i = 1, #items do
+                    result[i + 1] = items[i] or ''
+                end
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            redis.call('EXPIRE', KEYS[3], ARGV[2])
+            return result
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notification.inbox-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.inbox-cache.size:50}")
+    private int maxItems;
+
+    @Value("${notification.inbox-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    public InboxCacheService(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * True when a page can be answered from the cache at all: first page, no filter, and no
+     * larger than the cached window.
+     */
+    public boolean covers(Pageable pageable) {
+        return enabled && pageable.getPageNumber() == 0 && pageable.getPageSize() <= maxItems;
+    }
+
+    /**
+     * Newest {@code pageable.getPageSize()} notifications, or empty when the cache is cold,
+     * partially evicted, or Redis is unavailable.
+     */
+    public Optional<Page<Notification>> readFirstPage(String userId, Pageable pageable) {
+        if (!covers(pageable)) {
+            return Optional.empty();
+        }
+
+        try {
+            List<?> result = redisTemplate.execute(READ_SCRIPT, keys(userId),
+                    String.valueOf(pageable.getPageSize()), String.valueOf(ttlSeconds));
+
+            if (result == null || result.isEmpty()) {
+                return Optional.empty();
+            }
+
+            long total = Long.parseLong((String) result.get(0));
+            int expected = (int) Math.min(pageable.getPageSize(), total);
+            if (result.size() - 1 < expected) {
+                // Deletes left the window short of a full page; let Mongo answer and rewarm
+                return Optional.empty();
+            }
+
+            List<Notification> content = new ArrayList<>(result.size() - 1);
+            for (int i = 1; i < result.size(); i++) {
+                String json = (String) result.get(i);
+                if (json == null || json.isEmpty()) {
+                    return Optional.empty();
+                }
+                content.add(objectMapper.readValue(json, Notification.class));
+            }
+
+            return Optional.of(new PageImpl<>(content, pageable, total));
+        } catch (Exception e) {
+            log.warn("⚠️ Inbox cache read failed for {}: {}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Generation to pass to {@link #populate} so a warm-up racing a mutation is dropped.
+     */
+    public String currentGeneration(String userId) {
+        if (!enabled) {
+            return null;
+        }
+
+        try {
+            String gen = redisTemplate.opsForValue().get(keys(userId).get(3));
+            return gen != null ? gen : "0";
+        } catch (Exception e) {
+            log.warn("⚠️ Inbox cache unavailable for {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    public void populate(String userId, String generation, List<Notification> newest, long total) {
+        if (!enabled || generation == null) {
+            return;
+        }
+
+        try {
+            List<String> args = new ArrayList<>(3 + newest.size() * 3);
+            args.add(generation);
+            args.add(String.valueOf(total));
+            args.add(String.valueOf(ttlSeconds));
+
+            for (Notification notification : newest.subList(0, Math.min(newest.size(), maxItems))) {
+                args.add(notification.getId());
+                args.add(String.valueOf(score(notification)));
+                args.add(objectMapper.writeValueAsString(notification));
+            }
+
+            redisTemplate.execute(POPULATE_SCRIPT, keys(userId), args.toArray());
+        } catch (Exception e) {
+            log.warn("⚠️ Inbox cache warm-up failed for {}: {}", userId, e.getMessage());
+        }
+    }
+
+    public void add(Notification notification) {
+        if (!enabled) {
+            return;
+        }
+
+        String userId = notification.getUserId();
+        try {
+            redisTemplate.execute(ADD_SCRIPT, keys(userId), notification.getId(),
+                    String.valueOf(score(notification)), toJson(notification),
+                    String.valueOf(maxItems), generationTtl());
+        } catch (Exception e) {
+            log.warn("⚠️ Inbox cache add failed for {}: {}", userId, e.getMessage());
+            invalidate(userId);
+        }
+    }
+
+    public void update(Notification notification) {
+        if (!enabled) {
+            return;
+        }
+
+        String userId = notification.getUserId();
+        try {
+            redisTemplate.execute(UPDATE_SCRIPT, keys(userId), notification.getId(),
+                    toJson(notification), generationTtl());
+        } catch (Exception e) {
+            log.warn("⚠️ Inbox cache update failed for {}: {}", userId, e.getMessage());
+            invalidate(userId);
+        }
+    }
+
+    public void remove(String userId, String notificationId) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.execute(REMOVE_SCRIPT, keys(userId), notificationId, generationTtl());
+        } catch (Exception e) {
+            log.warn("⚠️ Inbox cache remove failed for {}: {}", userId, e.getMessage());
+            invalidate(userId);
+        }
+    }
+
+    public void invalidate(String userId) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.execute(INVALIDATE_SCRIPT, keys(userId), generationTtl());
+        } catch (Exception e) {
+            // Nothing more to do; the TTL bounds how long a stale window can be served
+            log.error("❌ Inbox cache invalidation failed for {}", userId, e);
+        }
+    }
+
+    private String toJson(Notification notification) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(notification);
+    }
+
+    // The generation must outlive the cached window so a stale warm-up cannot match it
+    private String generationTtl() {
+        return String.valueOf(ttlSeconds * 2);
+    }
+
+    private static long score(Notification notification) {
+        return notification.getCreatedAt() != null
+                ? notification.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()
+                : System.currentTimeMillis();
+    }
+
+    // Hash-tagged so all of a user's keys land in one slot and the scripts stay cluster-safe
+    private static List<String> keys(String userId) {
+        String base = KEY_PREFIX + "{" + userId + "}:";
+        return List.of(base + "ids", base + "items", base + "meta", base + "gen");
+    }
+}
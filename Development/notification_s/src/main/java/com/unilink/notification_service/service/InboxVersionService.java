@@ -0,0 +1,173 @@
+package com.unilink.notification_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Per-user inbox version used as the ETag of the notification endpoints. Any mutation of a
+ * user's notifications bumps it, so an unchanged version means an unchanged response.
+ *
+ * A missing counter starts at the current epoch millis rather than 0, so a version that
+ * expired and was recreated never repeats a value a client may still hold. The version
+ * returned is the user's counter plus a global one bumped by broadcasts to everyone; both
+ * only grow, so the sum changes whenever either does.
+ *
+ * The global counter is cached on each node so a version costs one round trip. Nodes refresh
+ * it when a broadcast to everyone reaches them (the sender bumps before publishing) and poll
+ * it every {@code global-refresh-ms} in case that message was missed.
+ */
+@Service
+
+public class InboxVersionService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(InboxVersionService.class);
+
+    private static final String KEY_PREFIX = "notification:version:";
+    private static final String GLOBAL_KEY = "notification:version-global";
+
+    // KEYS: version  ARGV: initial, ttl
+    private static final RedisScript<Long> CURRENT_SCRIPT = RedisScript.of("""
+            local version = redis.call('GET', KEYS[1])
+            if not version then
+                redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+                return tonumber(ARGV[1])
+            end
+            return tonumber(version)
+            """, Long.class);
+
+    // KEYS: global  ARGV: initial
+    private static final RedisScript<Long> CURRENT_GLOBAL_SCRIPT = RedisScript.of("""
+            local version = redis.call('GET', KEYS[1])
+            if not version then
+                redis.call('SET', KEYS[1], ARGV[1])
+                return tonumber(ARGV[1])
+            end
+            return tonumber(version)
+            """, Long.class);
+
+    // KEYS: global  ARGV: initial
+    private static final RedisScript<Long> BUMP_GLOBAL_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('INCR', KEYS[1])
+            end
+            redis.call('SET', KEYS[1], ARGV[1])
+            return tonumber(ARGV[1])
+            """, Long.class);
+
+    // KEYS: version  ARGV: initial, ttl
+    private static final String BUMP_LUA = """
+            local version
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                version = redis.call('INCR', KEYS[1])
+            else
+                version = tonumber(ARGV[1])
+                redis.call('SET', KEYS[1], ARGV[1])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return version
+            """;
+
+    private static final RedisScript<Long> BUMP_SCRIPT = RedisScript.of(BUMP_LUA, Long.class);
+    private static final byte[] BUMP_LUA_BYTES = BUMP_LUA.getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${notification.inbox-version.ttl-seconds:604800}")
+    private long ttlSeconds;
+
+    private volatile Long global;
+
+    public InboxVersionService(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Current version, or null when Redis is unavailable and responses must not be cached.
+     */
+    public Long current(String userId) {
+        String initial = String.valueOf(System.currentTimeMillis());
+        try {
+            Long global = this.global != null ? this.global : refreshGlobal();
+            Long version = redisTemplate.execute(CURRENT_SCRIPT, List.of(KEY_PREFIX + userId),
+                    initial, String.valueOf(ttlSeconds));
+            return version == null || global == null ? null : version + global;
+        } catch (Exception e) {
+            log.warn("⚠️ Inbox version unavailable for {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Re-reads the global counter into this node's cache; returns it, or null if unavailable.
+     */
+    @Scheduled(fixedDelayString = "${notification.inbox-version.global-refresh-ms:5000}")
+    public Long refreshGlobal() {
+        try {
+            Long current = redisTemplate.execute(CURRENT_GLOBAL_SCRIPT, List.of(GLOBAL_KEY),
+                    String.valueOf(System.currentTimeMillis()));
+            if (current != null) {
+                global = current;
+            }
+            return current;
+        } catch (Exception e) {
+            log.warn("⚠️ Global inbox version unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Changes every user's version at once, for broadcasts to everyone.
+     */
+    public void bumpGlobal() {
+        try {
+            global = redisTemplate.execute(BUMP_GLOBAL_SCRIPT, List.of(GLOBAL_KEY), String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.error("❌ Failed to bump the global inbox version", e);
+        }
+    }
+
+    /**
+     * Bumps many users in one pipelined round trip, e.g. the audience of a shared activity.
+     */
+    public void bumpAll(Collection<String> userIds) {
+        byte[] initial = String.valueOf(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+        byte[] ttl = String.valueOf(ttlSeconds).getBytes(StandardCharsets.UTF_8);
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String userId : userIds) {
+                    connection.scriptingCommands().eval(BUMP_LUA_BYTES, ReturnType.INTEGER, 1,
+                            (KEY_PREFIX + userId).getBytes(StandardCharsets.UTF_8), initial, ttl);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("❌ Failed to bump inbox versions for {} users", userIds.size(), e);
+            userIds.forEach(this::bump);
+        }
+    }
+
+    public void bump(String userId) {
+        try {
+            redisTemplate.execute(BUMP_SCRIPT, List.of(KEY_PREFIX + userId),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(ttlSeconds));
+        } catch (Exception e) {
+            // A missed bump could serve 304 for changed data; dropping the key forces a new version
+            log.error("❌ Failed to bump inbox version for {}", userId, e);
+            try {
+                redisTemplate.delete(KEY_PREFIX + userId);
+            } catch (Exception ignored) {
+                // Redis is down; current() returns null and nothing is cached meanwhile
+            }
+        }
+    }
+}
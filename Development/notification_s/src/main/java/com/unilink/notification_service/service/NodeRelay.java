@@ -0,0 +1,109 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.config.NodeIdentity;
+import com.unilink.notification_service.model.Notification;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Delivers WebSocket frames on the node that holds the recipient's session. Each node
+ * subscribes to {@code notification:relay:<nodeId>}; a sender publishes one message per
+ * target node carrying all of that node's deliveries, and frames for local sessions skip
+ * Redis entirely.
+ */
+@Service
+
+public class NodeRelay implements MessageListener {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NodeRelay.class);
+
+    private static final String CHANNEL_PREFIX = "notification:relay:";
+    private static final TypeReference<List<Delivery>> DELIVERIES = new TypeReference<>() {
+    };
+
+    public record Delivery(String userId, String event, Object payload) {
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final NotificationMessages messages;
+    private final String nodeId;
+
+    public NodeRelay(SimpMessagingTemplate messagingTemplate, StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer, ObjectMapper objectMapper, NotificationMessages messages, NodeIdentity nodeIdentity) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.messages = messages;
+        this.nodeId = nodeIdentity.getNodeId();
+    }
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + nodeId));
+    }
+
+    /**
+     * Sends each node its deliveries in one message; returns the number of frames handed off.
+     */
+    public int deliver(Map<String, List<Delivery>> deliveriesByNode) {
+        int sent = 0;
+
+        for (Map.Entry<String, List<Delivery>> entry : deliveriesByNode.entrySet()) {
+            List<Delivery> deliveries = entry.getValue();
+
+            // Rendered on the sending node so relayed frames already carry the text
+            for (Delivery delivery : deliveries) {
+                if (delivery.payload() instanceof Notification notification) {
+                    messages.apply(notification, messages.defaultLocale());
+                }
+            }
+
+            if (nodeId.equals(entry.getKey())) {
+                deliveries.forEach(this::deliverLocally);
+                sent += deliveries.size();
+                continue;
+            }
+
+            try {
+                redisTemplate.convertAndSend(CHANNEL_PREFIX + entry.getKey(),
+                        objectMapper.writeValueAsString(deliveries));
+                sent += deliveries.size();
+            } catch (Exception e) {
+                log.error("❌ Failed to relay {} frames to node {}", deliveries.size(), entry.getKey(), e);
+            }
+        }
+
+        return sent;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            List<Delivery> deliveries = objectMapper.readValue(
+                    new String(message.getBody(), StandardCharsets.UTF_8), DELIVERIES);
+            deliveries.forEach(this::deliverLocally);
+        } catch (Exception e) {
+            log.error("❌ Error handling relayed frames", e);
+        }
+    }
+
+    private void deliverLocally(Delivery delivery) {
+        messagingTemplate.convertAndSendToUser(delivery.userId(), "/queue/" + delivery.event(), delivery.payload());
+    }
+}
@@ -0,0 +1,188 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.Notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Renders notification text from structured data (type, actor, group count) using the
+ * templates in {@code messages/notifications*.properties}. Notifications are stored without
+ * a sentence and rendered at read or push time, so wording can change without a migration.
+ *
+ * Each template is parsed once per locale into literal segments and slots, so rendering is
+ * a handful of appends. Types without a template (announcements) keep their stored message.
+ * Other fixed wording (email digests) is rendered through {@link #format}.
+ */
+@Service
+
+public class NotificationMessages {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NotificationMessages.class);
+
+    private static final String BUNDLE = "messages.notifications";
+    private static final ResourceBundle.Control NO_DEFAULT_LOCALE_FALLBACK =
+            ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+    private static final int MAX_REQUESTED_LOCALES = 256;
+
+    private enum Slot {
+        ACTOR, OTHERS, COUNT
+    }
+
+    // literals.length == slots.length + 1; rendered as literal, slot, literal, ..., literal
+    private record Template(String[] literals, Slot[] slots, int length) {
+    }
+
+    private record Templates(Map<String, Template> byKey, String unknownActor) {
+    }
+
+    // Keyed by the bundle's locale, not the requested one, so odd Accept-Language values add nothing
+    private final Map<Locale, Templates> compiled = new ConcurrentHashMap<>();
+    // Requested locale -> its bundle's templates, so a render skips the bundle lookup; bounded
+    // because requested locales come from clients
+    private final Map<Locale, Templates> byRequested = new ConcurrentHashMap<>();
+    private final Locale defaultLocale;
+
+    public NotificationMessages(@Value("${notification.messages.default-locale:en}") String defaultLocale) {
+        this.defaultLocale = Locale.forLanguageTag(defaultLocale);
+    }
+
+    /**
+     * Locale for pushes and other output without a request to take it from.
+     */
+    public Locale defaultLocale() {
+        return defaultLocale;
+    }
+
+    public String render(Notification notification, Locale locale) {
+        Templates templates = templatesFor(locale);
+        String type = notification.getType() != null ? notification.getType().getValue() : null;
+
+        Template template = type != null ? templates.byKey().get(type) : null;
+        if (template == null) {
+            return notification.getMessage() != null ? notification.getMessage() : render(templates.byKey().get("default"), null, 0);
+        }
+
+        int others = notification.getGroupCount() - 1;
+        if (others > 0) {
+            Template grouped = templates.byKey().get(type + (others == 1 ? ".grouped.one" : ".grouped.many"));
+            if (grouped != null) {
+                template = grouped;
+            }
+        }
+
+        String actor = notification.getActorName() != null && !notification.getActorName().isBlank()
+                ? notification.getActorName()
+                : templates.unknownActor();
+        return render(template, actor, others);
+    }
+
+    /**
+     * Renders the template under {@code key} with {@code count} in its {@code {count}} slot.
+     */
+    public String format(String key, Locale locale, int count) {
+        return render(templatesFor(locale).byKey().get(key), null, count);
+    }
+
+    /**
+     * Sets the rendered text on the notification (a read copy, never saved) and returns it.
+     */
+    public Notification apply(Notification notification, Locale locale) {
+        if (notification != null) {
+            notification.setMessage(render(notification, locale));
+        }
+        return notification;
+    }
+
+    public <C extends Collection<Notification>> C applyAll(C notifications, Locale locale) {
+        if (notifications != null) {
+            notifications.forEach(notification -> apply(notification, locale));
+        }
+        return notifications;
+    }
+
+    private static String render(Template template, String actor, int number) {
+        if (template == null) {
+            return "";
+        }
+
+        StringBuilder text = new StringBuilder(template.length() + (actor != null ? actor.length() : 0) + 4);
+        for (int i = 0; i < template.slots().length; i++) {
+            text.append(template.literals()[i]);
+            switch (template.slots()[i]) {
+                case ACTOR -> text.append(actor);
+                case OTHERS, COUNT -> text.append(number);
+            }
+        }
+        return text.append(template.literals()[template.slots().length]).toString();
+    }
+
+    private Templates templatesFor(Locale locale) {
+        Locale requested = locale != null ? locale : defaultLocale;
+        Templates templates = byRequested.get(requested);
+        if (templates != null) {
+            return templates;
+        }
+
+        ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE, requested, NO_DEFAULT_LOCALE_FALLBACK);
+        templates = compiled.computeIfAbsent(bundle.getLocale(), resolved -> compile(bundle));
+        if (byRequested.size() < MAX_REQUESTED_LOCALES) {
+            byRequested.putIfAbsent(requested, templates);
+        }
+        return templates;
+    }
+
+    private static Templates compile(ResourceBundle bundle) {
+        Map<String, Template> byKey = new HashMap<>();
+        for (String key : bundle.keySet()) {
+            byKey.put(key, parse(bundle.getString(key)));
+        }
+
+        String unknownActor = bundle.containsKey("actor.unknown") ? bundle.getString("actor.unknown") : "";
+        log.info("📝 Compiled {} notification templates for locale '{}'", byKey.size(), bundle.getLocale());
+        return new Templates(byKey, unknownActor);
+    }
+
+    private static Template parse(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < text.length()) {
+            int close = text.charAt(i) == '{' ? text.indexOf('}', i) : -1;
+            Slot slot = close > 0 ? slotNamed(text.substring(i + 1, close)) : null;
+            if (slot == null) {
+                literal.append(text.charAt(i++));
+                continue;
+            }
+
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            i = close + 1;
+        }
+        literals.add(literal.toString());
+
+        int length = literals.stream().mapToInt(String::length).sum();
+        return new Template(literals.toArray(String[]::new), slots.toArray(Slot[]::new), length);
+    }
+
+    private static Slot slotNamed(String name) {
+        return switch (name) {
+            case "actor" -> Slot.ACTOR;
+            case "others" -> Slot.OTHERS;
+            case "count" -> Slot.COUNT;
+            default -> null;
+        };
+    }
+}
@@ -1,25 +1,28 @@
 package com.unilink.notification_service.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unilink.notification_service.dto.NotificationEventData;
 import com.unilink.notification_service.model.Notification;
-import com.unilink.notification_service.model.UserPreferences;
+import com.unilink.notification_service.monitoring.PipelineRecorder;
+import com.unilink.notification_service.monitoring.PipelineStage;
+import com.unilink.notification_service.monitoring.PipelineStageEvent;
 
-import org.redisson.api.RBlockingQueue;
-import org.redisson.api.RedissonClient;
-import org.slf4j.Logger;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.Set;
 
 
 @Service
@@ -27,140 +30,170 @@ import java.util.concurrent.TimeUnit;
 public class NotificationQueueService {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NotificationQueueService.class);
 
-    private final RedissonClient redissonClient;
     private final RedisTemplate<String, Object> redisTemplate;
     private final NotificationService notificationService;
     private final UserPreferencesService preferencesService;
-    private final WebSocketService webSocketService;
-    private final ObjectMapper objectMapper;
+    private final PresenceService presenceService;
+    private final NodeRelay nodeRelay;
+    private final PipelineRecorder pipelineRecorder;
+    private final QueuePartitionManager partitionManager;
+    private final AdmissionController admissionController;
+    private final NotificationRateLimiter rateLimiter;
+    private final OfflineDelivery offlineDelivery;
 
     @Value("${notification.grouping.window-seconds}")
     private int groupingWindowSeconds;
 
-    private RBlockingQueue<NotificationEventData> notificationQueue;
-    private ExecutorService queueProcessor;
-
-    private static final Map<String, PriorityConfig> PRIORITY_MAP = new HashMap<>() {{
-        put("message", new PriorityConfig(1, 0));
-        put("friend-request", new PriorityConfig(2, 0));
-        put("like", new PriorityConfig(3, 2000));
-        put("profile-view", new PriorityConfig(4, 3000));
-        put("friend-post", new PriorityConfig(5, 5000));
-    }};
+    // KEYS: dedup  ARGV: candidate id, ttl  ->  id of the open group, or nil once claimed for the candidate
+    private static final byte[] CLAIM_GROUP_LUA = """
+            local existing = redis.call('GET', KEYS[1])
+            if existing then return existing end
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+            return false
+            """.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * What one pipelined round trip learned about an event: the open group to update, or the
+     * id claimed for a new one, and the nodes holding the recipient's sessions.
+     */
+    private record Routing(String groupedId, String claimedId, Set<String> nodes) {
+    }
 
-    public NotificationQueueService(RedissonClient redissonClient, RedisTemplate<String, Object> redisTemplate, NotificationService notificationService, UserPreferencesService preferencesService, WebSocketService webSocketService, ObjectMapper objectMapper) {
-        this.redissonClient = redissonClient;
+    public NotificationQueueService(RedisTemplate<String, Object> redisTemplate, NotificationService notificationService, UserPreferencesService preferencesService, PresenceService presenceService, NodeRelay nodeRelay, PipelineRecorder pipelineRecorder, QueuePartitionManager partitionManager, AdmissionController admissionController, NotificationRateLimiter rateLimiter, OfflineDelivery offlineDelivery) {
         this.redisTemplate = redisTemplate;
         this.notificationService = notificationService;
         this.preferencesService = preferencesService;
-        this.webSocketService = webSocketService;
-        this.objectMapper = objectMapper;
+        this.presenceService = presenceService;
+        this.nodeRelay = nodeRelay;
+        this.pipelineRecorder = pipelineRecorder;
+        this.partitionManager = partitionManager;
+        this.admissionController = admissionController;
+        this.rateLimiter = rateLimiter;
+        this.offlineDelivery = offlineDelivery;
     }
 
     @PostConstruct
     public void init() {
-        notificationQueue = redissonClient.getBlockingQueue("notifications:queue");
-        queueProcessor = Executors.newFixedThreadPool(3);
-
-        // Start queue processors
-        for (int i = 0; i < 3; i++) {
-            queueProcessor.submit(this::processQueue);
-        }
+        // One consumer per user partition keeps each user's events ordered
+        partitionManager.start(this::processNotification);
 
         log.info("✅ Notification queue processor started");
     }
 
-    @Async
+    /**
+     * Appends the event to its user's partition on the caller's thread, so events for one user
+     * are queued in the order they arrive; grouping inside the window replaces the old per-type delays.
+     */
     public void queueNotification(NotificationEventData data) {
         try {
-            PriorityConfig config = PRIORITY_MAP.getOrDefault(
-                    data.getType(), new PriorityConfig(5, 3000));
+            PipelineStageEvent queue = pipelineRecorder.begin(PipelineStage.QUEUE);
+            boolean offered = partitionManager.queueFor(data.getUserId()).offer(data);
+            pipelineRecorder.end(queue, data.getUserId(), data.getType(), offered ? "queued" : "rejected");
 
-            if (config.delay > 0) {
-                Thread.sleep(config.delay);
+            if (pipelineRecorder.logEvents()) {
+                log.info("📥 Queued {} notification for user {}", data.getType(), data.getUserId());
             }
-
-            notificationQueue.offer(data);
-            log.info("📥 Queued {} notification for user {}", data.getType(), data.getUserId());
         } catch (Exception e) {
             log.error("❌ Error queuing notification", e);
         }
     }
 
-    private void processQueue() {
-        while (!Thread.currentThread().isInterrupted()) {
-            try {
-                NotificationEventData data = notificationQueue.poll(5, TimeUnit.SECONDS);
+    private void processNotification(NotificationEventData data) {
+        String userId = data.getUserId();
+        String type = data.getType();
 
-                if (data != null) {
-                    processNotification(data);
+        try {
+            if (!admissionController.isFresh(data)) {
+                if (pipelineRecorder.logEvents()) {
+                    log.info("⌛ Dropping stale {} notification for user {}", type, userId);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                log.error("❌ Error processing notification from queue", e);
+                return;
             }
-        }
-    }
 
-    private void processNotification(NotificationEventData data) {
-        try {
-            log.info("⚙️ Processing {} notification for user {}", data.getType(), data.getUserId());
+            if (pipelineRecorder.logEvents()) {
+                log.info("⚙️ Processing {} notification for user {}", type, userId);
+            }
+
+            boolean groupable = "like".equals(type) || "profile-view".equals(type);
+
+            if (rateLimiter.check(data) == NotificationRateLimiter.Decision.OVER_LIMIT) {
+                // Groupable events still count toward the group; the rest are dropped
+                if (groupable) {
+                    foldIntoGroup(DeduplicationKeys.key(type, userId, data.getActorId(), data.getRelatedId()));
+                }
+                if (pipelineRecorder.logEvents()) {
+                    log.info("🚫 Rate limited {} from {} to {}", type, data.getActorId(), userId);
+                }
+                return;
+            }
 
             // Check user preferences
-            UserPreferences preferences = preferencesService.getOrCreate(data.getUserId());
+            PipelineStageEvent preferenceCheck = pipelineRecorder.begin(PipelineStage.PREFERENCE_CHECK);
+            boolean enabled = preferencesService.isNotificationEnabled(userId, type);
+            pipelineRecorder.end(preferenceCheck, userId, type, enabled ? "enabled" : "disabled");
 
-            if (!preferences.isEnabled(data.getType())) {
-                log.info("⏭️ Notifications disabled for {}", data.getType());
+            if (!enabled) {
+                if (pipelineRecorder.logEvents()) {
+                    log.info("⏭️ Notifications disabled for {}", type);
+                }
                 return;
             }
 
-            // Check deduplication for groupable notifications
-            if ("like".equals(data.getType()) || "profile-view".equals(data.getType())) {
-                String dedupKey = getDeduplicationKey(
-                        data.getType(), data.getUserId(),
-                        data.getActorId(), data.getRelatedId());
+            // Dedup claim and presence lookup share one round trip
+            byte[] dedupKey = groupable
+                    ? DeduplicationKeys.key(type, userId, data.getActorId(), data.getRelatedId())
+                    : null;
+            PipelineStageEvent dedup = groupable ? pipelineRecorder.begin(PipelineStage.DEDUP) : null;
+            Routing routing = route(userId, dedupKey);
+            if (dedup != null) {
+                pipelineRecorder.end(dedup, userId, type, routing.groupedId() != null ? "hit" : "miss");
+            }
 
-                String existingId = (String) redisTemplate.opsForValue().get(dedupKey);
+            if (groupable) {
+                String existingId = routing.groupedId();
 
                 if (existingId != null) {
                     // Update existing grouped notification
-                    notificationService.findById(existingId).ifPresent(notification -> {
-                        int currentCount = notification.getGroupCount();
-                        notification.getMetadata().put("groupCount", currentCount + 1);
-
-                        // Update message
-                        if (currentCount == 1) {
-                            notification.setMessage(String.format(
-                                    "%s and 1 other %s your %s",
-                                    data.getActorName(),
-                                    "like".equals(data.getType()) ? "liked" : "viewed",
-                                    "like".equals(data.getType()) ? "post" : "profile"
-                            ));
-                        } else {
-                            notification.setMessage(String.format(
-                                    "%s and %d others %s your %s",
-                                    data.getActorName(),
-                                    currentCount,
-                                    "like".equals(data.getType()) ? "liked" : "viewed",
-                                    "like".equals(data.getType()) ? "post" : "profile"
-                            ));
-                        }
+                    PipelineStageEvent persist = pipelineRecorder.begin(PipelineStage.PERSIST);
+                    long persistStarted = System.nanoTime();
+                    Optional<Notification> grouped = notificationService.findById(userId, existingId);
+                    byte[] groupKey = dedupKey;
+                    grouped.ifPresent(notification -> {
+                        // Include events folded in while the actor was over its rate limit
+                        int currentCount = notification.getGroupCount() + takeFolded(groupKey);
+                        notification.setGroupCount(currentCount + 1);
+                        notification.addLastActor(data.getActorId());
+                        // "<actor> and N others" names the latest actor, as the stored sentence used to
+                        notification.setActorId(data.getActorId());
+                        notification.setActorName(data.getActorName());
+                        notification.setActorPicture(data.getActorPicture());
+                        // Older documents kept the count in metadata; the typed field replaces it
+                        notification.getMetadata().remove("groupCount");
+
+                        // The text follows from groupCount at read time; drop any stored legacy sentence
+                        notification.setMessage(null);
 
                         notificationService.updateNotification(notification);
-                        webSocketService.sendToUser(data.getUserId(), "notification:updated", notification);
 
-                        log.info("🔄 Grouped notification updated (count: {})", currentCount + 1);
+                        if (pipelineRecorder.logEvents()) {
+                            log.info("🔄 Grouped notification updated (count: {})", currentCount + 1);
+                        }
                     });
-                    return;
+                    admissionController.recordPersistLatency(System.nanoTime() - persistStarted);
+                    pipelineRecorder.end(persist, userId, type, grouped.isPresent() ? "grouped" : "missing");
+
+                    if (grouped.isPresent()) {
+                        push(userId, type, "notification:updated", grouped.get(), routing.nodes());
+                        return;
+                    }
+                    // The group's notification is gone (deleted, or its insert failed): start a new one
                 }
             }
 
             // Create new notification
             Notification notification = Notification.builder()
-                    .userId(data.getUserId())
-                    .type(Notification.NotificationType.fromString(data.getType()))
+                    .userId(userId)
+                    .type(Notification.NotificationType.fromString(type))
                     .actorId(data.getActorId())
                     .actorName(data.getActorName())
                     .actorPicture(data.getActorPicture())
@@ -172,44 +205,109 @@ public class NotificationQueueService {
                     .metadata(data.getMetadata() != null ? data.getMetadata() : new HashMap<>())
                     .build();
 
+            // A claimed group already points at this id, so no write to Redis follows the insert
+            if (routing.claimedId() != null) {
+                notification.setId(routing.claimedId());
+            }
+
+            PipelineStageEvent persist = pipelineRecorder.begin(PipelineStage.PERSIST);
+            long persistStarted = System.nanoTime();
             notification = notificationService.createNotification(notification);
-            log.info("✅ Notification created: {}", notification.getId());
-
-            // Set deduplication key
-            if ("like".equals(data.getType()) || "profile-view".equals(data.getType())) {
-                String dedupKey = getDeduplicationKey(
-                        data.getType(), data.getUserId(),
-                        data.getActorId(), data.getRelatedId());
-                redisTemplate.opsForValue().set(
-                        dedupKey, notification.getId(),
-                        groupingWindowSeconds, TimeUnit.SECONDS);
+            admissionController.recordPersistLatency(System.nanoTime() - persistStarted);
+            pipelineRecorder.end(persist, userId, type, "created");
+
+            if (pipelineRecorder.logEvents()) {
+                log.info("✅ Notification created: {}", notification.getId());
+            }
+
+            // Take over a group whose notification went missing
+            if (dedupKey != null && routing.claimedId() == null) {
+                rememberGroupedNotification(dedupKey, notification.getId());
             }
 
             // Send via WebSocket
-            webSocketService.sendToUser(data.getUserId(), "notification:new", notification);
+            push(userId, type, "notification:new", notification, routing.nodes());
 
         } catch (Exception e) {
             log.error("❌ Error processing notification", e);
         }
     }
 
-    private String getDeduplicationKey(String type, String userId, String actorId, String relatedId) {
-        return String.format("notification:dedup:%s:%s:%s:%s",
-                type, userId, actorId, relatedId != null ? relatedId : "none");
-    }
+    // Straight to the nodes found by route(); offline users already have it stored
+    private void push(String userId, String type, String event, Notification notification, Set<String> nodes) {
+        PipelineStageEvent push = pipelineRecorder.begin(PipelineStage.PUSH);
 
-    private static class PriorityConfig {
-        int priority;
-        long delay;
+        Map<String, List<NodeRelay.Delivery>> deliveries = new HashMap<>();
+        for (String node : nodes) {
+            deliveries.put(node, List.of(new NodeRelay.Delivery(userId, event, notification)));
+        }
+        nodeRelay.deliver(deliveries);
 
-        PriorityConfig(int priority, long delay) {
-            this.priority = priority;
-            this.delay = delay;
+        if (nodes.isEmpty()) {
+            offlineDelivery.deliver(notification, "notification:updated".equals(event));
+        }
+
+        if (pipelineRecorder.logEvents()) {
+            if (nodes.isEmpty()) {
+                log.info("👤 User {} is offline, notification stored in DB", userId);
+            } else {
+                log.info("📤 Sent {} to user {}", event, userId);
+            }
         }
+        pipelineRecorder.end(push, userId, type, nodes.isEmpty() ? "offline" : "online");
     }
-}
 
+    /**
+     * Claims or looks up the dedup group (when {@code dedupKey} is set) and finds the nodes
+     * holding the user's sessions, pipelined on one connection. Two commands rather than one
+     * script because the dedup and presence keys hash to different cluster slots.
+     */
+    private Routing route(String userId, byte[] dedupKey) {
+        String candidate = dedupKey != null ? new ObjectId().toHexString() : null;
+
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (dedupKey != null) {
+                connection.scriptingCommands().eval(CLAIM_GROUP_LUA, ReturnType.VALUE, 1, dedupKey,
+                        DeduplicationKeys.encodeId(candidate),
+                        String.valueOf(groupingWindowSeconds).getBytes(StandardCharsets.US_ASCII));
+            }
+            presenceService.lookupNodes(connection, userId);
+            return null;
+        }, RedisSerializer.byteArray());
 
+        Set<String> nodes = PresenceService.nodesOf(replies.get(replies.size() - 1));
+        if (dedupKey == null) {
+            return new Routing(null, null, nodes);
+        }
+
+        byte[] existing = (byte[]) replies.get(0);
+        return existing != null
+                ? new Routing(DeduplicationKeys.decodeId(existing), null, nodes)
+                : new Routing(null, candidate, nodes);
+    }
 
+    private void rememberGroupedNotification(byte[] dedupKey, String notificationId) {
+        byte[] value = DeduplicationKeys.encodeId(notificationId);
+        redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(dedupKey, value,
+                        Expiration.seconds(groupingWindowSeconds),
+                        RedisStringCommands.SetOption.upsert()));
+    }
 
+    private void foldIntoGroup(byte[] dedupKey) {
+        byte[] foldKey = DeduplicationKeys.foldKey(dedupKey);
+        redisTemplate.execute((RedisCallback<Long>) connection -> {
+            Long folded = connection.stringCommands().incr(foldKey);
+            if (folded != null && folded == 1) {
+                connection.keyCommands().expire(foldKey, groupingWindowSeconds);
+            }
+            return folded;
+        });
+    }
 
+    private int takeFolded(byte[] dedupKey) {
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().getDel(DeduplicationKeys.foldKey(dedupKey)));
+        return value != null ? Integer.parseInt(new String(value, StandardCharsets.US_ASCII)) : 0;
+    }
+}
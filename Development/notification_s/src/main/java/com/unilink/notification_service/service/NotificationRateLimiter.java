@@ -0,0 +1,183 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.RateLimitProperties;
+import com.unilink.notification_service.dto.NotificationEventData;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Per-type limits on notification generation, checked before any Mongo work.
+ *
+ * An in-process token bucket per (actor, recipient, type) caps how often one actor can
+ * notify one user. Because queue partitions are keyed by recipient (one consumer per
+ * partition), these local buckets see every event for their recipient and need no
+ * coordination. A Redis fixed window per (actor, type) caps an actor across all recipients
+ * and therefore across nodes.
+ *
+ * Batch ingestion checks a whole fan-out at once with {@link #checkFanOut}: one window
+ * update for all recipients, and the pair buckets of the node serving the request.
+ */
+@Component
+
+public class NotificationRateLimiter {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NotificationRateLimiter.class);
+
+    public enum Decision { ALLOW, OVER_LIMIT }
+
+    private static final String ACTOR_WINDOW_PREFIX = "notification:ratelimit:actor:";
+    private static final long WINDOW_MS = TimeUnit.MINUTES.toMillis(1);
+
+    // KEYS: window  ARGV: windowMs, events  ->  events in the window including these
+    private static final RedisScript<Long> WINDOW_SCRIPT = RedisScript.of("""
+            local count = redis.call('INCRBY', KEYS[1], ARGV[2])
+            if count == tonumber(ARGV[2]) then
+                redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            end
+            return count
+            """, Long.class);
+
+    private final RateLimitProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TokenBucket> pairBuckets = new ConcurrentHashMap<>();
+
+    public NotificationRateLimiter(RateLimitProperties properties, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Decision check(NotificationEventData data) {
+        RateLimitProperties.Limit limit = properties.getTypes().get(data.getType());
+        if (!properties.isEnabled() || limit == null || data.getActorId() == null) {
+            return Decision.ALLOW;
+        }
+
+        if (limit.getPairBurst() > 0 && !pairBucket(data, limit).tryAcquire()) {
+            return overLimit(data, "pair");
+        }
+
+        if (limit.getActorPerMinute() > 0 && withinActorWindow(data, 1, limit.getActorPerMinute()) == 0) {
+            return overLimit(data, "actor");
+        }
+
+        return Decision.ALLOW;
+    }
+
+    /**
+     * Limits one actor's event to many recipients (same type and actor throughout) with a
+     * single actor window update, and returns the events that are within the limits. Events
+     * past the actor's remaining allowance are over the limit, in order.
+     */
+    public List<NotificationEventData> checkFanOut(List<NotificationEventData> events) {
+        if (events.isEmpty()) {
+            return events;
+        }
+        NotificationEventData first = events.get(0);
+        RateLimitProperties.Limit limit = properties.getTypes().get(first.getType());
+        if (!properties.isEnabled() || limit == null || first.getActorId() == null) {
+            return events;
+        }
+
+        int allowance = limit.getActorPerMinute() > 0
+                ? withinActorWindow(first, events.size(), limit.getActorPerMinute())
+                : events.size();
+
+        List<NotificationEventData> allowed = new ArrayList<>(allowance);
+        for (int i = 0; i < events.size(); i++) {
+            NotificationEventData data = events.get(i);
+            if (i >= allowance) {
+                overLimit(data, "actor");
+            } else if (limit.getPairBurst() > 0 && !pairBucket(data, limit).tryAcquire()) {
+                overLimit(data, "pair");
+            } else {
+                allowed.add(data);
+            }
+        }
+        return allowed;
+    }
+
+    // Full buckets carry no state worth keeping; dropping them bounds the map
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        pairBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private TokenBucket pairBucket(NotificationEventData data, RateLimitProperties.Limit limit) {
+        String key = data.getType() + '\u0000' + data.getActorId() + '\u0000' + data.getUserId();
+        return pairBuckets.computeIfAbsent(key,
+                k -> new TokenBucket(limit.getPairBurst(), limit.getPairPerMinute() / WINDOW_MS));
+    }
+
+    // How many of the actor's next events fit in the current window
+    private int withinActorWindow(NotificationEventData data, int events, int actorPerMinute) {
+        long window = System.currentTimeMillis() / WINDOW_MS;
+        String key = ACTOR_WINDOW_PREFIX + data.getType() + ":" + data.getActorId() + ":" + window;
+
+        try {
+            Long count = redisTemplate.execute(WINDOW_SCRIPT, List.of(key), String.valueOf(WINDOW_MS), String.valueOf(events));
+            if (count == null) {
+                return events;
+            }
+            return (int) Math.max(0, Math.min(events, actorPerMinute - (count - events)));
+        } catch (Exception e) {
+            // Fail open: the local buckets still apply
+            log.warn("⚠️ Actor rate limit unavailable: {}", e.getMessage());
+            return events;
+        }
+    }
+
+    private Decision overLimit(NotificationEventData data, String scope) {
+        meterRegistry.counter("notification.ratelimit.exceeded",
+                "type", data.getType(), "scope", scope).increment();
+        return Decision.OVER_LIMIT;
+    }
+
+    static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(int capacity, double tokensPerMilli) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerMilli / 1_000_000.0;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            refill(System.nanoTime());
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+            }
+        }
+    }
+}
@@ -1,24 +1,25 @@
 package com.unilink.notification_service.service;
 
+import com.unilink.notification_service.config.RetentionPolicy;
 import com.unilink.notification_service.dto.NotificationStatistics;
 import com.unilink.notification_service.model.Notification;
-import com.unilink.notification_service.model.UserPreferences;
-import com.unilink.notification_service.repository.NotificationRepository;
+import com.unilink.notification_service.repository.NotificationStore;
 
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.aggregation.Aggregation;
-import org.springframework.data.mongodb.core.aggregation.AggregationResults;
-import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 @Service
@@ -26,108 +27,214 @@ import java.util.Optional;
 public class NotificationService {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NotificationService.class);
 
-    private final NotificationRepository notificationRepository;
-    private final MongoTemplate mongoTemplate;
+    private final NotificationStore notificationStore;
     private final UserPreferencesService preferencesService;
+    private final RetentionPolicy retentionPolicy;
+    private final RetentionPurgeService retentionPurgeService;
+    private final InboxCacheService inboxCache;
+    private final InboxVersionService inboxVersions;
+    private final ActivityFeedService activityFeed;
     @Autowired
-    public NotificationService(NotificationRepository notificationRepository, MongoTemplate mongoTemplate, UserPreferencesService preferencesService) {
-        this.notificationRepository = notificationRepository;
-        this.mongoTemplate = mongoTemplate;
+    public NotificationService(NotificationStore notificationStore, UserPreferencesService preferencesService, RetentionPolicy retentionPolicy, RetentionPurgeService retentionPurgeService, InboxCacheService inboxCache, InboxVersionService inboxVersions, ActivityFeedService activityFeed) {
+        this.notificationStore = notificationStore;
         this.preferencesService = preferencesService;
+        this.retentionPolicy = retentionPolicy;
+        this.retentionPurgeService = retentionPurgeService;
+        this.inboxCache = inboxCache;
+        this.inboxVersions = inboxVersions;
+        this.activityFeed = activityFeed;
+    }
+
+    /**
+     * Version of the user's inbox, changed by every mutation below; null if unavailable.
+     */
+    public Long getInboxVersion(String userId) {
+        return inboxVersions.current(userId);
     }
 
     public Page<Notification> getNotifications(String userId, int page, int size, Boolean unreadOnly) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
+
+        if (!activityFeed.hasActivities(userId)) {
+            return getOwnNotifications(userId, pageable, unreadOnly);
+        }
+
+        // Both sources are newest first, so their first (page + 1) * size entries cover the page
+        Pageable window = PageRequest.of(0, (page + 1) * size, pageable.getSort());
+        return activityFeed.merge(userId, getOwnNotifications(userId, window, unreadOnly),
+                pageable, Boolean.TRUE.equals(unreadOnly));
+    }
 
+    private Page<Notification> getOwnNotifications(String userId, Pageable pageable, Boolean unreadOnly) {
         if (Boolean.TRUE.equals(unreadOnly)) {
-            return notificationRepository.findByUserIdAndRead(userId, false, pageable);
+            return notificationStore.findByUserIdAndRead(userId, false, pageable);
+        }
+
+        if (inboxCache.covers(pageable)) {
+            return inboxCache.readFirstPage(userId, pageable)
+                    .orElseGet(() -> loadFirstPage(userId, pageable));
         }
 
-        return notificationRepository.findByUserId(userId, pageable);
+        return notificationStore.findByUserId(userId, pageable);
+    }
+
+    /**
+     * Newest notifications for the user, served from the inbox cache when warm.
+     */
+    public List<Notification> getRecentNotifications(String userId, int limit) {
+        return getNotifications(userId, 0, limit, false).getContent();
+    }
+
+    // Reads the whole cached window from Mongo so the next first-page read is a cache hit
+    private Page<Notification> loadFirstPage(String userId, Pageable pageable) {
+        String generation = inboxCache.currentGeneration(userId);
+        Page<Notification> window = notificationStore.findByUserId(userId,
+                PageRequest.of(0, inboxCache.getMaxItems(), pageable.getSort()));
+
+        inboxCache.populate(userId, generation, window.getContent(), window.getTotalElements());
+
+        List<Notification> content = window.getContent();
+        return new PageImpl<>(content.subList(0, Math.min(content.size(), pageable.getPageSize())),
+                pageable, window.getTotalElements());
     }
 
     public Long getUnreadCount(String userId) {
-        return notificationRepository.countByUserIdAndRead(userId, false);
+        return notificationStore.countByUserIdAndRead(userId, false) + activityFeed.countUnread(userId);
     }
 
     public Optional<Notification> markAsRead(String userId, String notificationId) {
-        Optional<Notification> notificationOpt = notificationRepository.findById(notificationId);
-
-        if (notificationOpt.isPresent()) {
-            Notification notification = notificationOpt.get();
+        Optional<Notification> notification = notificationStore.markAsRead(userId, notificationId);
+        notification.ifPresent(inboxCache::update);
 
-            if (notification.getUserId().equals(userId)) {
-                notification.setRead(true);
-                notification.setUpdatedAt(LocalDateTime.now());
-                return Optional.of(notificationRepository.save(notification));
-            }
+        if (notification.isEmpty()) {
+            notification = activityFeed.markRead(userId, notificationId);
         }
 
-        return Optional.empty();
+        notification.ifPresent(updated -> inboxVersions.bump(userId));
+        return notification;
     }
 
-    public void markAllAsRead(String userId) {
-        Page<Notification> unreadNotifications = notificationRepository
-                .findByUserIdAndRead(userId, false, Pageable.unpaged());
+    /**
+     * Marks many notifications (own or activities) read with a couple of bulk updates;
+     * returns how many changed.
+     */
+    public long markReadBatch(String userId, Collection<String> notificationIds) {
+        long marked = notificationStore.markReadBatch(userId, notificationIds);
+        if (marked < notificationIds.size()) {
+            marked += activityFeed.markReadBatch(userId, notificationIds).size();
+        }
 
-        unreadNotifications.forEach(notification -> {
-            notification.setRead(true);
-            notification.setUpdatedAt(LocalDateTime.now());
-        });
+        if (marked > 0) {
+            // Entries are rewritten as a whole in the cache; a batch is cheaper to drop than to patch
+            inboxCache.invalidate(userId);
+            inboxVersions.bump(userId);
+        }
+        return marked;
+    }
 
-        notificationRepository.saveAll(unreadNotifications.getContent());
+    public void markAllAsRead(String userId) {
+        notificationStore.markAllAsRead(userId);
+        activityFeed.markAllRead(userId);
+        inboxCache.invalidate(userId);
+        inboxVersions.bump(userId);
         log.info("✅ Marked all notifications as read for user: {}", userId);
     }
 
-    public boolean deleteNotification(String userId, String notificationId) {
-        Optional<Notification> notificationOpt = notificationRepository.findById(notificationId);
+    /**
+     * Those of {@code notificationIds} (own notifications or activities) the user has not read or deleted.
+     */
+    public Set<String> unreadAmong(String userId, Collection<String> notificationIds) {
+        Set<String> unread = new HashSet<>(notificationStore.findUnreadIds(userId, notificationIds));
+        if (unread.size() < notificationIds.size()) {
+            unread.addAll(activityFeed.unreadAmong(userId,
+                    notificationIds.stream().filter(id -> !unread.contains(id)).toList()));
+        }
+        return unread;
+    }
 
-        if (notificationOpt.isPresent() && notificationOpt.get().getUserId().equals(userId)) {
-            notificationRepository.deleteById(notificationId);
-            return true;
+    public boolean deleteNotification(String userId, String notificationId) {
+        boolean deleted = notificationStore.deleteById(userId, notificationId);
+        if (deleted) {
+            inboxCache.remove(userId, notificationId);
+        } else {
+            deleted = activityFeed.hide(userId, notificationId);
         }
 
-        return false;
+        if (deleted) {
+            inboxVersions.bump(userId);
+        }
+        return deleted;
     }
 
     public void deleteAllNotifications(String userId) {
-        notificationRepository.deleteByUserId(userId);
+        notificationStore.deleteByUserId(userId);
+        activityFeed.hideAll(userId);
+        inboxCache.invalidate(userId);
+        inboxVersions.bump(userId);
         log.info("✅ Deleted all notifications for user: {}", userId);
     }
 
     public Notification createNotification(Notification notification) {
-        notification.setCreatedAt(LocalDateTime.now());
-        notification.setUpdatedAt(LocalDateTime.now());
+        LocalDateTime now = assignId(notification);
+        notification.setUpdatedAt(now);
 
         if (notification.getExpiresAt() == null) {
-            notification.setExpiresAt(LocalDateTime.now().plusDays(90));
+            notification.setExpiresAt(retentionPolicy.expiresAt(notification.getType(), now));
         }
 
-        return notificationRepository.save(notification);
+        Notification saved = notificationStore.insert(notification);
+        inboxCache.add(saved);
+        inboxVersions.bump(saved.getUserId());
+        retentionPurgeService.trackUser(saved.getUserId());
+        return saved;
+    }
+
+    /**
+     * Bulk counterpart of {@link #createNotification}; returns the notifications that were stored.
+     */
+    public List<Notification> createNotifications(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            LocalDateTime now = assignId(notification);
+            notification.setUpdatedAt(now);
+
+            if (notification.getExpiresAt() == null) {
+                notification.setExpiresAt(retentionPolicy.expiresAt(notification.getType(), now));
+            }
+        }
+
+        List<Notification> saved = notificationStore.insertAll(notifications);
+        for (Notification notification : saved) {
+            inboxCache.add(notification);
+            inboxVersions.bump(notification.getUserId());
+            retentionPurgeService.trackUser(notification.getUserId());
+        }
+        return saved;
+    }
+
+    // The id carries the creation time (it is not stored separately), so both are assigned here
+    private static LocalDateTime assignId(Notification notification) {
+        if (notification.getId() == null) {
+            notification.setId(new ObjectId().toHexString());
+        }
+        // Replaces any time set by the caller, which would not survive a read back from the store
+        LocalDateTime createdAt = Notification.createdAtOf(notification.getId());
+        notification.setCreatedAt(createdAt);
+        return createdAt;
     }
 
     public Optional<Notification> updateNotification(Notification notification) {
         notification.setUpdatedAt(LocalDateTime.now());
-        return Optional.of(notificationRepository.save(notification));
+        Notification updated = notificationStore.update(notification);
+        inboxCache.update(updated);
+        inboxVersions.bump(updated.getUserId());
+        return Optional.of(updated);
     }
 
     public List<NotificationStatistics> getStatistics(String userId) {
-        Aggregation aggregation = Aggregation.newAggregation(
-                Aggregation.match(Criteria.where("userId").is(userId)),
-                Aggregation.group("type")
-                        .count().as("count")
-                        .sum(Aggregation.newAggregation(
-                                Aggregation.match(Criteria.where("read").is(false))
-                        ).toString()).as("unread")
-        );
-
-        AggregationResults<NotificationStatistics> results =
-                mongoTemplate.aggregate(aggregation, "notifications", NotificationStatistics.class);
-
-        return results.getMappedResults();
+        return notificationStore.getStatistics(userId);
     }
 
-    public Optional<Notification> findById(String notificationId) {
-        return notificationRepository.findById(notificationId);
+    public Optional<Notification> findById(String userId, String notificationId) {
+        return notificationStore.findById(userId, notificationId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.Notification;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+
+/**
+ * The one place notifications for users without a session go, whichever path delivered them:
+ * the queue, batch ingestion (including fan-out-on-read views) or stored broadcasts. Hands
+ * them to the email digest and to mobile push, whichever of them is enabled.
+ */
+@Service
+
+public class OfflineDelivery {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OfflineDelivery.class);
+
+    private final EmailDigestService emailDigest;
+    private final PushDispatcher pushDispatcher;
+
+    public OfflineDelivery(ObjectProvider<EmailDigestService> emailDigest, ObjectProvider<PushDispatcher> pushDispatcher) {
+        this.emailDigest = emailDigest.getIfAvailable();
+        this.pushDispatcher = pushDispatcher.getIfAvailable();
+    }
+
+    /**
+     * A new notification, or a grouped update ({@code update}) to one, for an offline user.
+     */
+    public void deliver(Notification notification, boolean update) {
+        if (emailDigest != null) {
+            emailDigest.record(notification);
+        }
+        if (pushDispatcher != null) {
+            pushDispatcher.dispatch(notification, update);
+        }
+    }
+
+    /**
+     * New notifications for offline users, e.g. the offline recipients of a batch.
+     */
+    public void deliverAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+
+        if (emailDigest != null) {
+            emailDigest.recordAll(notifications);
+        }
+        if (pushDispatcher != null) {
+            pushDispatcher.dispatchAll(notifications);
+        }
+        log.debug("📭 Handed {} notifications for offline users on", notifications.size());
+    }
+}
@@ -0,0 +1,251 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.NodeIdentity;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+
+/**
+ * Session-level presence with TTL leases.
+ *
+ * Each user has a ZSET {@code notification:presence:{<shard>}:<userId>} of
+ * {@code nodeId|sessionId} members scored by lease expiry, so a user stays online until their
+ * last session closes or its lease lapses. Users are also indexed in
+ * {@code notification:online:{<shard>}} ZSETs (hash of the user id modulo {@code shards})
+ * scored by their latest lease, for scans. Both keys carry the shard as hash tag, so the
+ * scripts that update them together touch a single cluster slot.
+ *
+ * Every node renews the leases of its own sessions on a heartbeat. Sessions of a crashed node
+ * simply stop being renewed and fall out of both the user keys and the shards.
+ */
+@Service
+
+public class PresenceService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PresenceService.class);
+
+    private static final String PRESENCE_PREFIX = "notification:presence:";
+    private static final String SHARD_PREFIX = "notification:online:";
+
+    // KEYS: presence, shard  ARGV: member, leaseExpiry, leaseMs, userId
+    private static final String RENEW_LUA = """
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            redis.call('ZADD', KEYS[2], 'GT', ARGV[2], ARGV[4])
+            return 1
+            """;
+
+    // KEYS: presence, shard  ARGV: member, now, userId  ->  sessions left
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[2])
+            local remaining = redis.call('ZCARD', KEYS[1])
+            if remaining == 0 then
+                redis.call('DEL', KEYS[1])
+                redis.call('ZREM', KEYS[2], ARGV[3])
+            end
+            return remaining
+            """, Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of(RENEW_LUA, Long.class);
+    private static final byte[] RENEW_LUA_BYTES = RENEW_LUA.getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId;
+
+    // Sessions connected to this node: sessionId -> userId
+    private final Map<String, String> localSessions = new ConcurrentHashMap<>();
+
+    @Value("${notification.presence.shards:64}")
+    private int shards;
+
+    @Value("${notification.presence.lease-ms:30000}")
+    private long leaseMs;
+
+    public PresenceService(StringRedisTemplate redisTemplate, NodeIdentity nodeIdentity) {
+        this.redisTemplate = redisTemplate;
+        this.nodeId = nodeIdentity.getNodeId();
+    }
+
+    public void sessionOpened(String userId, String sessionId) {
+        localSessions.put(sessionId, userId);
+        long expiry = System.currentTimeMillis() + leaseMs;
+
+        redisTemplate.execute(RENEW_SCRIPT, List.of(presenceKey(userId), shardKey(userId)),
+                member(sessionId), String.valueOf(expiry), String.valueOf(leaseMs), userId);
+    }
+
+    /**
+     * Releases one session; returns true when it was the user's last live session.
+     */
+    public boolean sessionClosed(String userId, String sessionId) {
+        localSessions.remove(sessionId);
+
+        Long remaining = redisTemplate.execute(RELEASE_SCRIPT,
+                List.of(presenceKey(userId), shardKey(userId)),
+                member(sessionId), String.valueOf(System.currentTimeMillis()), userId);
+        return remaining != null && remaining == 0;
+    }
+
+    /**
+     * Users with at least one session on this node.
+     */
+    public Set<String> localUsers() {
+        return Set.copyOf(localSessions.values());
+    }
+
+    public boolean isOnline(String userId) {
+        Long live = redisTemplate.opsForZSet().count(presenceKey(userId),
+                System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        return live != null && live > 0;
+    }
+
+    /**
+     * Lazily scans every shard for users with a live lease. Close the stream when done to
+     * release the underlying cursors.
+     */
+    public Stream<String> onlineUsers() {
+        long now = System.currentTimeMillis();
+
+        return IntStream.range(0, shards)
+                .mapToObj(PresenceService::shardKey)
+                .flatMap(key -> {
+                    Cursor<ZSetOperations.TypedTuple<String>> cursor = redisTemplate.opsForZSet()
+                            .scan(key, ScanOptions.scanOptions().count(500).build());
+                    return cursor.stream().onClose(cursor::close);
+                })
+                .filter(tuple -> tuple.getScore() != null && tuple.getScore() > now)
+                .map(ZSetOperations.TypedTuple::getValue);
+    }
+
+    /**
+     * Queues a lookup of the user's live sessions on a pipelined connection; turn the reply
+     * into node ids with {@link #nodesOf}.
+     */
+    public void lookupNodes(RedisConnection connection, String userId) {
+        connection.zSetCommands().zRangeByScore(bytes(presenceKey(userId)),
+                System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Nodes named by a session lookup reply; empty when the user is offline.
+     */
+    public static Set<String> nodesOf(Object reply) {
+        Set<String> nodes = new HashSet<>();
+        if (reply instanceof Collection<?> members) {
+            for (Object value : members) {
+                String member = value instanceof byte[] raw ? new String(raw, StandardCharsets.UTF_8) : String.valueOf(value);
+                nodes.add(member.substring(0, member.indexOf('|')));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Groups users by the nodes holding their live sessions (one pipelined round trip).
+     * Offline users are left out; a user with tabs on two nodes appears under both.
+     */
+    public Map<String, List<String>> usersByNode(List<String> userIds) {
+        List<Object> sessions = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String userId : userIds) {
+                lookupNodes(connection, userId);
+            }
+            return null;
+        });
+
+        Map<String, List<String>> byNode = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            String userId = userIds.get(i);
+            nodesOf(sessions.get(i))
+                    .forEach(node -> byNode.computeIfAbsent(node, n -> new ArrayList<>()).add(userId));
+        }
+        return byNode;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.presence.heartbeat-ms:10000}")
+    public void renewLocalLeases() {
+        if (localSessions.isEmpty()) {
+            return;
+        }
+
+        byte[] expiry = bytes(String.valueOf(System.currentTimeMillis() + leaseMs));
+        byte[] lease = bytes(String.valueOf(leaseMs));
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                localSessions.forEach((sessionId, userId) -> renew(connection, userId, sessionId, expiry, lease));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("⚠️ Presence heartbeat failed for {} sessions: {}", localSessions.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.presence.sweep-ms:60000}")
+    public void sweepShards() {
+        double now = System.currentTimeMillis();
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int shard = 0; shard < shards; shard++) {
+                    connection.zSetCommands().zRemRangeByScore(bytes(shardKey(shard)),
+                            Double.NEGATIVE_INFINITY, now);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("⚠️ Presence shard sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void renew(RedisConnection connection, String userId, String sessionId, byte[] expiry, byte[] lease) {
+        connection.scriptingCommands().eval(RENEW_LUA_BYTES, ReturnType.INTEGER, 2,
+                bytes(presenceKey(userId)), bytes(shardKey(userId)),
+                bytes(member(sessionId)), expiry, lease, bytes(userId));
+    }
+
+    private String member(String sessionId) {
+        return nodeId + "|" + sessionId;
+    }
+
+    private String presenceKey(String userId) {
+        return PRESENCE_PREFIX + "{" + shardOf(userId) + "}:" + userId;
+    }
+
+    private String shardKey(String userId) {
+        return shardKey(shardOf(userId));
+    }
+
+    private static String shardKey(int shard) {
+        return SHARD_PREFIX + "{" + shard + "}";
+    }
+
+    private int shardOf(String userId) {
+        return Math.floorMod(userId.hashCode(), shards);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package com.unilink.notification_service.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Per-provider breaker for {@link PushDispatcher}. After {@code failureThreshold} failed
+ * requests in a row it opens and requests are dropped for {@code openMs}; then a single
+ * trial request is let through, which closes it again or reopens it. A trial that never
+ * reached the provider ({@link #onRejected()}) leaves it open, with the next request as the
+ * new trial.
+ */
+class PushCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMs;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    PushCircuitBreaker(int failureThreshold, long openMs) {
+        this(failureThreshold, openMs, System::currentTimeMillis);
+    }
+
+    PushCircuitBreaker(int failureThreshold, long openMs, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMs) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    /**
+     * The request was turned away before reaching the provider (e.g. our own in-flight limit),
+     * so it says nothing about the provider's health.
+     */
+    synchronized void onRejected() {
+        if (state == State.HALF_OPEN) {
+            // Still past openMs, so the next request becomes the trial
+            state = State.OPEN;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,294 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.DeviceToken;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.UserPreferences;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Mobile pushes for users who were offline when their notification arrived and have
+ * {@code pushNotifications} on.
+ *
+ * Notifications are collected per user and collapse key ({@code <type>:<relatedId>}) and sent
+ * every {@code flush-ms}: a later state of the same group replaces an earlier one still
+ * waiting, the tokens of all waiting users are read in one query, and each provider gets
+ * requests of up to its {@link PushProvider#maxTokensPerRequest()} tokens. Once a group has
+ * been pushed, its grouped updates ("Ada and 3 others liked your post") stay silent for
+ * {@code collapse-window-seconds}; the window is claimed in Redis when the provider accepted
+ * the request, so it holds across pods and a push that was dropped claims nothing.
+ *
+ * Each provider has a {@link PushCircuitBreaker}; while it is open that provider's pushes are
+ * dropped, the notifications themselves are already stored. Tokens a provider reports as
+ * unregistered are removed.
+ */
+@Service
+@ConditionalOnProperty(name = "notification.push.enabled", havingValue = "true")
+
+public class PushDispatcher {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PushDispatcher.class);
+
+    private static final String COLLAPSE_PREFIX = "notification:push:collapse:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserPreferencesService preferencesService;
+    private final DeviceTokenService deviceTokenService;
+    private final NotificationMessages messages;
+    private final Map<String, PushProvider> providers;
+    private final Map<String, PushCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    // userId|collapseKey -> latest state of the notification
+    private final Map<String, Notification> pending = new ConcurrentHashMap<>();
+
+    // A message and the collapse window its user's push claims once sent
+    record Outgoing(String window, PushProvider.PushMessage message) {
+    }
+
+    @Value("${notification.push.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${notification.push.collapse-window-seconds:300}")
+    private long collapseWindowSeconds;
+
+    @Value("${notification.push.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${notification.push.breaker.open-ms:30000}")
+    private long openMs;
+
+    public PushDispatcher(StringRedisTemplate redisTemplate, UserPreferencesService preferencesService, DeviceTokenService deviceTokenService, NotificationMessages messages, List<PushProvider> providers) {
+        this.redisTemplate = redisTemplate;
+        this.preferencesService = preferencesService;
+        this.deviceTokenService = deviceTokenService;
+        this.messages = messages;
+        this.providers = providers.stream().collect(Collectors.toMap(PushProvider::name, Function.identity()));
+    }
+
+    /**
+     * Queues a push for an offline user's notification, if they get pushes and this is not a
+     * grouped update to a group pushed within the collapse window.
+     */
+    public void dispatch(Notification notification, boolean groupedUpdate) {
+        String userId = notification.getUserId();
+        try {
+            enqueue(notification, groupedUpdate, preferencesService.getCached(userId));
+        } catch (Exception e) {
+            // The notification is stored either way; a lost push is not worth failing delivery for
+            log.warn("⚠️ Failed to queue push for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Queues pushes for new notifications of many offline users, with one preference lookup.
+     */
+    public void dispatchAll(List<Notification> notifications) {
+        try {
+            Map<String, UserPreferences> preferences = preferencesService.getAll(
+                    notifications.stream().map(Notification::getUserId).distinct().toList());
+            for (Notification notification : notifications) {
+                enqueue(notification, false, preferences.get(notification.getUserId()));
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to queue {} pushes: {}", notifications.size(), e.getMessage());
+        }
+    }
+
+    private void enqueue(Notification notification, boolean groupedUpdate, UserPreferences prefs) {
+        if (notification.getId() == null || prefs == null || !prefs.wantsPush() || prefs.isInQuietHours()) {
+            return;
+        }
+
+        String userId = notification.getUserId();
+        String collapseKey = collapseKey(notification);
+        String pendingKey = userId + "|" + collapseKey;
+
+        // Not sent yet: the newer state simply goes out instead
+        if (pending.computeIfPresent(pendingKey, (key, earlier) -> notification) != null) {
+            return;
+        }
+
+        if (groupedUpdate && Boolean.TRUE.equals(redisTemplate.hasKey(window(userId, collapseKey)))) {
+            return;
+        }
+
+        if (pending.size() >= maxPending) {
+            log.warn("⚠️ Push queue full, dropping push for user {}", userId);
+            return;
+        }
+        pending.put(pendingKey, notification);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.push.flush-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Notification> batch = new HashMap<>();
+        for (String key : List.copyOf(pending.keySet())) {
+            Notification notification = pending.remove(key);
+            if (notification != null) {
+                batch.put(key, notification);
+            }
+        }
+
+        try {
+            Map<String, List<DeviceToken>> devices = deviceTokenService.tokensFor(
+                    batch.values().stream().map(Notification::getUserId).collect(Collectors.toSet()));
+
+            Map<String, List<Outgoing>> byProvider = new LinkedHashMap<>();
+            Locale locale = messages.defaultLocale();
+            String title = messages.format("push.title", locale, 0);
+
+            for (Notification notification : batch.values()) {
+                List<DeviceToken> userDevices = devices.get(notification.getUserId());
+                if (userDevices == null) {
+                    continue;
+                }
+
+                String body = messages.render(notification, locale);
+                Map<String, String> data = data(notification);
+                String collapseKey = collapseKey(notification);
+                String window = window(notification.getUserId(), collapseKey);
+                userDevices.stream()
+                        .collect(Collectors.groupingBy(DeviceToken::getProvider,
+                                Collectors.mapping(DeviceToken::getToken, Collectors.toList())))
+                        .forEach((provider, tokens) -> byProvider.computeIfAbsent(provider, p -> new ArrayList<>())
+                                .add(new Outgoing(window, new PushProvider.PushMessage(tokens, title, body, collapseKey, data))));
+            }
+
+            byProvider.forEach(this::send);
+        } catch (Exception e) {
+            log.error("❌ Failed to dispatch {} pushes", batch.size(), e);
+        }
+    }
+
+    private void send(String providerName, List<Outgoing> outgoing) {
+        PushProvider provider = providers.get(providerName);
+        if (provider == null) {
+            log.warn("⚠️ No push provider named {}, dropping {} pushes", providerName, outgoing.size());
+            return;
+        }
+        PushCircuitBreaker breaker = breakers.computeIfAbsent(providerName,
+                name -> new PushCircuitBreaker(failureThreshold, openMs));
+
+        for (List<Outgoing> request : chunk(outgoing, provider.maxTokensPerRequest())) {
+            if (!breaker.allowRequest()) {
+                log.warn("⚠️ Push provider {} is unavailable, dropping {} pushes", providerName, request.size());
+                continue;
+            }
+
+            CompletableFuture<PushProvider.PushResult> sent;
+            try {
+                sent = provider.send(request.stream().map(Outgoing::message).toList());
+            } catch (Exception e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+
+            sent.whenComplete((result, error) -> {
+                if (error == null) {
+                    breaker.onSuccess();
+                    claimWindows(request);
+                    deviceTokenService.removeInvalid(result.invalidTokens());
+                    return;
+                }
+
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                // Our own in-flight limit, not a sign the provider is down
+                if (cause instanceof RejectedExecutionException) {
+                    breaker.onRejected();
+                } else {
+                    breaker.onFailure();
+                }
+                log.error("❌ Failed to send {} pushes via {}: {}", request.size(), providerName, cause.getMessage());
+            });
+        }
+    }
+
+    // Grouped updates within the window stay silent; an existing window is not extended
+    private void claimWindows(List<Outgoing> request) {
+        byte[] value = "1".getBytes(StandardCharsets.UTF_8);
+        Expiration expiration = Expiration.seconds(collapseWindowSeconds);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String window : request.stream().map(Outgoing::window).distinct().toList()) {
+                    connection.stringCommands().set(window.getBytes(StandardCharsets.UTF_8), value,
+                            expiration, RedisStringCommands.SetOption.SET_IF_ABSENT);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to claim {} push collapse windows: {}", request.size(), e.getMessage());
+        }
+    }
+
+    // Packs messages into requests of at most maxTokens tokens, splitting a message when it alone is larger
+    static List<List<Outgoing>> chunk(List<Outgoing> outgoing, int maxTokens) {
+        List<List<Outgoing>> requests = new ArrayList<>();
+        List<Outgoing> current = new ArrayList<>();
+        int tokens = 0;
+
+        for (Outgoing entry : outgoing) {
+            PushProvider.PushMessage message = entry.message();
+            for (int from = 0; from < message.tokens().size(); ) {
+                if (tokens == maxTokens) {
+                    requests.add(current);
+                    current = new ArrayList<>();
+                    tokens = 0;
+                }
+                int to = Math.min(message.tokens().size(), from + maxTokens - tokens);
+                List<String> part = message.tokens().subList(from, to);
+                current.add(from == 0 && to == message.tokens().size() ? entry
+                        : new Outgoing(entry.window(), new PushProvider.PushMessage(List.copyOf(part), message.title(),
+                                message.body(), message.collapseKey(), message.data())));
+                tokens += part.size();
+                from = to;
+            }
+        }
+        if (!current.isEmpty()) {
+            requests.add(current);
+        }
+        return requests;
+    }
+
+    private static String window(String userId, String collapseKey) {
+        return COLLAPSE_PREFIX + userId + ":" + collapseKey;
+    }
+
+    private static String collapseKey(Notification notification) {
+        String group = notification.getRelatedId() != null ? notification.getRelatedId() : notification.getId();
+        return notification.getType().getValue() + ":" + group;
+    }
+
+    private static Map<String, String> data(Notification notification) {
+        Map<String, String> data = new HashMap<>();
+        data.put("notificationId", notification.getId());
+        data.put("type", notification.getType().getValue());
+        if (notification.getRelatedId() != null) {
+            data.put("relatedId", notification.getRelatedId());
+        }
+        return data;
+    }
+}
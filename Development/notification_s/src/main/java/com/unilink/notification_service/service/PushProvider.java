@@ -0,0 +1,33 @@
+package com.unilink.notification_service.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers mobile pushes for one provider, matched to {@code DeviceToken.provider} by
+ * {@link #name()}. {@link PushDispatcher} hands over requests of at most
+ * {@link #maxTokensPerRequest()} tokens from its flush thread; {@link #send} must not block
+ * it. A failed request completes exceptionally and counts against the provider's breaker.
+ */
+public interface PushProvider {
+
+    /**
+     * One notification to the given tokens. Devices replace an earlier push with the same
+     * collapse key instead of showing both.
+     */
+    record PushMessage(List<String> tokens, String title, String body, String collapseKey, Map<String, String> data) {
+    }
+
+    /**
+     * Tokens the provider reported as unregistered; they are removed from the registry.
+     */
+    record PushResult(List<String> invalidTokens) {
+    }
+
+    String name();
+
+    int maxTokensPerRequest();
+
+    CompletableFuture<PushResult> send(List<PushMessage> messages);
+}
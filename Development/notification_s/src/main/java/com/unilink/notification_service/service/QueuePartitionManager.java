@@ -0,0 +1,372 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.NodeIdentity;
+import com.unilink.notification_service.dto.NotificationEventData;
+
+import org.redisson.api.RBlockingDeque;
+import org.redisson.api.RDeque;
+import org.redisson.api.RLock;
+import org.redisson.api.RQueue;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.queue.DequeMoveArgs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+
+/**
+ * Splits the notification queue into {@code partitions} Redis queues by user id and makes
+ * sure each partition has exactly one consumer across the cluster, so one user's events
+ * are processed in order and never concurrently.
+ *
+ * Nodes heartbeat into a membership set; partition {@code p} belongs to the
+ * {@code p mod n}-th live member in sorted order. Ownership is held through a Redisson lock
+ * per partition (watchdog-renewed, so it lapses if the owner dies) and a worker thread per
+ * owned partition drains it. All locks are taken and released on the single coordinator
+ * thread, since Redisson locks are owned by the thread that acquired them.
+ *
+ * Delivery is at least once. The worker moves events from the partition queue to the
+ * partition's processing list (atomically, up to {@code batch-size} per round trip) and
+ * removes each one only after handling it on the worker thread, one at a time. A new owner
+ * first handles whatever a previous owner left in the processing list, so a crash never
+ * loses events nor reorders them. Both lists of a partition share a hash tag.
+ */
+@Component
+
+public class QueuePartitionManager {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(QueuePartitionManager.class);
+
+    static final String LEGACY_QUEUE = "notifications:queue";
+    private static final String QUEUE_PREFIX = "notifications:queue:";
+    private static final String PROCESSING_SUFFIX = ":processing";
+
+    // KEYS: queue, processing  ->  up to %d events moved, oldest first. The count is part of the
+    // script because arguments go through the queue's codec and would not reach Lua as a number.
+    private static final String MOVE_BATCH_SCRIPT = """
+            local moved = {}
+            for i = 1, %d do
+                local event = redis.call('LMOVE', KEYS[1], KEYS[2], 'LEFT', 'RIGHT')
+                if not event then
+                    break
+                end
+                moved[i] = event
+            end
+            return moved
+            """;
+    private static final String LOCK_PREFIX = "notifications:queue-owner:";
+    private static final String MEMBERS_KEY = "notifications:queue:members";
+
+    private final RedissonClient redissonClient;
+    private final String nodeId;
+
+    private final Map<Integer, PartitionWorker> owned = new ConcurrentHashMap<>();
+
+    @Value("${notification.queue.partitions:16}")
+    private int partitions;
+
+    @Value("${notification.queue.rebalance-ms:5000}")
+    private long rebalanceMs;
+
+    @Value("${notification.queue.member-ttl-ms:15000}")
+    private long memberTtlMs;
+
+    @Value("${notification.queue.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.queue.legacy-idle-rebalances:60}")
+    private int legacyIdleRebalances;
+
+    // Only touched on the coordinator thread
+    private boolean drainingLegacy = true;
+    private int legacyIdle;
+
+    private ScheduledExecutorService coordinator;
+    private ExecutorService workers;
+    private Consumer<NotificationEventData> handler;
+
+    public QueuePartitionManager(RedissonClient redissonClient, NodeIdentity nodeIdentity) {
+        this.redissonClient = redissonClient;
+        this.nodeId = nodeIdentity.getNodeId();
+    }
+
+    public void start(Consumer<NotificationEventData> handler) {
+        this.handler = handler;
+        this.workers = Executors.newCachedThreadPool();
+        this.coordinator = Executors.newSingleThreadScheduledExecutor();
+
+        coordinator.scheduleWithFixedDelay(this::rebalance, 0, rebalanceMs, TimeUnit.MILLISECONDS);
+        log.info("✅ Queue partition manager started ({} partitions, node {})", partitions, nodeId);
+    }
+
+    public RBlockingDeque<NotificationEventData> queueFor(String userId) {
+        return partitionQueue(partitionOf(userId));
+    }
+
+    int partitionOf(String userId) {
+        return Math.floorMod(userId.hashCode(), partitions);
+    }
+
+    /**
+     * Events waiting across all partitions, plus any left in the legacy queue.
+     */
+    public long totalDepth() {
+        long depth = redissonClient.getQueue(LEGACY_QUEUE).size();
+        for (int partition = 0; partition < partitions; partition++) {
+            depth += partitionQueue(partition).size();
+        }
+        return depth;
+    }
+
+    Set<Integer> ownedPartitions() {
+        return Set.copyOf(owned.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (coordinator == null) {
+            return;
+        }
+
+        try {
+            coordinator.submit(() -> {
+                release(new ArrayList<>(owned.keySet()));
+                redissonClient.getScoredSortedSet(MEMBERS_KEY).remove(nodeId);
+            }).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release queue partitions cleanly: {}", e.getMessage());
+        }
+
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void rebalance() {
+        try {
+            List<String> members = heartbeat();
+            Set<Integer> wanted = assigned(members);
+
+            List<Integer> lost = new ArrayList<>();
+            for (Integer partition : owned.keySet()) {
+                if (!wanted.contains(partition) || !owned.get(partition).lock.isHeldByThread(Thread.currentThread().threadId())) {
+                    lost.add(partition);
+                }
+            }
+            release(lost);
+
+            for (Integer partition : wanted) {
+                if (!owned.containsKey(partition)) {
+                    acquire(partition);
+                }
+            }
+
+            if (drainingLegacy) {
+                migrateLegacyQueue();
+            }
+        } catch (Exception e) {
+            log.error("❌ Error rebalancing queue partitions", e);
+        }
+    }
+
+    private List<String> heartbeat() {
+        RScoredSortedSet<String> members = redissonClient.getScoredSortedSet(MEMBERS_KEY);
+        long now = System.currentTimeMillis();
+
+        members.add(now + memberTtlMs, nodeId);
+        members.removeRangeByScore(Double.NEGATIVE_INFINITY, true, now, true);
+
+        List<String> live = new ArrayList<>(members.readAll());
+        live.sort(String::compareTo);
+        return live;
+    }
+
+    private Set<Integer> assigned(List<String> members) {
+        Set<Integer> wanted = new HashSet<>();
+        int index = members.indexOf(nodeId);
+        if (index < 0) {
+            return wanted;
+        }
+
+        for (int partition = 0; partition < partitions; partition++) {
+            if (partition % members.size() == index) {
+                wanted.add(partition);
+            }
+        }
+        return wanted;
+    }
+
+    private void acquire(int partition) {
+        RLock lock = redissonClient.getLock(LOCK_PREFIX + partition);
+
+        // No lease time: the watchdog keeps renewing while this node is alive
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        PartitionWorker worker = new PartitionWorker(partition, lock);
+        worker.future = workers.submit(worker);
+        owned.put(partition, worker);
+        log.info("📌 Node {} now owns queue partition {}", nodeId, partition);
+    }
+
+    private void release(List<Integer> lost) {
+        List<Map.Entry<Integer, PartitionWorker>> stopping = new ArrayList<>();
+        for (Integer partition : lost) {
+            PartitionWorker worker = owned.remove(partition);
+            if (worker != null) {
+                worker.running = false;
+                stopping.add(Map.entry(partition, worker));
+            }
+        }
+        if (stopping.isEmpty()) {
+            return;
+        }
+
+        // Let in-flight events finish, all against one deadline well inside the member TTL so the
+        // heartbeat on this thread never lapses; anything unhandled stays in the processing list
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(memberTtlMs / 3);
+        for (Map.Entry<Integer, PartitionWorker> entry : stopping) {
+            PartitionWorker worker = entry.getValue();
+            try {
+                worker.future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                worker.future.cancel(true);
+            }
+
+            if (worker.lock.isHeldByCurrentThread()) {
+                worker.lock.unlock();
+            }
+            log.info("📤 Node {} released queue partition {}", nodeId, entry.getKey());
+        }
+    }
+
+    // Events queued by older versions (single queue, or partitions without a hash tag) go to their
+    // user's partition, until legacy-idle-rebalances rebalances in a row found none
+    private void migrateLegacyQueue() {
+        int moved = drainLegacy(LEGACY_QUEUE);
+        for (int partition = 0; partition < partitions; partition++) {
+            moved += drainLegacy(QUEUE_PREFIX + partition);
+        }
+
+        if (moved > 0) {
+            legacyIdle = 0;
+            log.info("🧳 Moved {} events from legacy queues to their partitions", moved);
+        } else if (++legacyIdle >= legacyIdleRebalances) {
+            drainingLegacy = false;
+            log.info("✅ Legacy queues empty for {} rebalances, no longer checked", legacyIdle);
+        }
+    }
+
+    private int drainLegacy(String name) {
+        RQueue<NotificationEventData> legacy = redissonClient.getQueue(name);
+
+        int moved = 0;
+        while (moved < 1000) {
+            NotificationEventData data = legacy.poll();
+            if (data == null) {
+                break;
+            }
+            queueFor(data.getUserId()).offer(data);
+            moved++;
+        }
+        return moved;
+    }
+
+    private RBlockingDeque<NotificationEventData> partitionQueue(int partition) {
+        return redissonClient.getBlockingDeque(QUEUE_PREFIX + "{" + partition + "}");
+    }
+
+    private RDeque<NotificationEventData> processingList(int partition) {
+        return redissonClient.getDeque(QUEUE_PREFIX + "{" + partition + "}" + PROCESSING_SUFFIX);
+    }
+
+    private class PartitionWorker implements Runnable {
+        private final int partition;
+        private final RLock lock;
+        private volatile boolean running = true;
+        private Future<?> future;
+
+        PartitionWorker(int partition, RLock lock) {
+            this.partition = partition;
+            this.lock = lock;
+        }
+
+        @Override
+        public void run() {
+            RBlockingDeque<NotificationEventData> queue = partitionQueue(partition);
+            RDeque<NotificationEventData> processing = processingList(partition);
+            RScript script = redissonClient.getScript(queue.getCodec());
+            String moveBatch = MOVE_BATCH_SCRIPT.formatted(batchSize);
+
+            try {
+                // Taken by a previous owner but never acknowledged; older than anything still queued
+                List<NotificationEventData> unfinished = processing.readAll();
+                if (!unfinished.isEmpty()) {
+                    log.info("♻️ Replaying {} unfinished events of queue partition {}", unfinished.size(), partition);
+                    handleAll(unfinished, processing);
+                }
+            } catch (Exception e) {
+                log.error("❌ Could not replay unfinished events of queue partition {}", partition, e);
+            }
+
+            while (running && !Thread.currentThread().isInterrupted()) {
+                try {
+                    List<NotificationEventData> batch = script.eval(queue.getName(), RScript.Mode.READ_WRITE,
+                            moveBatch, RScript.ReturnType.MULTI,
+                            List.of(queue.getName(), processing.getName()));
+
+                    if (batch.isEmpty()) {
+                        NotificationEventData first = queue.move(Duration.ofSeconds(1),
+                                DequeMoveArgs.pollFirst().addLastTo(processing.getName()));
+                        if (first == null) {
+                            continue;
+                        }
+                        batch = List.of(first);
+                    }
+
+                    handleAll(batch, processing);
+                } catch (Exception e) {
+                    log.error("❌ Error reading queue partition {}", partition, e);
+                    pause();
+                }
+            }
+        }
+
+        // Strictly sequential on this thread, the partition's only consumer; each event is acknowledged once handled
+        private void handleAll(List<NotificationEventData> events, RDeque<NotificationEventData> processing) {
+            for (NotificationEventData data : events) {
+                try {
+                    handler.accept(data);
+                } catch (Exception e) {
+                    // One bad event must not hold up the partition; it is dropped, the rest carry on
+                    log.error("❌ Dropping {} event for user {} from queue partition {}",
+                            data.getType(), data.getUserId(), partition, e);
+                }
+                processing.pollFirst();
+            }
+        }
+
+        private void pause() {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
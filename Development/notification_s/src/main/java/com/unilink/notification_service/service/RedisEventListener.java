@@ -3,6 +3,9 @@ package com.unilink.notification_service.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unilink.notification_service.config.NotificationChannels;
 import com.unilink.notification_service.dto.NotificationEventData;
+import com.unilink.notification_service.monitoring.PipelineRecorder;
+import com.unilink.notification_service.monitoring.PipelineStage;
+import com.unilink.notification_service.monitoring.PipelineStageEvent;
 
 
 import org.springframework.data.redis.connection.Message;
@@ -12,9 +15,9 @@ import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 
 @Service
@@ -25,19 +28,15 @@ public class RedisEventListener implements MessageListener {
     private final RedisMessageListenerContainer messageListenerContainer;
     private final NotificationQueueService queueService;
     private final ObjectMapper objectMapper;
+    private final PipelineRecorder pipelineRecorder;
+    private final AdmissionController admissionController;
 
-    private static final Map<String, Function<NotificationEventData, String>> MESSAGE_GENERATORS = new HashMap<>() {{
-        put("like", data -> data.getActorName() + " liked your post");
-        put("message", data -> data.getActorName() + " sent you a message");
-        put("profile-view", data -> data.getActorName() + " viewed your profile");
-        put("friend-post", data -> data.getActorName() + " shared a new post");
-        put("friend-request", data -> data.getActorName() + " sent you a friend request");
-    }};
-
-    public RedisEventListener(RedisMessageListenerContainer messageListenerContainer, NotificationQueueService queueService, ObjectMapper objectMapper) {
+    public RedisEventListener(RedisMessageListenerContainer messageListenerContainer, NotificationQueueService queueService, ObjectMapper objectMapper, PipelineRecorder pipelineRecorder, AdmissionController admissionController) {
         this.messageListenerContainer = messageListenerContainer;
         this.queueService = queueService;
         this.objectMapper = objectMapper;
+        this.pipelineRecorder = pipelineRecorder;
+        this.admissionController = admissionController;
     }
 
     @PostConstruct
@@ -55,51 +54,69 @@ public class RedisEventListener implements MessageListener {
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
+        PipelineStageEvent ingest = pipelineRecorder.begin(PipelineStage.INGEST);
+        NotificationEventData eventData = null;
+        String outcome = "rejected";
+
         try {
-            String channel = new String(message.getChannel());
-            String body = new String(message.getBody());
+            eventData = decode(message);
+
+            if (eventData != null && admissionController.admit(eventData)) {
+                // Queue for processing
+                queueService.queueNotification(eventData);
+                outcome = "accepted";
+            } else if (eventData != null) {
+                outcome = "shed";
+            }
 
-            log.info("📨 Received event from {}", channel);
+        } catch (Exception e) {
+            log.error("❌ Error processing notification event", e);
+        } finally {
+            pipelineRecorder.end(ingest,
+                    eventData != null ? eventData.getUserId() : null,
+                    eventData != null ? eventData.getType() : null,
+                    outcome);
+        }
+    }
 
-            Map<String, Object> data = objectMapper.readValue(body, Map.class);
+    NotificationEventData decode(Message message) throws IOException {
+        String channel = new String(message.getChannel());
+        String body = new String(message.getBody());
 
-            // Validate required fields
-            if (!data.containsKey("userId") || !data.containsKey("actorId") ||
-                    !data.containsKey("actorName")) {
-                log.error("❌ Invalid notification data: {}", data);
-                return;
-            }
+        if (pipelineRecorder.logEvents()) {
+            log.info("📨 Received event from {}", channel);
+        }
 
-            // Determine notification type from channel
-            String type = getTypeFromChannel(channel);
-            if (type == null) {
-                log.warn("⚠️ Unknown channel: {}", channel);
-                return;
-            }
+        Map<String, Object> data = objectMapper.readValue(body, Map.class);
 
-            // Generate message
-            NotificationEventData eventData = NotificationEventData.builder()
-                    .userId((String) data.get("userId"))
-                    .type(type)
-                    .actorId((String) data.get("actorId"))
-                    .actorName((String) data.get("actorName"))
-                    .actorPicture((String) data.getOrDefault("actorPicture", ""))
-                    .relatedId((String) data.get("relatedId"))
-                    .priority((String) data.getOrDefault("priority", "medium"))
-                    .metadata((Map<String, Object>) data.getOrDefault("metadata", new HashMap<>()))
-                    .build();
-
-            // Generate message
-            String generatedMessage = MESSAGE_GENERATORS.getOrDefault(type,
-                    d -> "New notification").apply(eventData);
-            eventData.setMessage(generatedMessage);
-
-            // Queue for processing
-            queueService.queueNotification(eventData);
+        // Validate required fields
+        if (!data.containsKey("userId") || !data.containsKey("actorId") ||
+                !data.containsKey("actorName")) {
+            log.error("❌ Invalid notification data: {}", data);
+            return null;
+        }
 
-        } catch (Exception e) {
-            log.error("❌ Error processing notification event", e);
+        // Determine notification type from channel
+        String type = getTypeFromChannel(channel);
+        if (type == null) {
+            log.warn("⚠️ Unknown channel: {}", channel);
+            return null;
         }
+
+        NotificationEventData eventData = NotificationEventData.builder()
+                .userId((String) data.get("userId"))
+                .type(type)
+                .actorId((String) data.get("actorId"))
+                .actorName((String) data.get("actorName"))
+                .actorPicture((String) data.getOrDefault("actorPicture", ""))
+                .relatedId((String) data.get("relatedId"))
+                .priority((String) data.getOrDefault("priority", "medium"))
+                .metadata((Map<String, Object>) data.getOrDefault("metadata", new HashMap<>()))
+                .receivedAt(System.currentTimeMillis())
+                .build();
+
+        // No message text: NotificationMessages renders it when the notification is read or pushed
+        return eventData;
     }
 
     private String getTypeFromChannel(String channel) {
@@ -0,0 +1,214 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.RetentionProperties;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.repository.ActivityStore;
+import com.unilink.notification_service.repository.NotificationStore;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Background retention enforcement replacing the Mongo TTL monitor. One pod at a time
+ * (Redisson lock) deletes expired notifications in batches paced to
+ * {@code max-deletes-per-second}, then trims users that received notifications recently
+ * down to {@code max-per-user}.
+ */
+@Service
+
+public class RetentionPurgeService {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RetentionPurgeService.class);
+
+    private static final String LOCK_KEY = "notification:retention:purge-lock";
+    private static final String ACTIVE_USERS_KEY = "notification:retention:users";
+
+    private final NotificationStore notificationStore;
+    private final RedissonClient redissonClient;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final RetentionProperties properties;
+    private final InboxCacheService inboxCache;
+    private final InboxVersionService inboxVersions;
+    private final ActivityStore activityStore;
+
+    @Value("${spring.data.mongodb.auto-index-creation:false}")
+    private boolean manageIndexes;
+
+    // Users with new notifications since the last run, flushed to Redis by every pod
+    private final Set<String> recentUsers = ConcurrentHashMap.newKeySet();
+
+    public RetentionPurgeService(NotificationStore notificationStore, RedissonClient redissonClient, RedisTemplate<String, Object> redisTemplate, MongoTemplate mongoTemplate, RetentionProperties properties, InboxCacheService inboxCache, InboxVersionService inboxVersions, ActivityStore activityStore) {
+        this.notificationStore = notificationStore;
+        this.redissonClient = redissonClient;
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.inboxCache = inboxCache;
+        this.inboxVersions = inboxVersions;
+        this.activityStore = activityStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!manageIndexes) {
+            return;
+        }
+
+        IndexOperations indexOps = mongoTemplate.indexOps(Notification.class);
+
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            if (index.isIndexForFields(List.of("expiresAt")) && index.getExpireAfter().isPresent()) {
+                indexOps.dropIndex(index.getName());
+                log.info("🗑️ Dropped TTL index {}; expiry is handled by the retention purge", index.getName());
+            }
+        }
+
+        indexOps.ensureIndex(new Index(Notification.F_EXPIRES_AT, Sort.Direction.ASC).named("x_purge"));
+    }
+
+    public void trackUser(String userId) {
+        if (properties.getMaxPerUser() > 0) {
+            recentUsers.add(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.retention.purge.interval-ms:60000}",
+            initialDelayString = "${notification.retention.purge.interval-ms:60000}")
+    public void purge() {
+        flushRecentUsers();
+
+        RetentionProperties.Purge purge = properties.getPurge();
+        if (!purge.isEnabled()) {
+            return;
+        }
+
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        try {
+            if (!lock.tryLock(0, purge.getMaxRunMs() + 10000, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            long deadline = System.currentTimeMillis() + purge.getMaxRunMs();
+            long expired = purgeExpired(purge, deadline);
+            long trimmed = trimUsers(purge, deadline);
+
+            if (expired > 0 || trimmed > 0) {
+                log.info("🧹 Retention purge removed {} expired and {} over-limit notifications", expired, trimmed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("❌ Error during retention purge", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private long purgeExpired(RetentionProperties.Purge purge, long deadline) throws InterruptedException {
+        long total = 0;
+
+        while (System.currentTimeMillis() < deadline) {
+            long started = System.nanoTime();
+            LocalDateTime now = LocalDateTime.now();
+            long removed = notificationStore.purgeExpired(now, purge.getBatchSize())
+                    + activityStore.purgeExpired(now, purge.getBatchSize());
+            total += removed;
+
+            if (removed == 0) {
+                break;
+            }
+            pace(removed, started, purge.getMaxDeletesPerSecond());
+        }
+
+        return total;
+    }
+
+    private long trimUsers(RetentionProperties.Purge purge, long deadline) throws InterruptedException {
+        if (properties.getMaxPerUser() <= 0) {
+            return 0;
+        }
+
+        List<Object> users = redisTemplate.opsForSet().pop(ACTIVE_USERS_KEY, purge.getUsersPerRun());
+        if (users == null) {
+            return 0;
+        }
+
+        long total = 0;
+        for (Object user : users) {
+            if (System.currentTimeMillis() >= deadline) {
+                // Put the rest back for the next run
+                redisTemplate.opsForSet().add(ACTIVE_USERS_KEY, user);
+                continue;
+            }
+
+            long started = System.nanoTime();
+            long removed = notificationStore.trimToLimit(
+                    (String) user, properties.getMaxPerUser(), purge.getBatchSize());
+            total += removed;
+            if (removed > 0) {
+                inboxCache.invalidate((String) user);
+                inboxVersions.bump((String) user);
+            }
+            pace(removed, started, purge.getMaxDeletesPerSecond());
+        }
+
+        return total;
+    }
+
+    private void flushRecentUsers() {
+        if (recentUsers.isEmpty()) {
+            return;
+        }
+
+        List<Object> batch = new ArrayList<>();
+        Iterator<String> iterator = recentUsers.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+
+        try {
+            redisTemplate.opsForSet().add(ACTIVE_USERS_KEY, batch.toArray());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not record users for retention trimming: {}", e.getMessage());
+        }
+    }
+
+    private static void pace(long deleted, long startedNanos, int maxDeletesPerSecond) throws InterruptedException {
+        if (deleted <= 0 || maxDeletesPerSecond <= 0) {
+            return;
+        }
+
+        long budgetNanos = deleted * TimeUnit.SECONDS.toNanos(1) / maxDeletesPerSecond;
+        long remainingNanos = budgetNanos - (System.nanoTime() - startedNanos);
+        if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.Activity;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.NotificationBucket;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Converts documents written before the compact notification schema, in place and in
+ * batches: long field names become the short aliases, type and priority become their int
+ * codes, {@code metadata.groupCount} moves to the typed field and the stored
+ * {@code createdAt} is dropped in favour of the ObjectId time.
+ *
+ * Reads only match the compact names, so this is not optional. It runs before any other
+ * application runner and keeps converting until no legacy document is left, which holds a
+ * pod's readiness back until its data is visible. Pods of the previous version keep writing
+ * legacy documents during a rolling deploy; a sweep every {@code sweep-ms} converts those,
+ * and stops once {@code idle-sweeps} sweeps in a row found nothing. Only then are the legacy
+ * indexes dropped, as the old pods query on them until they are gone.
+ *
+ * Legacy documents are found through partial indexes holding only documents that still have
+ * the legacy {@code userId} field, so a sweep over converted data reads an empty index. Each
+ * document is matched on that field when written, which makes every pass idempotent: an
+ * interrupted migration resumes where it stopped and concurrent pods skip what another has
+ * already converted.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+
+public class SchemaMigrationService implements ApplicationRunner {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SchemaMigrationService.class);
+
+    private static final String LEGACY_USER_ID = "userId";
+
+    // Legacy name -> compact alias; createdAt is absent on purpose (dropped)
+    private static final Map<String, String> ALIASES = Map.ofEntries(
+            Map.entry(LEGACY_USER_ID, Notification.F_USER_ID),
+            Map.entry("type", Notification.F_TYPE),
+            Map.entry("actorId", "a"),
+            Map.entry("actorName", "an"),
+            Map.entry("actorPicture", "ap"),
+            Map.entry("relatedId", "r"),
+            Map.entry("message", "m"),
+            Map.entry("read", Notification.F_READ),
+            Map.entry("priority", "p"),
+            Map.entry("metadata", "md"),
+            Map.entry("expiresAt", Notification.F_EXPIRES_AT),
+            Map.entry("updatedAt", Notification.F_UPDATED_AT));
+
+    private static final Set<String> LEGACY_INDEXES = Set.of("userId_createdAt", "userId_read", "userId", "expiresAt_purge");
+
+    private static final String PENDING_INDEX = "legacy_pending";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${notification.migration.compact-schema.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notification.migration.compact-schema.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${notification.migration.compact-schema.idle-sweeps:90}")
+    private int idleSweeps;
+
+    private volatile boolean sweeping;
+    private int idle;
+
+    public SchemaMigrationService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        long started = System.currentTimeMillis();
+        ensurePendingIndexes();
+
+        long notifications = migrateNotifications();
+        long buckets = migrateBuckets();
+        long activities = migrateActivities();
+
+        if (notifications + buckets + activities > 0) {
+            log.info("✅ Compact schema migration finished in {} ms ({} notifications, {} buckets, {} activities)",
+                    System.currentTimeMillis() - started, notifications, buckets, activities);
+        }
+        sweeping = true;
+    }
+
+    /**
+     * Converts what pods of the previous version wrote since the last pass.
+     */
+    @Scheduled(fixedDelayString = "${notification.migration.compact-schema.sweep-ms:10000}")
+    public void sweep() throws InterruptedException {
+        if (!sweeping) {
+            return;
+        }
+
+        long converted = migrateNotifications() + migrateBuckets();
+        if (converted > 0) {
+            idle = 0;
+            log.info("🧳 Sweep converted {} legacy documents", converted);
+            return;
+        }
+
+        if (++idle >= idleSweeps) {
+            sweeping = false;
+            dropLegacyIndexes();
+            log.info("✅ No legacy documents written for {} sweeps, compact schema migration complete", idle);
+        }
+    }
+
+    private long migrateNotifications() throws InterruptedException {
+        String collection = mongoTemplate.getCollectionName(Notification.class);
+
+        long converted = 0;
+        Object after = null;
+        List<Document> batch;
+        while (!(batch = mongoTemplate.find(legacyBatch(Criteria.where(LEGACY_USER_ID).exists(true), after),
+                Document.class, collection)).isEmpty()) {
+            after = batch.get(batch.size() - 1).get("_id");
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            int writes = 0;
+            for (Document document : batch) {
+                Document compact = compact(document);
+                if (compact == null) {
+                    continue;
+                }
+                // Still legacy at write time, so a document converted meanwhile is left alone
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(document.get("_id"))
+                        .and(LEGACY_USER_ID).exists(true)), compact);
+                writes++;
+            }
+            if (writes == 0) {
+                continue;
+            }
+
+            converted += bulk.execute().getModifiedCount();
+            log.info("🧳 Converted {} notifications so far", converted);
+            Thread.sleep(pauseMs);
+        }
+        return converted;
+    }
+
+    private long migrateBuckets() throws InterruptedException {
+        String collection = mongoTemplate.getCollectionName(NotificationBucket.class);
+
+        long converted = 0;
+        Object after = null;
+        List<Document> batch;
+        while (!(batch = mongoTemplate.find(legacyBatch(Criteria.where("items." + LEGACY_USER_ID).exists(true), after),
+                Document.class, collection)).isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            int writes = 0;
+            for (Document bucket : batch) {
+                List<Document> items = compactItems(bucket);
+                if (items == null) {
+                    continue;
+                }
+
+                // Matching the counters skips a bucket whose items changed since it was read
+                bulk.updateOne(Query.query(Criteria.where("_id").is(bucket.get("_id"))
+                                .and("count").is(bucket.get("count"))
+                                .and("unreadCount").is(bucket.get("unreadCount"))),
+                        Update.update("items", items));
+                writes++;
+            }
+
+            long modified = writes > 0 ? bulk.execute().getModifiedCount() : 0;
+            if (modified < writes) {
+                // Some buckets changed under us; read the same range again
+                Thread.sleep(Math.max(pauseMs, 100));
+            } else {
+                after = batch.get(batch.size() - 1).get("_id");
+            }
+            converted += modified;
+            log.info("🧳 Converted {} notification buckets so far", converted);
+            Thread.sleep(pauseMs);
+        }
+        return converted;
+    }
+
+    // Activities keep their field names; only the enums change representation, a handful of values
+    private long migrateActivities() {
+        String collection = mongoTemplate.getCollectionName(Activity.class);
+
+        long converted = 0;
+        for (Notification.NotificationType type : Notification.NotificationType.values()) {
+            converted += mongoTemplate.updateMulti(Query.query(Criteria.where("type").is(type.name())),
+                    Update.update("type", type.getCode()), collection).getModifiedCount();
+        }
+        for (Notification.Priority priority : Notification.Priority.values()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("priority").is(priority.name())),
+                    Update.update("priority", priority.getCode()), collection);
+        }
+        return converted;
+    }
+
+    // Only legacy documents have the userId field, so these stay empty once everything is converted
+    private void ensurePendingIndexes() {
+        mongoTemplate.indexOps(Notification.class).ensureIndex(new Index()
+                .on(LEGACY_USER_ID, Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                .named(PENDING_INDEX)
+                .partial(PartialIndexFilter.of(Criteria.where(LEGACY_USER_ID).exists(true))));
+        mongoTemplate.indexOps(NotificationBucket.class).ensureIndex(new Index()
+                .on("items." + LEGACY_USER_ID, Sort.Direction.ASC)
+                .named(PENDING_INDEX)
+                .partial(PartialIndexFilter.of(Criteria.where("items." + LEGACY_USER_ID).exists(true))));
+    }
+
+    private void dropLegacyIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Notification.class);
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            if (LEGACY_INDEXES.contains(index.getName())) {
+                indexOps.dropIndex(index.getName());
+                log.info("🗑️ Dropped legacy index {}", index.getName());
+            }
+        }
+    }
+
+    // Documents this pass could not convert stay legacy, so each pass pages past them by id
+    private Query legacyBatch(Criteria criteria, Object after) {
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("_id").gt(after));
+        }
+        return Query.query(criteria).with(Sort.by("_id")).limit(batchSize);
+    }
+
+    // Null when any item cannot be converted; the bucket is then left as it is
+    private static List<Document> compactItems(Document bucket) {
+        List<Document> items = new ArrayList<>();
+        for (Document item : bucket.getList("items", Document.class, List.of())) {
+            Document compact = compact(item);
+            if (compact == null) {
+                return null;
+            }
+            items.add(compact);
+        }
+        return items;
+    }
+
+    /**
+     * Compact form of a legacy notification document. Keys already in compact form are kept,
+     * so a partially converted document comes out whole. Null, logged, when the type or
+     * priority is not one this version knows; such a document is left in the legacy schema
+     * rather than holding up the migration.
+     */
+    static Document compact(Document legacy) {
+        try {
+            return toCompact(legacy);
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Leaving notification {} in the legacy schema: {}", legacy.get("_id"), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Document toCompact(Document legacy) {
+        Document compact = new Document();
+        for (Map.Entry<String, Object> field : legacy.entrySet()) {
+            if (field.getKey().equals("createdAt")) {
+                continue;
+            }
+            compact.putIfAbsent(ALIASES.getOrDefault(field.getKey(), field.getKey()), field.getValue());
+        }
+
+        Object type = compact.get(Notification.F_TYPE);
+        if (type instanceof String name) {
+            compact.put(Notification.F_TYPE, Notification.NotificationType.valueOf(name).getCode());
+        }
+
+        Object priority = compact.get("p");
+        if (priority instanceof String name) {
+            Notification.Priority parsed = Notification.Priority.valueOf(name);
+            if (parsed == Notification.Priority.MEDIUM) {
+                compact.remove("p");
+            } else {
+                compact.put("p", parsed.getCode());
+            }
+        }
+
+        if (compact.get("md") instanceof Document metadata && metadata.get("groupCount") instanceof Number count) {
+            metadata.remove("groupCount");
+            if (count.intValue() > 1) {
+                compact.putIfAbsent("gc", count.intValue());
+            }
+        }
+        return compact;
+    }
+}
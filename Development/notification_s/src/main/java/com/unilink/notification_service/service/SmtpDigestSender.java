@@ -0,0 +1,64 @@
+package com.unilink.notification_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Sends digests as plain-text mail through the SMTP server configured under
+ * {@code spring.mail}. A batch goes out over a single connection; messages the server
+ * refuses are reported back individually.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.digest.enabled", havingValue = "true")
+
+public class SmtpDigestSender implements DigestSender {
+
+    private final JavaMailSender mailSender;
+    private final String from;
+
+    public SmtpDigestSender(JavaMailSender mailSender, @Value("${notification.digest.from:notifications@unilink.local}") String from) {
+        this.mailSender = mailSender;
+        this.from = from;
+    }
+
+    @Override
+    public List<Digest> send(List<Digest> digests) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[digests.size()];
+        for (int i = 0; i < messages.length; i++) {
+            Digest digest = digests.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(from);
+            message.setTo(digest.email());
+            message.setSubject(digest.subject());
+            message.setText(digest.body());
+            messages[i] = message;
+        }
+        try {
+            mailSender.send(messages);
+            return List.of();
+        } catch (MailSendException e) {
+            // Keyed by the messages passed in; without entries nothing is known to have gone out
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                throw e;
+            }
+
+            List<Digest> rejected = new ArrayList<>();
+            for (int i = 0; i < messages.length; i++) {
+                if (failed.containsKey(messages[i])) {
+                    rejected.add(digests.get(i));
+                }
+            }
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.unilink.notification_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Debounced {@code notification:unread-count} pushes. Read receipts arrive in bursts while a
+ * client scrolls; every receipt in a {@code notification.read-batch.unread-debounce-ms}
+ * window shares one count query and one push, sent when the window closes.
+ */
+@Service
+
+public class UnreadCountPusher {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(UnreadCountPusher.class);
+
+    private final NotificationService notificationService;
+    private final WebSocketService webSocketService;
+
+    @Value("${notification.read-batch.unread-debounce-ms:250}")
+    private long debounceMs;
+
+    private final Map<String, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public UnreadCountPusher(NotificationService notificationService, WebSocketService webSocketService) {
+        this.notificationService = notificationService;
+        this.webSocketService = webSocketService;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "unread-count-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Pushes the user's unread count at the end of the current window, opening one if needed.
+     */
+    public void schedule(String userId) {
+        pending.computeIfAbsent(userId, id -> scheduler.schedule(() -> push(id), debounceMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void push(String userId) {
+        // Removed before counting: a receipt landing during the count opens a new window
+        pending.remove(userId);
+        try {
+            webSocketService.sendToUser(userId, "notification:unread-count",
+                    Map.of("count", notificationService.getUnreadCount(userId)));
+        } catch (Exception e) {
+            log.error("❌ Failed to push unread count to user {}", userId, e);
+        }
+    }
+}
@@ -4,9 +4,17 @@ import com.unilink.notification_service.model.UserPreferences;
 import com.unilink.notification_service.repository.UserPreferencesRepository;
 
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 @Service
@@ -16,19 +24,71 @@ public class UserPreferencesService {
 
     private final UserPreferencesRepository preferencesRepository;
 
+    // Read-mostly and checked for every event; other nodes' updates show up within the TTL
+    private final Map<String, CachedPreferences> localCache = new ConcurrentHashMap<>();
+
+    @Value("${notification.preferences.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${notification.preferences.cache-size:50000}")
+    private int cacheSize;
+
+    private record CachedPreferences(UserPreferences preferences, long loadedAt) {
+    }
+
     public UserPreferencesService(UserPreferencesRepository preferencesRepository) {
         this.preferencesRepository = preferencesRepository;
     }
 
     public UserPreferences getOrCreate(String userId) {
-        return preferencesRepository.findByUserId(userId)
+        UserPreferences preferences = preferencesRepository.findByUserId(userId)
                 .orElseGet(() -> {
                     log.info("📝 Creating default preferences for user: {}", userId);
-                    UserPreferences preferences = UserPreferences.createDefault(userId);
-                    preferences.setCreatedAt(LocalDateTime.now());
-                    preferences.setUpdatedAt(LocalDateTime.now());
-                    return preferencesRepository.save(preferences);
+                    UserPreferences created = UserPreferences.createDefault(userId);
+                    created.setCreatedAt(LocalDateTime.now());
+                    created.setUpdatedAt(LocalDateTime.now());
+                    return preferencesRepository.save(created);
                 });
+        cache(preferences);
+        return preferences;
+    }
+
+    /**
+     * Preferences for many users in one {@code $in} query. Users without a document get
+     * unsaved defaults instead of one insert each.
+     */
+    public Map<String, UserPreferences> getAll(Collection<String> userIds) {
+        Map<String, UserPreferences> byUser = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String userId : userIds) {
+            UserPreferences cached = cached(userId);
+            if (cached != null) {
+                byUser.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return byUser;
+        }
+
+        preferencesRepository.findByUserIdIn(missing).forEach(preferences -> {
+            byUser.put(preferences.getUserId(), preferences);
+            cache(preferences);
+        });
+
+        for (String userId : missing) {
+            byUser.computeIfAbsent(userId, UserPreferences::createDefault);
+        }
+        return byUser;
+    }
+
+    /**
+     * Loads the given users into the local cache, e.g. during warm-up.
+     */
+    public int preload(Collection<String> userIds) {
+        return getAll(userIds).size();
     }
 
     public UserPreferences updatePreferences(String userId, UserPreferences updates) {
@@ -42,6 +102,10 @@ public class UserPreferencesService {
             existing.setEmailNotifications(updates.getEmailNotifications());
         }
 
+        if (updates.getEmail() != null) {
+            existing.setEmail(updates.getEmail().isBlank() ? null : updates.getEmail().trim());
+        }
+
         if (updates.getPushNotifications() != null) {
             existing.setPushNotifications(updates.getPushNotifications());
         }
@@ -51,16 +115,46 @@ public class UserPreferencesService {
         }
 
         existing.setUpdatedAt(LocalDateTime.now());
-        return preferencesRepository.save(existing);
+        UserPreferences saved = preferencesRepository.save(existing);
+        cache(saved);
+        return saved;
     }
 
     public boolean isNotificationEnabled(String userId, String notificationType) {
-        UserPreferences preferences = getOrCreate(userId);
-        return preferences.isEnabled(notificationType);
+        return getCached(userId).isEnabled(notificationType);
     }
 
     public boolean isInQuietHours(String userId) {
-        UserPreferences preferences = getOrCreate(userId);
-        return preferences.isInQuietHours();
+        return getCached(userId).isInQuietHours();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.preferences.cache-ttl-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        localCache.values().removeIf(entry -> now - entry.loadedAt() > cacheTtlMs);
+    }
+
+    /**
+     * One user's preferences through the local cache, loading (and creating) them on a miss.
+     * May lag updates made on other pods by up to {@code cache-ttl-ms}.
+     */
+    public UserPreferences getCached(String userId) {
+        UserPreferences cached = cached(userId);
+        return cached != null ? cached : getOrCreate(userId);
+    }
+
+    private UserPreferences cached(String userId) {
+        CachedPreferences entry = localCache.get(userId);
+        if (entry == null || System.currentTimeMillis() - entry.loadedAt() > cacheTtlMs) {
+            return null;
+        }
+        return entry.preferences();
+    }
+
+    private void cache(UserPreferences preferences) {
+        // When full, new users wait for the next eviction instead of growing the heap
+        if (localCache.size() < cacheSize || localCache.containsKey(preferences.getUserId())) {
+            localCache.put(preferences.getUserId(), new CachedPreferences(preferences, System.currentTimeMillis()));
+        }
     }
 }
@@ -0,0 +1,254 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.config.NotificationChannels;
+import com.unilink.notification_service.dto.NotificationEventData;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.security.JwtTokenProvider;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.bson.Document;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Warms a new pod up before it takes traffic. Spring Boot only reports readiness once
+ * application runners have returned, so this runner holds readiness back while it opens
+ * Redis and Mongo connections, runs the JSON, JWT and event-decoding paths on synthetic
+ * data, and preloads preferences of users currently online.
+ *
+ * Steps run in order until {@code notification.warmup.budget-ms} is spent; the rest are
+ * skipped, never failed. Progress is reported by the {@code warmup} health indicator.
+ */
+@Service
+
+public class WarmupService implements ApplicationRunner {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WarmupService.class);
+
+    private static final String SYNTHETIC_USER = "000000000000000000000000";
+    private static final String SYNTHETIC_ACTOR = "000000000000000000000001";
+
+    public enum Phase {
+        PENDING, RUNNING, DONE
+    }
+
+    /**
+     * Point-in-time view of the warm-up for health reporting.
+     */
+    public record Progress(Phase phase, String step, long elapsedMs, long budgetMs,
+                           List<String> completed, Map<String, String> skipped) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedissonClient redissonClient;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final RedisEventListener eventListener;
+    private final PresenceService presenceService;
+    private final UserPreferencesService preferencesService;
+    private final NotificationMessages messages;
+
+    @Value("${notification.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.warmup.budget-ms:15000}")
+    private long budgetMs;
+
+    @Value("${notification.warmup.connections:16}")
+    private int connections;
+
+    @Value("${notification.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${notification.warmup.preload-users:5000}")
+    private int preloadUsers;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private volatile Phase phase = Phase.PENDING;
+    private volatile String step;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private long deadline;
+    private final List<String> completed = new CopyOnWriteArrayList<>();
+    private final Map<String, String> skipped = new LinkedHashMap<>();
+
+    public WarmupService(StringRedisTemplate redisTemplate, RedissonClient redissonClient, MongoTemplate mongoTemplate, ObjectMapper objectMapper, JwtTokenProvider jwtTokenProvider, RedisEventListener eventListener, PresenceService presenceService, UserPreferencesService preferencesService, NotificationMessages messages) {
+        this.redisTemplate = redisTemplate;
+        this.redissonClient = redissonClient;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.eventListener = eventListener;
+        this.presenceService = presenceService;
+        this.preferencesService = preferencesService;
+        this.messages = messages;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        startedAt = System.currentTimeMillis();
+        if (!enabled) {
+            finish();
+            return;
+        }
+
+        phase = Phase.RUNNING;
+        deadline = startedAt + budgetMs;
+        log.info("🔥 Warm-up started (budget {} ms)", budgetMs);
+
+        runStep("connections", this::openConnections);
+        runStep("json", this::exerciseJson);
+        runStep("jwt", this::exerciseJwt);
+        runStep("events", this::exerciseEventDecoding);
+        runStep("preferences", this::preloadPreferences);
+
+        finish();
+        log.info("✅ Warm-up finished in {} ms (completed {}, skipped {})",
+                finishedAt - startedAt, completed, skipped.keySet());
+    }
+
+    public Progress progress() {
+        long end = phase == Phase.DONE ? finishedAt : System.currentTimeMillis();
+        synchronized (skipped) {
+            return new Progress(phase, step, startedAt > 0 ? end - startedAt : 0, budgetMs,
+                    List.copyOf(completed), Map.copyOf(skipped));
+        }
+    }
+
+    private void runStep(String name, Callable<?> task) {
+        if (System.currentTimeMillis() >= deadline) {
+            skip(name, "budget exhausted");
+            return;
+        }
+
+        step = name;
+        try {
+            task.call();
+            completed.add(name);
+        } catch (Exception e) {
+            // A cold path is slower, not broken; never keep the pod out of rotation for it
+            log.warn("⚠️ Warm-up step {} failed: {}", name, e.getMessage());
+            skip(name, String.valueOf(e.getMessage()));
+        }
+    }
+
+    // Concurrent round trips so the pools open connections instead of reusing one
+    private Void openConnections() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        try {
+            List<Callable<Object>> pings = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                pings.add(() -> redisTemplate.execute((RedisCallback<String>) connection -> connection.ping()));
+                pings.add(() -> redissonClient.getBucket("notification:warmup").isExists());
+                pings.add(() -> mongoTemplate.executeCommand(new Document("ping", 1)));
+            }
+            pool.invokeAll(pings, remainingMs(), TimeUnit.MILLISECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        return null;
+    }
+
+    private Void exerciseJson() throws Exception {
+        Notification notification = Notification.builder()
+                .id(SYNTHETIC_USER)
+                .userId(SYNTHETIC_USER)
+                .type(Notification.NotificationType.LIKE)
+                .actorId(SYNTHETIC_ACTOR)
+                .actorName("Warm Up")
+                .build();
+        notification.setGroupCount(2);
+
+        for (int i = 0; i < iterations && withinBudget(); i++) {
+            String json = objectMapper.writeValueAsString(notification);
+            messages.render(objectMapper.readValue(json, Notification.class), messages.defaultLocale());
+        }
+        return null;
+    }
+
+    private Void exerciseJwt() {
+        String token = Jwts.builder()
+                .claim("id", SYNTHETIC_USER)
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        for (int i = 0; i < iterations && withinBudget(); i++) {
+            jwtTokenProvider.getUserIdFromToken(token);
+        }
+        return null;
+    }
+
+    private Void exerciseEventDecoding() throws Exception {
+        DefaultMessage message = new DefaultMessage(
+                NotificationChannels.LIKE.getBytes(StandardCharsets.UTF_8),
+                ("{\"userId\":\"" + SYNTHETIC_USER + "\",\"actorId\":\"" + SYNTHETIC_ACTOR + "\","
+                        + "\"actorName\":\"Warm Up\",\"relatedId\":\"" + SYNTHETIC_ACTOR + "\"}")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        for (int i = 0; i < iterations && withinBudget(); i++) {
+            NotificationEventData data = eventListener.decode(message);
+            DeduplicationKeys.foldKey(DeduplicationKeys.key(data.getType(), data.getUserId(),
+                    data.getActorId(), data.getRelatedId()));
+        }
+        return null;
+    }
+
+    private Integer preloadPreferences() {
+        List<String> userIds;
+        try (Stream<String> online = presenceService.onlineUsers()) {
+            userIds = online.limit(preloadUsers).collect(Collectors.toList());
+        }
+
+        int loaded = 0;
+        for (int from = 0; from < userIds.size() && withinBudget(); from += 500) {
+            loaded += preferencesService.preload(userIds.subList(from, Math.min(userIds.size(), from + 500)));
+        }
+        log.info("📥 Preloaded preferences for {} online users", loaded);
+        return loaded;
+    }
+
+    private boolean withinBudget() {
+        return System.currentTimeMillis() < deadline;
+    }
+
+    private long remainingMs() {
+        return Math.max(1, deadline - System.currentTimeMillis());
+    }
+
+    private void skip(String name, String reason) {
+        synchronized (skipped) {
+            skipped.put(name, reason);
+        }
+    }
+
+    private void finish() {
+        step = null;
+        finishedAt = System.currentTimeMillis();
+        phase = Phase.DONE;
+    }
+}
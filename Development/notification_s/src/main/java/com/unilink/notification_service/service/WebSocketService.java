@@ -1,12 +1,12 @@
 package com.unilink.notification_service.service;
 import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.monitoring.PipelineRecorder;
 
 
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
+import java.util.stream.Stream;
 
 
 @Service
@@ -15,55 +15,65 @@ public class WebSocketService {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WebSocketService.class);
 
     private final SimpMessagingTemplate messagingTemplate;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final PresenceService presenceService;
+    private final PipelineRecorder pipelineRecorder;
+    private final BroadcastService broadcastService;
 
-    private static final String ONLINE_USERS_KEY = "notification:online";
-    private static final String SOCKET_PREFIX = "notification:socket:";
-
-    public WebSocketService(SimpMessagingTemplate messagingTemplate, RedisTemplate<String, Object> redisTemplate) {
+    public WebSocketService(SimpMessagingTemplate messagingTemplate, PresenceService presenceService, PipelineRecorder pipelineRecorder, BroadcastService broadcastService) {
         this.messagingTemplate = messagingTemplate;
-        this.redisTemplate = redisTemplate;
+        this.presenceService = presenceService;
+        this.pipelineRecorder = pipelineRecorder;
+        this.broadcastService = broadcastService;
     }
 
-    public void sendToUser(String userId, String event, Object payload) {
+    public boolean sendToUser(String userId, String event, Object payload) {
         // Check if user is online
-        Boolean isOnline = redisTemplate.opsForSet().isMember(ONLINE_USERS_KEY, userId);
-
-        if (Boolean.TRUE.equals(isOnline)) {
+        if (presenceService.isOnline(userId)) {
             messagingTemplate.convertAndSendToUser(
                     userId,
                     "/queue/" + event,
                     payload
             );
-            log.info("📤 Sent {} to user {}", event, userId);
-        } else {
+            if (pipelineRecorder.logEvents()) {
+                log.info("📤 Sent {} to user {}", event, userId);
+            }
+            return true;
+        }
+
+        if (pipelineRecorder.logEvents()) {
             log.info("👤 User {} is offline, notification stored in DB", userId);
         }
+        return false;
     }
 
+    /**
+     * Sends to every connected user on every node, not just this one's sessions.
+     */
     public void broadcastToAll(String event, Object payload) {
-        messagingTemplate.convertAndSend("/topic/" + event, payload);
-        log.info("📡 Broadcasted {} to all users", event);
+        broadcastService.broadcast(event, payload, BroadcastService.Segment.all());
     }
 
     public void addOnlineUser(String userId, String sessionId) {
-        redisTemplate.opsForSet().add(ONLINE_USERS_KEY, userId);
-        redisTemplate.opsForValue().set(SOCKET_PREFIX + userId, sessionId);
+        presenceService.sessionOpened(userId, sessionId);
         log.info("✅ User {} connected (session: {})", userId, sessionId);
     }
 
-    public void removeOnlineUser(String userId) {
-        redisTemplate.opsForSet().remove(ONLINE_USERS_KEY, userId);
-        redisTemplate.delete(SOCKET_PREFIX + userId);
-        log.info("❌ User {} disconnected", userId);
+    public void removeOnlineUser(String userId, String sessionId) {
+        if (presenceService.sessionClosed(userId, sessionId)) {
+            log.info("❌ User {} disconnected", userId);
+        } else {
+            log.info("➖ User {} closed session {}, other sessions still open", userId, sessionId);
+        }
     }
 
     public boolean isUserOnline(String userId) {
-        return Boolean.TRUE.equals(
-                redisTemplate.opsForSet().isMember(ONLINE_USERS_KEY, userId));
+        return presenceService.isOnline(userId);
     }
 
-    public Set<Object> getOnlineUsers() {
-        return redisTemplate.opsForSet().members(ONLINE_USERS_KEY);
+    /**
+     * Streams online user ids shard by shard; callers must close the stream.
+     */
+    public Stream<String> getOnlineUsers() {
+        return presenceService.onlineUsers();
     }
 }
\ No newline at end of file
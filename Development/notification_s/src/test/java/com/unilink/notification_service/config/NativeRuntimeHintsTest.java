@@ -0,0 +1,87 @@
+package com.unilink.notification_service.config;
+
+import com.unilink.notification_service.dto.ReadBatchRequest;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.UserPreferences;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the hand-kept part of {@link NativeRuntimeHints}: a new record anywhere in the
+ * service either gets a reflection hint or is listed here as never serialized.
+ */
+class NativeRuntimeHintsTest {
+
+    // Records that never leave the JVM as JSON or through a codec
+    private static final Set<String> INTERNAL_RECORDS = Set.of(
+            "com.unilink.notification_service.service.ActorDirectory$Actor",
+            "com.unilink.notification_service.service.EmailDigestService$Pending",
+            "com.unilink.notification_service.service.NotificationMessages$Template",
+            "com.unilink.notification_service.service.NotificationMessages$Templates",
+            "com.unilink.notification_service.service.NotificationQueueService$Routing",
+            "com.unilink.notification_service.service.PushDispatcher$Outgoing",
+            "com.unilink.notification_service.service.UserPreferencesService$CachedPreferences"
+    );
+
+    private static final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeAll
+    static void registerHints() {
+        new NativeRuntimeHints().registerHints(hints, NativeRuntimeHintsTest.class.getClassLoader());
+    }
+
+    @Test
+    void scannedPackagesAreRegisteredWithTheirNestedTypes() {
+        for (Class<?> type : List.of(Notification.class, Notification.NotificationType.class,
+                UserPreferences.QuietHours.class, ReadBatchRequest.class)) {
+            assertThat(RuntimeHintsPredicates.reflection().onType(type)).accepts(hints);
+        }
+    }
+
+    @Test
+    void everyRecordIsRegisteredOrKnownToBeInternal() throws ClassNotFoundException {
+        List<String> missing = new ArrayList<>();
+        for (String name : classesIn("com.unilink.notification_service")) {
+            Class<?> type = Class.forName(name, false, getClass().getClassLoader());
+            if (type.isRecord() && isMainCode(type) && !INTERNAL_RECORDS.contains(name)
+                    && !RuntimeHintsPredicates.reflection().onType(TypeReference.of(name)).test(hints)) {
+                missing.add(name);
+            }
+        }
+
+        assertThat(missing).as("records without a reflection hint; register them in NativeRuntimeHints "
+                + "or add them to INTERNAL_RECORDS").isEmpty();
+    }
+
+    private static List<String> classesIn(String basePackage) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definition) {
+                return definition.getMetadata().isIndependent();
+            }
+        };
+        scanner.addIncludeFilter((reader, factory) -> true);
+        return scanner.findCandidateComponents(basePackage).stream()
+                .map(BeanDefinition::getBeanClassName)
+                .toList();
+    }
+
+    // Test classes share the packages but not the output directory
+    private static boolean isMainCode(Class<?> type) {
+        return type.getProtectionDomain().getCodeSource().getLocation()
+                .equals(NativeRuntimeHints.class.getProtectionDomain().getCodeSource().getLocation());
+    }
+}
@@ -0,0 +1,53 @@
+package com.unilink.notification_service.load;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-capacity latency sink. Samples past capacity are counted but not kept.
+ */
+class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+
+    LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    void record(long latencyNanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = latencyNanos;
+        }
+    }
+
+    int count() {
+        return count.get();
+    }
+
+    Summary summarize() {
+        int n = Math.min(count.get(), samples.length);
+        long[] sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+        return new Summary(n, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), n > 0 ? sorted[n - 1] : 0);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    record Summary(int samples, long p50, long p99, long p999, long max) {
+
+        @Override
+        public String toString() {
+            return String.format("n=%d p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms",
+                    samples, p50 / 1e6, p99 / 1e6, p999 / 1e6, max / 1e6);
+        }
+    }
+}
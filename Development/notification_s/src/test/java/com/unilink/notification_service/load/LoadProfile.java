@@ -0,0 +1,94 @@
+package com.unilink.notification_service.load;
+
+import com.unilink.notification_service.config.NotificationChannels;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load parameters, read from {@code -Dload.*} system properties.
+ */
+class LoadProfile {
+
+    private static final String DEFAULT_MIX =
+            "like:30,message:20,profile-view:20,friend-post:20,friend-request:10";
+
+    final String redisHost = System.getProperty("load.redis.host", "127.0.0.1");
+    final int redisPort = Integer.getInteger("load.redis.port", 6390);
+    final String mongoUri = System.getProperty("load.mongo.uri", "mongodb://127.0.0.1:27030/notification_load");
+
+    final int users = Integer.getInteger("load.users", 1000);
+    final int clients = Integer.getInteger("load.clients", 200);
+    final int eventsPerSecond = Integer.getInteger("load.rate", 500);
+    final int durationSeconds = Integer.getInteger("load.duration", 60);
+    final int drainSeconds = Integer.getInteger("load.drain", 30);
+    final int actors = Integer.getInteger("load.actors", 200);
+
+    private final String[] channels;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    LoadProfile() {
+        Map<String, Integer> mix = parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+
+        channels = new String[mix.size()];
+        cumulativeWeights = new int[mix.size()];
+
+        int i = 0;
+        int sum = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            sum += entry.getValue();
+            channels[i] = channelFor(entry.getKey());
+            cumulativeWeights[i] = sum;
+            i++;
+        }
+        totalWeight = sum;
+
+        if (clients > users) {
+            throw new IllegalArgumentException("load.clients must not exceed load.users");
+        }
+    }
+
+    String nextChannel() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return channels[i];
+            }
+        }
+        return channels[channels.length - 1];
+    }
+
+    String describe() {
+        return String.format("users=%d clients=%d rate=%d/s duration=%ds mix=%s",
+                users, clients, eventsPerSecond, durationSeconds,
+                System.getProperty("load.mix", DEFAULT_MIX));
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                mix.put(kv[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mix must contain at least one positive weight");
+        }
+        return mix;
+    }
+
+    private static String channelFor(String type) {
+        return switch (type) {
+            case "like" -> NotificationChannels.LIKE;
+            case "message" -> NotificationChannels.MESSAGE;
+            case "profile-view" -> NotificationChannels.PROFILE_VIEW;
+            case "friend-post" -> NotificationChannels.FRIEND_POST;
+            case "friend-request" -> NotificationChannels.FRIEND_REQUEST;
+            default -> throw new IllegalArgumentException("Unknown notification type in load.mix: " + type);
+        };
+    }
+}
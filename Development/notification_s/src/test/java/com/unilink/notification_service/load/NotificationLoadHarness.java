@@ -0,0 +1,162 @@
+package com.unilink.notification_service.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unilink.notification_service.NotificationServiceApplication;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.bson.types.ObjectId;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load harness. Boots the service in-process against local Redis and Mongo
+ * stand-ins (see {@code load/run-local.sh}), connects simulated STOMP clients, publishes
+ * a synthetic event mix on the notification channels and reports throughput and
+ * publish-to-push latency.
+ *
+ * <pre>
+ * ./mvnw -Pload test-compile exec:exec -Dload.rate=2000 -Dload.duration=120
+ * </pre>
+ */
+public class NotificationLoadHarness {
+
+    private static final String JWT_SECRET = "load-harness-secret-load-harness-secret-0123456789";
+    private static final int RELATED_POSTS = 50;
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = new LoadProfile();
+        System.out.println("Load profile: " + profile.describe());
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NotificationServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.address=127.0.0.1",
+                        "spring.redis.host=" + profile.redisHost,
+                        "spring.redis.port=" + profile.redisPort,
+                        "spring.data.mongodb.uri=" + profile.mongoUri,
+                        "jwt.secret=" + JWT_SECRET,
+                        "logging.level.root=WARN",
+                        "logging.level.com.unilink=WARN")
+                .run(args);
+
+        try {
+            run(profile, context);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(LoadProfile profile, ConfigurableApplicationContext context) throws Exception {
+        String port = context.getEnvironment().getProperty("local.server.port");
+        String url = "ws://127.0.0.1:" + port + "/ws/websocket";
+
+        StringRedisTemplate redis = context.getBean(StringRedisTemplate.class);
+        MongoTemplate mongo = context.getBean(MongoTemplate.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        mongo.getDb().drop();
+
+        String[] userIds = new String[profile.users];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = new ObjectId().toHexString();
+        }
+        String[] actorIds = new String[profile.actors];
+        for (int i = 0; i < actorIds.length; i++) {
+            actorIds[i] = new ObjectId().toHexString();
+        }
+        String[] relatedIds = new String[RELATED_POSTS];
+        for (int i = 0; i < relatedIds.length; i++) {
+            relatedIds[i] = new ObjectId().toHexString();
+        }
+
+        long expectedSamples = (long) profile.eventsPerSecond * profile.durationSeconds;
+        LatencyRecorder recorder = new LatencyRecorder((int) Math.min(expectedSamples, 20_000_000L));
+        AtomicLong groupedUpdates = new AtomicLong();
+
+        // Users [0, clients) are online, the rest only exercise the offline path
+        List<SimulatedStompClient> clients = new ArrayList<>(profile.clients);
+        for (int i = 0; i < profile.clients; i++) {
+            SimulatedStompClient client = new SimulatedStompClient();
+            client.connect(url, tokenFor(userIds[i]), recorder, groupedUpdates);
+            clients.add(client);
+        }
+        System.out.printf("Connected %d STOMP clients%n", clients.size());
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.eventsPerSecond;
+        long published = 0;
+        long publishedToOnline = 0;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(profile.durationSeconds);
+        long next = start;
+
+        while (next < deadline) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int userIndex = random.nextInt(profile.users);
+
+            Map<String, Object> event = new HashMap<>();
+            event.put("userId", userIds[userIndex]);
+            event.put("actorId", actorIds[random.nextInt(actorIds.length)]);
+            event.put("actorName", "Load Actor");
+            event.put("relatedId", relatedIds[random.nextInt(relatedIds.length)]);
+            event.put("metadata", Map.of(SimulatedStompClient.SENT_AT_KEY, System.nanoTime()));
+
+            redis.convertAndSend(profile.nextChannel(), objectMapper.writeValueAsString(event));
+
+            published++;
+            if (userIndex < profile.clients) {
+                publishedToOnline++;
+            }
+            next += intervalNanos;
+        }
+        long publishEnd = System.nanoTime();
+
+        long drainDeadline = publishEnd + TimeUnit.SECONDS.toNanos(profile.drainSeconds);
+        while (recorder.count() + groupedUpdates.get() < publishedToOnline
+                && System.nanoTime() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        long end = System.nanoTime();
+
+        long delivered = recorder.count() + groupedUpdates.get();
+        long persisted = mongo.getCollection("notifications").countDocuments();
+        double publishSeconds = (publishEnd - start) / 1e9;
+        double totalSeconds = (end - start) / 1e9;
+
+        System.out.println();
+        System.out.printf("Published      %d events in %.1fs (%.0f events/s)%n",
+                published, publishSeconds, published / publishSeconds);
+        System.out.printf("Persisted      %d notification documents%n", persisted);
+        System.out.printf("Delivered      %d of %d pushes to online users (%d grouped updates) in %.1fs (%.0f pushes/s)%n",
+                delivered, publishedToOnline, groupedUpdates.get(), totalSeconds, delivered / totalSeconds);
+        System.out.printf("Latency (new)  %s%n", recorder.summarize());
+
+        for (SimulatedStompClient client : clients) {
+            client.disconnect();
+        }
+    }
+
+    private static String tokenFor(String userId) {
+        return Jwts.builder()
+                .claim("id", userId)
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,83 @@
+package com.unilink.notification_service.load;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One STOMP session for one user, subscribed to the same queues as the web client.
+ */
+class SimulatedStompClient {
+
+    static final String SENT_AT_KEY = "loadSentAt";
+
+    private final WebSocketStompClient stompClient;
+    private StompSession session;
+
+    SimulatedStompClient() {
+        this.stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    /**
+     * Latency is only taken from {@code notification:new}: a grouped update re-sends the
+     * original document, so its metadata still carries the first event's timestamp.
+     */
+    void connect(String url, String token, LatencyRecorder recorder, AtomicLong groupedUpdates)
+            throws Exception {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+
+        session = stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+
+        StompFrameHandler newHandler = new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                Object metadata = ((Map<String, Object>) payload).get("metadata");
+                if (metadata instanceof Map<?, ?> map && map.get(SENT_AT_KEY) instanceof Number sentAt) {
+                    recorder.record(System.nanoTime() - sentAt.longValue());
+                }
+            }
+        };
+
+        StompFrameHandler updatedHandler = new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                groupedUpdates.incrementAndGet();
+            }
+        };
+
+        session.subscribe("/user/queue/notification:new", newHandler);
+        session.subscribe("/user/queue/notification:updated", updatedHandler);
+    }
+
+    void disconnect() {
+        if (session != null && session.isConnected()) {
+            session.disconnect();
+        }
+        stompClient.stop();
+    }
+}
@@ -0,0 +1,178 @@
+package com.unilink.notification_service.repository;
+
+import com.unilink.notification_service.config.RetentionPolicy;
+import com.unilink.notification_service.config.RetentionProperties;
+import com.unilink.notification_service.dto.NotificationStatistics;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.NotificationBucket;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The bucketed storage engine against an in-memory Mongo server, with the entity indexes,
+ * including the unique partial index that allows one open bucket per user.
+ */
+class BucketedNotificationStoreTest {
+
+    private static final int BUCKET_SIZE = 3;
+
+    private static MongoStandIn mongo;
+
+    private BucketedNotificationStore store;
+
+    @BeforeAll
+    static void startMongo() {
+        mongo = new MongoStandIn();
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongo.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongo.clear();
+        store = new BucketedNotificationStore(mongo.template(), new RetentionPolicy(new RetentionProperties(), 90));
+        ReflectionTestUtils.setField(store, "bucketSize", BUCKET_SIZE);
+        ReflectionTestUtils.setField(store, "bucketSpanHours", 168L);
+    }
+
+    @Test
+    void aFullBucketIsSealedAndTheNextInsertOpensANewOne() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(store.insert(notification("u1", Notification.NotificationType.LIKE)).getId());
+        }
+
+        List<NotificationBucket> buckets = buckets("u1");
+        assertThat(buckets).extracting(NotificationBucket::getCount).containsExactly(1, 3, 3);
+        assertThat(buckets).extracting(NotificationBucket::getSealed).containsExactly(false, true, true);
+
+        List<String> inbox = store.findByUserId("u1", PageRequest.of(0, 10)).map(Notification::getId).getContent();
+        assertThat(inbox).containsExactlyElementsOf(ids.reversed());
+        assertThat(store.findByUserId("u1", PageRequest.of(1, 3)).map(Notification::getId).getContent())
+                .containsExactlyElementsOf(ids.reversed().subList(3, 6));
+        assertThat(store.countByUserIdAndRead("u1", false)).isEqualTo(7);
+    }
+
+    @Test
+    void anOpenBucketPastItsSpanIsSealedBeforeTheInsertIsRetried() {
+        // The upsert cannot match the stale bucket and collides with it on the open-bucket index
+        Notification old = notification("u1", Notification.NotificationType.LIKE);
+        old.setId(ObjectId.getSmallestWithDate(Date.from(Instant.now().minus(Duration.ofDays(8)))).toHexString());
+        store.insert(old);
+
+        Notification fresh = store.insert(notification("u1", Notification.NotificationType.LIKE));
+
+        List<NotificationBucket> buckets = buckets("u1");
+        assertThat(buckets).extracting(NotificationBucket::getCount).containsExactly(1, 1);
+        assertThat(buckets).extracting(NotificationBucket::getSealed).containsExactly(false, true);
+        assertThat(buckets.get(0).getMinId()).isEqualTo(new ObjectId(fresh.getId()));
+    }
+
+    @Test
+    void concurrentInsertsKeepOneOpenBucketAndEveryNotification() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Callable<Void>> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            writers.add(() -> {
+                for (int i = 0; i < 10; i++) {
+                    store.insert(notification("u1", Notification.NotificationType.MESSAGE));
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> done : executor.invokeAll(writers)) {
+                done.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<NotificationBucket> buckets = buckets("u1");
+        assertThat(buckets).filteredOn(bucket -> !bucket.getSealed()).hasSize(1);
+        assertThat(buckets).allSatisfy(bucket -> {
+            assertThat(bucket.getCount()).isBetween(1, BUCKET_SIZE);
+            assertThat(bucket.getItems()).hasSize(bucket.getCount());
+        });
+        assertThat(buckets.stream().mapToInt(NotificationBucket::getCount).sum()).isEqualTo(40);
+        assertThat(store.findByUserId("u1", PageRequest.of(0, 100)).getContent()).hasSize(40);
+    }
+
+    @Test
+    void markAsReadUpdatesTheItemAndTheCountersOfItsBucket() {
+        Notification first = store.insert(notification("u1", Notification.NotificationType.LIKE));
+        for (int i = 0; i < 4; i++) {
+            store.insert(notification("u1", Notification.NotificationType.LIKE));
+        }
+
+        // first sits in the sealed, older bucket
+        assertThat(store.markAsRead("u1", first.getId())).hasValueSatisfying(read -> assertThat(read.getRead()).isTrue());
+        assertThat(store.findById("u1", first.getId())).hasValueSatisfying(read -> assertThat(read.getRead()).isTrue());
+        assertThat(buckets("u1")).extracting(NotificationBucket::getUnreadCount).containsExactly(2, 2);
+        assertThat(store.countByUserIdAndRead("u1", false)).isEqualTo(4);
+        assertThat(store.countByUserIdAndRead("u1", true)).isEqualTo(1);
+
+        // Already read: nothing moves twice
+        store.markAsRead("u1", first.getId());
+        assertThat(store.countByUserIdAndRead("u1", false)).isEqualTo(4);
+        assertThat(store.findByUserIdAndRead("u1", true, PageRequest.of(0, 10)).map(Notification::getId).getContent())
+                .containsExactly(first.getId());
+        assertThat(store.markAsRead("u2", first.getId())).isEmpty();
+    }
+
+    @Test
+    void statisticsCountEveryTypeAndItsUnreadEntries() {
+        Notification like = store.insert(notification("u1", Notification.NotificationType.LIKE));
+        store.insert(notification("u1", Notification.NotificationType.LIKE));
+        store.insert(notification("u1", Notification.NotificationType.MESSAGE));
+        store.insert(notification("u1", Notification.NotificationType.FRIEND_REQUEST));
+        store.insert(notification("u2", Notification.NotificationType.LIKE));
+        store.markAsRead("u1", like.getId());
+
+        assertThat(store.getStatistics("u1"))
+                .extracting(NotificationStatistics::getType, NotificationStatistics::getCount, NotificationStatistics::getUnread)
+                .containsExactlyInAnyOrder(
+                        tuple("like", 2L, 1L),
+                        tuple("message", 1L, 1L),
+                        tuple("friend-request", 1L, 1L));
+    }
+
+    private static List<NotificationBucket> buckets(String userId) {
+        return mongo.template().find(Query.query(Criteria.where("userId").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "maxId")), NotificationBucket.class);
+    }
+
+    private static Notification notification(String userId, Notification.NotificationType type) {
+        return Notification.builder()
+                .userId(userId)
+                .type(type)
+                .actorId("a1")
+                .actorName("Grace")
+                .build();
+    }
+}
@@ -0,0 +1,247 @@
+package com.unilink.notification_service.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.unilink.notification_service.config.MongoConfig;
+
+import de.bwaldvogel.mongo.MongoCollection;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.CollectionOptions;
+import de.bwaldvogel.mongo.backend.CursorRegistry;
+import de.bwaldvogel.mongo.backend.DefaultQueryMatcher;
+import de.bwaldvogel.mongo.backend.Index;
+import de.bwaldvogel.mongo.backend.IndexKey;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import de.bwaldvogel.mongo.backend.memory.MemoryCollection;
+import de.bwaldvogel.mongo.backend.memory.MemoryDatabase;
+import de.bwaldvogel.mongo.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * A throwaway in-memory server speaking the Mongo wire protocol, with a template mapped the
+ * way {@link MongoConfig} maps the application's (enum codes, no type hints) and indexes
+ * created from the entity annotations. {@link #clear()} empties it between tests and keeps
+ * the indexes.
+ *
+ * Two gaps in the server are filled in here: it ignores {@code partialFilterExpression}, so
+ * {@link PartialIndex} restricts such an index to the matching documents, and a positional
+ * update does not find the element matched by an {@code $elemMatch} on documents, which
+ * {@link ElemMatchPositionMatcher} does.
+ */
+final class MongoStandIn implements AutoCloseable {
+
+    private final MongoServer server;
+    private final MongoClient client;
+    private final MongoTemplate template;
+
+    MongoStandIn() {
+        server = new MongoServer(new MemoryBackend() {
+            @Override
+            public MemoryDatabase openOrCreateDatabase(String databaseName) {
+                return new StandInDatabase(databaseName, getCursorRegistry());
+            }
+        });
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+
+        SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, "notification_test");
+        MongoConfig config = new MongoConfig();
+        MongoCustomConversions conversions = config.mongoCustomConversions();
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setAutoIndexCreation(true);
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = config.mappingMongoConverter(factory, mappingContext, conversions);
+        converter.afterPropertiesSet();
+        template = new MongoTemplate(factory, converter);
+    }
+
+    MongoTemplate template() {
+        return template;
+    }
+
+    void clear() {
+        for (String collection : template.getCollectionNames()) {
+            template.getCollection(collection).deleteMany(new org.bson.Document());
+        }
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        server.shutdown();
+    }
+
+    private static final class StandInDatabase extends MemoryDatabase {
+
+        // The index options are not passed down to openOrCreateUniqueIndex, only the name is
+        private Document pendingIndex;
+
+        StandInDatabase(String databaseName, CursorRegistry cursors) {
+            super(databaseName, cursors);
+        }
+
+        @Override
+        protected MemoryCollection openOrCreateCollection(String collectionName, CollectionOptions options) {
+            MemoryCollection collection = super.openOrCreateCollection(collectionName, options);
+            ReflectionTestUtils.setField(collection, "matcher", new ElemMatchPositionMatcher());
+            return collection;
+        }
+
+        @Override
+        protected void addIndex(Document description) {
+            pendingIndex = description;
+            try {
+                super.addIndex(description);
+            } finally {
+                pendingIndex = null;
+            }
+        }
+
+        @Override
+        protected Index<Integer> openOrCreateUniqueIndex(String collectionName, String indexName,
+                                                         List<IndexKey> keys, boolean sparse) {
+            Index<Integer> index = super.openOrCreateUniqueIndex(collectionName, indexName, keys, sparse);
+            Object filter = pendingIndex == null ? null : pendingIndex.get("partialFilterExpression");
+            return filter instanceof Document partial ? new PartialIndex<>(index, partial) : index;
+        }
+    }
+
+    /**
+     * Falls back to the first element matching a top-level {@code $elemMatch} when the server
+     * found no position; it only records one for elements equal to the whole sub-query.
+     */
+    private static final class ElemMatchPositionMatcher extends DefaultQueryMatcher {
+
+        @Override
+        public synchronized Integer matchPosition(Document document, Document query) {
+            Integer position = super.matchPosition(document, query);
+            if (position != null) {
+                return position;
+            }
+
+            for (String key : query.keySet()) {
+                if (query.get(key) instanceof Document condition
+                        && condition.get("$elemMatch") instanceof Document elemMatch
+                        && document.get(key) instanceof List<?> elements) {
+                    for (int i = 0; i < elements.size(); i++) {
+                        if (elements.get(i) instanceof Document element && new DefaultQueryMatcher().matches(element, elemMatch)) {
+                            return i;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Holds only the documents matching the filter. It never answers queries, which would
+     * otherwise only see those documents.
+     */
+    private static final class PartialIndex<P> extends Index<P> {
+
+        private final Index<P> index;
+        private final Document filter;
+
+        PartialIndex(Index<P> index, Document filter) {
+            // Sparse, so the server accepts documents it does not hold
+            super(index.getName(), index.getKeys(), true);
+            this.index = index;
+            this.filter = filter;
+        }
+
+        private boolean covers(Document document) {
+            return new DefaultQueryMatcher().matches(document, filter);
+        }
+
+        @Override
+        public P getPosition(Document document) {
+            return covers(document) ? index.getPosition(document) : null;
+        }
+
+        @Override
+        public void checkAdd(Document document, MongoCollection<P> collection) {
+            if (covers(document)) {
+                index.checkAdd(document, collection);
+            }
+        }
+
+        @Override
+        public void add(Document document, P position, MongoCollection<P> collection) {
+            if (covers(document)) {
+                index.add(document, position, collection);
+            }
+        }
+
+        @Override
+        public P remove(Document document) {
+            return covers(document) ? index.remove(document) : null;
+        }
+
+        @Override
+        public boolean canHandle(Document query) {
+            return false;
+        }
+
+        @Override
+        public Iterable<P> getPositions(Document query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getCount() {
+            return index.getCount();
+        }
+
+        @Override
+        public long getDataSize() {
+            return index.getDataSize();
+        }
+
+        @Override
+        public void checkUpdate(Document oldDocument,
+                                Document newDocument, MongoCollection<P> collection) {
+            if (covers(oldDocument) && covers(newDocument)) {
+                index.checkUpdate(oldDocument, newDocument, collection);
+            } else if (covers(newDocument)) {
+                index.checkAdd(newDocument, collection);
+            }
+        }
+
+        @Override
+        public void updateInPlace(Document oldDocument,
+                                  Document newDocument, P position,
+                                  MongoCollection<P> collection) {
+            boolean before = covers(oldDocument);
+            boolean after = covers(newDocument);
+            if (before && after) {
+                index.updateInPlace(oldDocument, newDocument, position, collection);
+            } else if (before) {
+                index.remove(oldDocument);
+            } else if (after) {
+                index.add(newDocument, position, collection);
+            }
+        }
+
+        @Override
+        public boolean isUnique() {
+            return index.isUnique();
+        }
+
+        @Override
+        public void drop() {
+            index.drop();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.AdmissionProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControllerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private AdmissionController admission;
+
+    @BeforeEach
+    void setUp() {
+        QueuePartitionManager partitionManager = mock(QueuePartitionManager.class);
+        when(partitionManager.totalDepth()).thenReturn(0L);
+
+        admission = new AdmissionController(new AdmissionProperties(), partitionManager, new SimpleMeterRegistry());
+        admission.nanoTime = now::get;
+    }
+
+    @Test
+    void slowPersistsRaiseTheLevel() {
+        admission.recordPersistLatency(TimeUnit.MILLISECONDS.toNanos(1500));
+        admission.refresh();
+
+        assertThat(admission.getLevel()).isEqualTo(AdmissionController.Level.CRITICAL);
+    }
+
+    @Test
+    void theLatencyHalvesEveryHalfLifeWithoutSamples() {
+        admission.recordPersistLatency(TimeUnit.MILLISECONDS.toNanos(1600));
+
+        advanceMs(5000);
+        assertThat(admission.persistLatencyNanos()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(800), within(1.0));
+        advanceMs(5000);
+        assertThat(admission.persistLatencyNanos()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(400), within(1.0));
+    }
+
+    @Test
+    void aQuietPipelineFallsBackToNormal() {
+        admission.recordPersistLatency(TimeUnit.MILLISECONDS.toNanos(1500));
+        admission.refresh();
+
+        advanceMs(10_000);
+        admission.refresh();
+        assertThat(admission.getLevel()).isEqualTo(AdmissionController.Level.ELEVATED);
+
+        advanceMs(20_000);
+        admission.refresh();
+        assertThat(admission.getLevel()).isEqualTo(AdmissionController.Level.NORMAL);
+    }
+
+    @Test
+    void newSamplesBlendWithTheDecayedAverage() {
+        admission.recordPersistLatency(TimeUnit.MILLISECONDS.toNanos(1000));
+        advanceMs(5000);
+
+        admission.recordPersistLatency(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        // 0.1 * 1000ms + 0.9 * 500ms
+        assertThat(admission.persistLatencyNanos()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(550), within(1.0));
+    }
+
+    private void advanceMs(long ms) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+}
@@ -0,0 +1,137 @@
+package com.unilink.notification_service.service;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Key layout of the grouping dedup window, and its Redis footprint against the string layout
+ * it replaced. Raise {@code -Dfootprint.keys} for a closer look at memory per key.
+ */
+class DeduplicationKeysTest {
+
+    private static final int FOOTPRINT_KEYS = Integer.getInteger("footprint.keys", 20_000);
+    private static final int PIPELINE = 10_000;
+
+    private static RedisStandIn redis;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = new RedisStandIn();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @Test
+    void keysAreTwentyBytesWhateverTheIds() {
+        String[] ids = ids(7);
+        byte[] key = DeduplicationKeys.key("like", ids[0], ids[1], ids[2]);
+
+        assertThat(key).hasSize(DeduplicationKeys.KEY_LENGTH).hasSize(20);
+        assertThat(new String(key, 0, 3, StandardCharsets.US_ASCII)).isEqualTo("nd:");
+        assertThat(DeduplicationKeys.key("friend-request", ids[0] + ids[0], null, "x")).hasSize(20);
+    }
+
+    @Test
+    void keysTellGroupsApart() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < FOOTPRINT_KEYS; i++) {
+            String[] ids = ids(i);
+            keys.add(new String(DeduplicationKeys.key("like", ids[0], ids[1], ids[2]), StandardCharsets.ISO_8859_1));
+        }
+        assertThat(keys).hasSize(FOOTPRINT_KEYS);
+
+        String[] ids = ids(1);
+        assertThat(DeduplicationKeys.key("like", ids[0], ids[1], ids[2]))
+                .isEqualTo(DeduplicationKeys.key("like", ids[0], ids[1], ids[2]))
+                .isNotEqualTo(DeduplicationKeys.key("profile-view", ids[0], ids[1], ids[2]))
+                .isNotEqualTo(DeduplicationKeys.key("like", ids[0], ids[1], null))
+                // Field boundaries count: ("ab", "c") is not ("a", "bc")
+                .isNotEqualTo(DeduplicationKeys.key("like", ids[0] + ids[1].charAt(0), ids[1].substring(1), ids[2]));
+        assertThat(DeduplicationKeys.foldKey(DeduplicationKeys.key("like", ids[0], ids[1], ids[2])))
+                .hasSize(20)
+                .isNotEqualTo(DeduplicationKeys.key("like", ids[0], ids[1], ids[2]));
+    }
+
+    @Test
+    void idsRoundTripAsTwelveBytes() {
+        String id = ids(3)[3];
+
+        assertThat(DeduplicationKeys.encodeId(id)).hasSize(12);
+        assertThat(DeduplicationKeys.decodeId(DeduplicationKeys.encodeId(id))).isEqualTo(id);
+        assertThat(DeduplicationKeys.decodeId(DeduplicationKeys.encodeId("legacy-id"))).isEqualTo("legacy-id");
+    }
+
+    @Test
+    void compactLayoutTakesLessRedisMemoryThanTheStringLayout() {
+        long legacy = footprint(i -> {
+            String[] ids = ids(i);
+            return new byte[][]{
+                    ("notification:dedup:like:" + ids[0] + ":" + ids[1] + ":" + ids[2]).getBytes(StandardCharsets.UTF_8),
+                    ("\"" + ids[3] + "\"").getBytes(StandardCharsets.UTF_8)
+            };
+        });
+        long compact = footprint(i -> {
+            String[] ids = ids(i);
+            return new byte[][]{DeduplicationKeys.key("like", ids[0], ids[1], ids[2]), new ObjectId(ids[3]).toByteArray()};
+        });
+
+        System.out.printf("%,d keys: string layout %.1f B/key, compact layout %.1f B/key%n",
+                FOOTPRINT_KEYS, (double) legacy / FOOTPRINT_KEYS, (double) compact / FOOTPRINT_KEYS);
+        // Key and value bytes shrink from 124 to 32; per-key allocator and dict overhead stays
+        assertThat(compact).isLessThan(legacy * 2 / 3);
+    }
+
+    private static long footprint(IntFunction<byte[][]> entry) {
+        return redis.template().execute((RedisCallback<Long>) connection -> {
+            connection.serverCommands().flushDb();
+            long before = usedMemory(connection);
+
+            for (int start = 0; start < FOOTPRINT_KEYS; start += PIPELINE) {
+                connection.openPipeline();
+                for (int i = start; i < Math.min(FOOTPRINT_KEYS, start + PIPELINE); i++) {
+                    byte[][] kv = entry.apply(i);
+                    connection.stringCommands().set(kv[0], kv[1], Expiration.seconds(3600),
+                            RedisStringCommands.SetOption.upsert());
+                }
+                connection.closePipeline();
+            }
+
+            long after = usedMemory(connection);
+            connection.serverCommands().flushDb();
+            return after - before;
+        });
+    }
+
+    private static long usedMemory(RedisConnection connection) {
+        Properties info = connection.serverCommands().info("memory");
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+    // Deterministic, ObjectId-shaped ids: user, actor, related post, notification
+    private static String[] ids(int i) {
+        return new String[]{
+                String.format("65a1f0c2%016x", i / 100),
+                String.format("65a1f0c3%016x", i),
+                String.format("65a1f0c4%016x", i % 5000),
+                String.format("65a1f0c5%016x", i)
+        };
+    }
+}
@@ -0,0 +1,241 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.UserPreferences;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Records and drains digests against a local Redis server, with preferences, read state and
+ * the mail sender stubbed.
+ */
+class EmailDigestServiceTest {
+
+    private static final long INTERVAL_SECONDS = 3600;
+    private static final Instant START = Instant.parse("2026-10-19T10:15:00Z");
+
+    private static RedisStandIn redis;
+
+    private final Map<String, UserPreferences> preferences = new HashMap<>();
+    private final Set<String> readIds = new HashSet<>();
+    private final List<DigestSender.Digest> sent = new CopyOnWriteArrayList<>();
+    private Predicate<DigestSender.Digest> rejects = digest -> false;
+
+    private EmailDigestService digests;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = new RedisStandIn();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+
+        UserPreferencesService preferencesService = mock(UserPreferencesService.class);
+        when(preferencesService.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<String, UserPreferences> found = new HashMap<>();
+            for (Object userId : invocation.<Collection<?>>getArgument(0)) {
+                found.put((String) userId, preferences.get(userId));
+            }
+            return found;
+        });
+
+        NotificationService notificationService = mock(NotificationService.class);
+        when(notificationService.unreadAmong(anyString(), anyCollection())).thenAnswer(invocation -> {
+            Set<String> unread = new HashSet<>();
+            for (Object id : invocation.<Collection<?>>getArgument(1)) {
+                if (!readIds.contains(id)) {
+                    unread.add((String) id);
+                }
+            }
+            return unread;
+        });
+
+        DigestSender sender = batch -> {
+            List<DigestSender.Digest> rejected = batch.stream().filter(rejects).toList();
+            batch.stream().filter(rejects.negate()).forEach(sent::add);
+            return rejected;
+        };
+
+        digests = new EmailDigestService(redis.template(), redis.redisson(), Jackson2ObjectMapperBuilder.json().build(),
+                preferencesService, notificationService, new NotificationMessages("en"), sender);
+        ReflectionTestUtils.setField(digests, "intervalSeconds", INTERVAL_SECONDS);
+        ReflectionTestUtils.setField(digests, "shards", 4);
+        ReflectionTestUtils.setField(digests, "lookbackBuckets", 3);
+        ReflectionTestUtils.setField(digests, "maxItems", 20);
+        ReflectionTestUtils.setField(digests, "chunkSize", 2);
+        ReflectionTestUtils.setField(digests, "sendBatchSize", 2);
+        ReflectionTestUtils.setField(digests, "sendThreads", 2);
+        digests.init();
+        at(START);
+    }
+
+    @AfterEach
+    void tearDown() {
+        digests.shutdown();
+    }
+
+    @Test
+    void notificationsAreMailedOnceTheirBucketHasClosed() {
+        emailOn("u1", "ada@example.com");
+        digests.record(notification("u1", "Grace"));
+        digests.record(notification("u1", "Alan"));
+
+        digests.drainClosedBuckets();
+        assertThat(sent).isEmpty();
+
+        at(START.plusSeconds(INTERVAL_SECONDS));
+        digests.drainClosedBuckets();
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).email()).isEqualTo("ada@example.com");
+        assertThat(sent.get(0).subject()).isEqualTo("You have 2 new notifications");
+        assertThat(sent.get(0).body()).contains("Grace", "Alan");
+
+        // Acknowledged: nothing is left to send again
+        digests.drainClosedBuckets();
+        assertThat(sent).hasSize(1);
+        assertThat(redis.template().keys("notification:digest:{*")).isEmpty();
+    }
+
+    @Test
+    void usersAreKeptUnderTheHashTagOfTheirBucketAndShard() {
+        List<String> users = List.of("u1", "u2", "u3", "u4", "u5", "u6");
+        for (String userId : users) {
+            emailOn(userId, userId + "@example.com");
+            digests.record(notification(userId, "Grace"));
+        }
+
+        long bucket = START.getEpochSecond() / INTERVAL_SECONDS;
+        assertThat(digests.currentBucket()).isEqualTo(bucket);
+        for (String userId : users) {
+            int shard = digests.shardOf(userId);
+            assertThat(shard).isBetween(0, 3);
+            assertThat(redis.template().opsForSet().isMember(EmailDigestService.key(bucket, shard, "users"), userId)).isTrue();
+            assertThat(redis.template().hasKey(EmailDigestService.key(bucket, shard, "items:" + userId))).isTrue();
+            assertThat(redis.template().opsForValue().get(EmailDigestService.key(bucket, shard, "count:" + userId))).isEqualTo("1");
+        }
+        assertThat(EmailDigestService.key(bucket, 2, "items:u1")).startsWith("notification:digest:{" + bucket + ":2}:");
+
+        // Chunks of two users and batches of two digests still reach everyone exactly once
+        at(START.plusSeconds(INTERVAL_SECONDS));
+        digests.drainClosedBuckets();
+        assertThat(sent).extracting(DigestSender.Digest::userId).containsExactlyInAnyOrderElementsOf(users);
+    }
+
+    @Test
+    void aRejectedDigestStaysPendingWithItsTotalWhileAcceptedOnesAreNotResent() {
+        ReflectionTestUtils.setField(digests, "maxItems", 1);
+        emailOn("u1", "ada@example.com");
+        emailOn("u2", "grace@example.com");
+        digests.record(notification("u1", "Grace"));
+        digests.record(notification("u1", "Alan"));
+        digests.record(notification("u1", "Edsger"));
+        digests.record(notification("u2", "Ada"));
+
+        at(START.plusSeconds(INTERVAL_SECONDS));
+        rejects = digest -> digest.userId().equals("u1");
+        digests.drainClosedBuckets();
+        assertThat(sent).extracting(DigestSender.Digest::userId).containsExactly("u2");
+
+        rejects = digest -> false;
+        digests.drainClosedBuckets();
+
+        assertThat(sent).extracting(DigestSender.Digest::userId).containsExactly("u2", "u1");
+        DigestSender.Digest retried = sent.get(1);
+        assertThat(retried.subject()).isEqualTo("You have 3 new notifications");
+        assertThat(retried.body()).contains("...and 2 more");
+    }
+
+    @Test
+    void preferencesAreCheckedAgainWhenTheDigestIsSent() {
+        emailOn("u1", "ada@example.com");
+        digests.record(notification("u1", "Grace"));
+
+        preferences.get("u1").setEmailNotifications(false);
+        at(START.plusSeconds(INTERVAL_SECONDS));
+        digests.drainClosedBuckets();
+
+        assertThat(sent).isEmpty();
+        assertThat(redis.template().keys("notification:digest:{*")).isEmpty();
+    }
+
+    @Test
+    void itemsReadSinceTheyWereRecordedAreLeftOut() {
+        emailOn("u1", "ada@example.com");
+        emailOn("u2", "grace@example.com");
+        Notification read = notification("u1", "Grace");
+        digests.record(read);
+        digests.record(notification("u1", "Alan"));
+        Notification readByU2 = notification("u2", "Ada");
+        digests.record(readByU2);
+
+        readIds.add(read.getId());
+        readIds.add(readByU2.getId());
+        at(START.plusSeconds(INTERVAL_SECONDS));
+        digests.drainClosedBuckets();
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).subject()).isEqualTo("You have 1 new notification");
+        assertThat(sent.get(0).body()).contains("Alan").doesNotContain("Grace");
+    }
+
+    @Test
+    void usersWithoutEmailAreNotRecorded() {
+        preferences.put("u1", UserPreferences.createDefault("u1"));
+        digests.record(notification("u1", "Grace"));
+
+        assertThat(redis.template().keys("notification:digest:{*")).isEmpty();
+    }
+
+    private void at(Instant now) {
+        digests.clock = Clock.fixed(now, ZoneOffset.UTC);
+    }
+
+    private void emailOn(String userId, String email) {
+        UserPreferences prefs = UserPreferences.createDefault(userId);
+        prefs.setEmail(email);
+        preferences.put(userId, prefs);
+    }
+
+    private static Notification notification(String userId, String actorName) {
+        return Notification.builder()
+                .id(new ObjectId().toHexString())
+                .userId(userId)
+                .type(Notification.NotificationType.LIKE)
+                .actorName(actorName)
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.unilink.notification_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Sends pushes through {@link HttpPushProvider} to an in-process HTTP server standing in for
+ * the push gateway.
+ */
+class HttpPushProviderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer gateway;
+    private HttpPushProvider provider;
+
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> response = new AtomicReference<>("");
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+    private final AtomicReference<String> receivedAuthorization = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gateway = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        gateway.createContext("/push", exchange -> {
+            receivedBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            receivedAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+
+            byte[] body = response.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        gateway.start();
+
+        provider = new HttpPushProvider(objectMapper, "default",
+                "http://127.0.0.1:" + gateway.getAddress().getPort() + "/push", "secret",
+                500, 4, 2000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        gateway.stop(0);
+    }
+
+    @Test
+    void postsTheBatchAndReturnsInvalidTokens() throws Exception {
+        response.set("{\"invalidTokens\":[\"t2\"]}");
+
+        PushProvider.PushResult result = provider.send(List.of(
+                new PushProvider.PushMessage(List.of("t1", "t2"), "UniLink", "Ada liked your post",
+                        "like:p1", Map.of("notificationId", "n1")),
+                new PushProvider.PushMessage(List.of("t3"), "UniLink", "Grace sent you a message",
+                        "message:n2", Map.of("notificationId", "n2"))
+        )).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.invalidTokens()).containsExactly("t2");
+        assertThat(receivedAuthorization.get()).isEqualTo("Bearer secret");
+
+        JsonNode messages = objectMapper.readTree(receivedBody.get()).path("messages");
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).path("collapseKey").asText()).isEqualTo("like:p1");
+        assertThat(messages.get(0).path("tokens")).hasSize(2);
+        assertThat(messages.get(1).path("body").asText()).isEqualTo("Grace sent you a message");
+    }
+
+    @Test
+    void failsWhenTheGatewayRejectsTheBatch() {
+        status.set(503);
+
+        assertThatThrownBy(() -> provider.send(List.of(
+                new PushProvider.PushMessage(List.of("t1"), "UniLink", "Ada liked your post",
+                        "like:p1", Map.of())
+        )).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("503");
+    }
+}
@@ -0,0 +1,132 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.Notification;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the cache scripts against a local Redis server, in particular the generation check
+ * that drops a warm-up which raced a mutation.
+ */
+class InboxCacheServiceTest {
+
+    private static final Instant START = Instant.parse("2026-10-19T10:15:00Z");
+
+    private static RedisStandIn redis;
+
+    private InboxCacheService cache;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = new RedisStandIn();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+
+        cache = new InboxCacheService(redis.template(), Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxItems", 3);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+    }
+
+    @Test
+    void aWarmUpAtTheCurrentGenerationServesTheFirstPage() {
+        List<Notification> newest = notifications(3);
+
+        cache.populate("u1", cache.currentGeneration("u1"), newest, 10);
+
+        assertThat(idsOf(cache.readFirstPage("u1", PageRequest.of(0, 2)).orElseThrow()))
+                .containsExactly(newest.get(0).getId(), newest.get(1).getId());
+        assertThat(cache.readFirstPage("u1", PageRequest.of(0, 3)).orElseThrow().getTotalElements()).isEqualTo(10);
+    }
+
+    @Test
+    void aWarmUpThatRacedAMutationIsDropped() {
+        List<Notification> newest = notifications(3);
+        String generation = cache.currentGeneration("u1");
+
+        // Lands while the warm-up is reading Mongo; the cache is still cold, so only the generation moves
+        cache.add(notification(99));
+        cache.populate("u1", generation, newest, 3);
+
+        assertThat(cache.readFirstPage("u1", PageRequest.of(0, 3))).isEmpty();
+        assertThat(redis.template().hasKey("notification:inbox:{u1}:meta")).isFalse();
+
+        cache.populate("u1", cache.currentGeneration("u1"), newest, 3);
+        assertThat(cache.readFirstPage("u1", PageRequest.of(0, 3))).isPresent();
+    }
+
+    @Test
+    void addsToAWarmCacheKeepOnlyTheNewestAndCountEveryOne() {
+        cache.populate("u1", cache.currentGeneration("u1"), notifications(3), 3);
+
+        Notification newer = notification(10);
+        Notification newest = notification(11);
+        cache.add(newer);
+        cache.add(newest);
+
+        Page<Notification> page = cache.readFirstPage("u1", PageRequest.of(0, 3)).orElseThrow();
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(idsOf(page)).hasSize(3).startsWith(newest.getId(), newer.getId());
+        assertThat(redis.template().opsForHash().size("notification:inbox:{u1}:items")).isEqualTo(3);
+    }
+
+    @Test
+    void aRemovedEntryLeavesTheWindowShortSoMongoAnswers() {
+        List<Notification> newest = notifications(3);
+        cache.populate("u1", cache.currentGeneration("u1"), newest, 5);
+
+        cache.remove("u1", newest.get(0).getId());
+
+        assertThat(cache.readFirstPage("u1", PageRequest.of(0, 3))).isEmpty();
+        assertThat(cache.readFirstPage("u1", PageRequest.of(0, 2)).orElseThrow().getTotalElements()).isEqualTo(4);
+    }
+
+    private static List<String> idsOf(Page<Notification> page) {
+        return page.getContent().stream().map(Notification::getId).toList();
+    }
+
+    // Newest first, as the store returns them
+    private static List<Notification> notifications(int count) {
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = count - 1; i >= 0; i--) {
+            notifications.add(notification(i));
+        }
+        return notifications;
+    }
+
+    // The id carries the creation time, which orders the cached window
+    private static Notification notification(int secondsAfterStart) {
+        return Notification.builder()
+                .id(new ObjectId(Date.from(START.plusSeconds(secondsAfterStart))).toHexString())
+                .userId("u1")
+                .type(Notification.NotificationType.LIKE)
+                .actorId("a1")
+                .actorName("Grace")
+                .message("liked your post")
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.RateLimitProperties;
+import com.unilink.notification_service.dto.NotificationEventData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the per-actor window script against a local Redis server, and the in-process pair
+ * buckets in front of it.
+ */
+class NotificationRateLimiterTest {
+
+    private static RedisStandIn redis;
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationRateLimiter limiter;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = new RedisStandIn();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        redis.flush();
+        properties.getTypes().put("like", limit);
+        limiter = new NotificationRateLimiter(properties, redis.template(), meterRegistry);
+
+        // The window is the wall-clock minute; keep a test from straddling two of them
+        long intoMinute = System.currentTimeMillis() % TimeUnit.MINUTES.toMillis(1);
+        if (intoMinute > TimeUnit.SECONDS.toMillis(55)) {
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1) - intoMinute + 100);
+        }
+    }
+
+    @Test
+    void anActorIsRejectedPastItsLimitAcrossRecipients() {
+        limit.setActorPerMinute(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.check(event("u" + i))).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+        }
+        assertThat(limiter.check(event("u3"))).isEqualTo(NotificationRateLimiter.Decision.OVER_LIMIT);
+        assertThat(limiter.check(event("u0"))).isEqualTo(NotificationRateLimiter.Decision.OVER_LIMIT);
+
+        assertThat(exceeded("actor")).isEqualTo(2);
+        Set<String> windows = redis.template().keys("notification:ratelimit:actor:like:a1:*");
+        assertThat(windows).hasSize(1);
+        // Set by the first event of the window only
+        assertThat(redis.template().getExpire(windows.iterator().next(), TimeUnit.MILLISECONDS))
+                .isPositive()
+                .isLessThanOrEqualTo(TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @Test
+    void aFanOutGetsWhatIsLeftOfTheWindowInOrder() {
+        limit.setActorPerMinute(5);
+        assertThat(limiter.check(event("u0"))).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+
+        List<NotificationEventData> events = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            events.add(event("u" + i));
+        }
+
+        assertThat(limiter.checkFanOut(events)).containsExactlyElementsOf(events.subList(0, 4));
+        assertThat(exceeded("actor")).isEqualTo(2);
+        assertThat(limiter.checkFanOut(List.of(event("u7")))).isEmpty();
+    }
+
+    @Test
+    void otherActorsAndTypesHaveTheirOwnWindows() {
+        limit.setActorPerMinute(1);
+
+        assertThat(limiter.check(event("u1"))).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+
+        NotificationEventData otherActor = event("u1");
+        otherActor.setActorId("a2");
+        assertThat(limiter.check(otherActor)).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+
+        NotificationEventData unlimitedType = event("u1");
+        unlimitedType.setType("message");
+        assertThat(limiter.check(unlimitedType)).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+
+        assertThat(limiter.check(event("u2"))).isEqualTo(NotificationRateLimiter.Decision.OVER_LIMIT);
+    }
+
+    @Test
+    void aPairIsRejectedOnceItsBurstIsSpent() {
+        limit.setPairBurst(2);
+        limit.setPairPerMinute(1);
+
+        assertThat(limiter.check(event("u1"))).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+        assertThat(limiter.check(event("u1"))).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+        assertThat(limiter.check(event("u1"))).isEqualTo(NotificationRateLimiter.Decision.OVER_LIMIT);
+        assertThat(limiter.check(event("u2"))).isEqualTo(NotificationRateLimiter.Decision.ALLOW);
+
+        assertThat(exceeded("pair")).isEqualTo(1);
+    }
+
+    private double exceeded(String scope) {
+        return meterRegistry.counter("notification.ratelimit.exceeded", "type", "like", "scope", scope).count();
+    }
+
+    private static NotificationEventData event(String userId) {
+        NotificationEventData data = new NotificationEventData();
+        data.setUserId(userId);
+        data.setActorId("a1");
+        data.setType("like");
+        return data;
+    }
+}
@@ -0,0 +1,96 @@
+package com.unilink.notification_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PushCircuitBreakerTest {
+
+    private static final long OPEN_MS = 1000;
+
+    private final AtomicLong now = new AtomicLong(10_000);
+    private final PushCircuitBreaker breaker = new PushCircuitBreaker(3, OPEN_MS, now::get);
+
+    @Test
+    void opensAfterTheThresholdOfFailuresInARow() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void letsOneTrialThroughOnceOpenMsHasPassed() {
+        open();
+
+        now.addAndGet(OPEN_MS - 1);
+        assertThat(breaker.allowRequest()).isFalse();
+
+        now.addAndGet(1);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void aSuccessfulTrialClosesIt() {
+        open();
+        now.addAndGet(OPEN_MS);
+        breaker.allowRequest();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void aFailedTrialReopensItForAnotherOpenMs() {
+        open();
+        now.addAndGet(OPEN_MS);
+        breaker.allowRequest();
+
+        breaker.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+        now.addAndGet(OPEN_MS);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void aRejectedTrialMakesTheNextRequestTheTrial() {
+        open();
+        now.addAndGet(OPEN_MS);
+        breaker.allowRequest();
+
+        breaker.onRejected();
+
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void rejectionsWhileClosedDoNotCount() {
+        for (int i = 0; i < 10; i++) {
+            breaker.onRejected();
+        }
+
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.CLOSED);
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+}
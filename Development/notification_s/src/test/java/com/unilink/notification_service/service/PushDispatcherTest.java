@@ -0,0 +1,227 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.DeviceToken;
+import com.unilink.notification_service.model.Notification;
+import com.unilink.notification_service.model.UserPreferences;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dispatches pushes against a local Redis server and a recording provider, with preferences
+ * and the token registry stubbed.
+ */
+class PushDispatcherTest {
+
+    private static RedisStandIn redis;
+
+    private final List<List<PushProvider.PushMessage>> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, UserPreferences> preferences = new HashMap<>();
+    private final Map<String, List<DeviceToken>> devices = new HashMap<>();
+    private CompletableFuture<PushProvider.PushResult> outcome;
+
+    private PushDispatcher dispatcher;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = new RedisStandIn();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+        outcome = CompletableFuture.completedFuture(new PushProvider.PushResult(List.of()));
+
+        UserPreferencesService preferencesService = mock(UserPreferencesService.class);
+        when(preferencesService.getCached(anyString())).thenAnswer(invocation -> prefsOf(invocation.getArgument(0)));
+        when(preferencesService.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<String, UserPreferences> found = new HashMap<>();
+            for (Object userId : invocation.<Collection<?>>getArgument(0)) {
+                found.put((String) userId, prefsOf((String) userId));
+            }
+            return found;
+        });
+
+        DeviceTokenService deviceTokenService = mock(DeviceTokenService.class);
+        when(deviceTokenService.tokensFor(anyCollection())).thenAnswer(invocation -> {
+            Map<String, List<DeviceToken>> found = new HashMap<>();
+            for (Object userId : invocation.<Collection<?>>getArgument(0)) {
+                if (devices.containsKey(userId)) {
+                    found.put((String) userId, devices.get(userId));
+                }
+            }
+            return found;
+        });
+
+        PushProvider provider = new PushProvider() {
+            @Override
+            public String name() {
+                return "default";
+            }
+
+            @Override
+            public int maxTokensPerRequest() {
+                return 3;
+            }
+
+            @Override
+            public CompletableFuture<PushResult> send(List<PushMessage> messages) {
+                requests.add(messages);
+                return outcome;
+            }
+        };
+
+        dispatcher = new PushDispatcher(redis.template(), preferencesService, deviceTokenService,
+                new NotificationMessages("en"), List.of(provider));
+        ReflectionTestUtils.setField(dispatcher, "maxPending", 100);
+        ReflectionTestUtils.setField(dispatcher, "collapseWindowSeconds", 300L);
+        ReflectionTestUtils.setField(dispatcher, "failureThreshold", 2);
+        ReflectionTestUtils.setField(dispatcher, "openMs", 60_000L);
+        device("u1", "t1");
+    }
+
+    @Test
+    void chunksPackMessagesAndSplitOnesLargerThanARequest() {
+        List<List<PushDispatcher.Outgoing>> requests = PushDispatcher.chunk(List.of(
+                outgoing("w1", "a", "b"),
+                outgoing("w2", "c", "d", "e", "f", "g"),
+                outgoing("w3", "h")
+        ), 3);
+
+        assertThat(requests).hasSize(3);
+        assertThat(tokensOf(requests.get(0))).containsExactly(List.of("a", "b"), List.of("c"));
+        assertThat(tokensOf(requests.get(1))).containsExactly(List.of("d", "e", "f"));
+        assertThat(tokensOf(requests.get(2))).containsExactly(List.of("g"), List.of("h"));
+        // Every part of a split message still claims its user's window
+        assertThat(requests.get(1).get(0).window()).isEqualTo("w2");
+        assertThat(requests.get(2).get(0).window()).isEqualTo("w2");
+    }
+
+    @Test
+    void groupedUpdatesStaySilentOnceTheirGroupWasPushed() {
+        dispatcher.dispatch(like("u1", "p1"), false);
+        dispatcher.flush();
+        assertThat(requests).hasSize(1);
+
+        dispatcher.dispatch(like("u1", "p1"), true);
+        dispatcher.flush();
+        assertThat(requests).hasSize(1);
+
+        // Another group, or a new notification of the same one, is still pushed
+        dispatcher.dispatch(like("u1", "p2"), true);
+        dispatcher.dispatch(like("u1", "p1"), false);
+        dispatcher.flush();
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1)).hasSize(2);
+    }
+
+    @Test
+    void aPushThatFailedClaimsNoWindow() {
+        outcome = CompletableFuture.failedFuture(new IllegalStateException("gateway down"));
+        dispatcher.dispatch(like("u1", "p1"), false);
+        dispatcher.flush();
+
+        outcome = CompletableFuture.completedFuture(new PushProvider.PushResult(List.of()));
+        dispatcher.dispatch(like("u1", "p1"), true);
+        dispatcher.flush();
+
+        assertThat(requests).hasSize(2);
+    }
+
+    @Test
+    void aRejectedTrialDoesNotLeaveTheProviderStuck() {
+        outcome = CompletableFuture.failedFuture(new IllegalStateException("gateway down"));
+        for (int i = 0; i < 2; i++) {
+            dispatcher.dispatch(like("u1", "p" + i), false);
+            dispatcher.flush();
+        }
+        PushCircuitBreaker breaker = breaker();
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.OPEN);
+
+        ReflectionTestUtils.setField(breaker, "openedAt", 0L);
+        outcome = CompletableFuture.failedFuture(new RejectedExecutionException("too many pushes in flight"));
+        dispatcher.dispatch(like("u1", "p2"), false);
+        dispatcher.flush();
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.OPEN);
+
+        outcome = CompletableFuture.completedFuture(new PushProvider.PushResult(List.of()));
+        dispatcher.dispatch(like("u1", "p3"), false);
+        dispatcher.flush();
+        assertThat(breaker.state()).isEqualTo(PushCircuitBreaker.State.CLOSED);
+        assertThat(requests).hasSize(4);
+    }
+
+    @Test
+    void usersWithPushOffAreSkipped() {
+        prefsOf("u2").setPushNotifications(false);
+        device("u2", "t2");
+
+        dispatcher.dispatchAll(List.of(like("u1", "p1"), like("u2", "p1")));
+        dispatcher.flush();
+
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0)).extracting(PushProvider.PushMessage::tokens).containsExactly(List.of("t1"));
+    }
+
+    private UserPreferences prefsOf(String userId) {
+        return preferences.computeIfAbsent(userId, UserPreferences::createDefault);
+    }
+
+    @SuppressWarnings("unchecked")
+    private PushCircuitBreaker breaker() {
+        Map<String, PushCircuitBreaker> breakers = (Map<String, PushCircuitBreaker>) ReflectionTestUtils.getField(dispatcher, "breakers");
+        return breakers.get("default");
+    }
+
+    private void device(String userId, String token) {
+        DeviceToken device = new DeviceToken();
+        device.setUserId(userId);
+        device.setToken(token);
+        device.setProvider("default");
+        devices.computeIfAbsent(userId, id -> new ArrayList<>()).add(device);
+    }
+
+    private static List<List<String>> tokensOf(List<PushDispatcher.Outgoing> request) {
+        return request.stream().map(outgoing -> outgoing.message().tokens()).toList();
+    }
+
+    private static PushDispatcher.Outgoing outgoing(String window, String... tokens) {
+        return new PushDispatcher.Outgoing(window,
+                new PushProvider.PushMessage(List.of(tokens), "UniLink", "Ada liked your post", "like:p1", Map.of()));
+    }
+
+    private static Notification like(String userId, String postId) {
+        return Notification.builder()
+                .id(new ObjectId().toHexString())
+                .userId(userId)
+                .type(Notification.NotificationType.LIKE)
+                .actorName("Ada")
+                .relatedId(postId)
+                .build();
+    }
+}
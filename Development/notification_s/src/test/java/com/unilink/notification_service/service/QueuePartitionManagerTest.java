@@ -0,0 +1,130 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.config.NodeIdentity;
+import com.unilink.notification_service.dto.NotificationEventData;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RDeque;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drains partitions against a local Redis server, so the batch script runs with the queue's
+ * own codec.
+ */
+class QueuePartitionManagerTest {
+
+    private static RedisStandIn redis;
+
+    private QueuePartitionManager manager;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = new RedisStandIn();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+
+        manager = new QueuePartitionManager(redis.redisson(), new NodeIdentity("node-1"));
+        ReflectionTestUtils.setField(manager, "partitions", 2);
+        ReflectionTestUtils.setField(manager, "rebalanceMs", 60000L);
+        ReflectionTestUtils.setField(manager, "memberTtlMs", 60000L);
+        ReflectionTestUtils.setField(manager, "batchSize", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void queuedEventsAreHandledInOrderAndAcknowledged() throws InterruptedException {
+        List<String> queued = List.of("n1", "n2", "n3", "n4", "n5", "n6", "n7");
+        for (String message : queued) {
+            manager.queueFor("u1").offer(event("u1", message));
+        }
+
+        List<String> handled = startCollecting(queued.size());
+
+        // More than one batch of three, all well within the one-second blocking fallback
+        assertThat(handled).containsExactlyElementsOf(queued);
+        assertThat(manager.totalDepth()).isZero();
+        awaitAcknowledged("u1");
+    }
+
+    @Test
+    void unacknowledgedEventsAreReplayedBeforeNewOnes() throws InterruptedException {
+        RDeque<NotificationEventData> processing = redis.redisson().getDeque(processingList("u1"));
+        processing.add(event("u1", "left-1"));
+        processing.add(event("u1", "left-2"));
+        manager.queueFor("u1").offer(event("u1", "new-1"));
+        manager.queueFor("u1").offer(event("u1", "new-2"));
+
+        List<String> handled = startCollecting(4);
+
+        assertThat(handled).containsExactly("left-1", "left-2", "new-1", "new-2");
+        awaitAcknowledged("u1");
+    }
+
+    @Test
+    void eventsInTheLegacyQueueMoveToTheirPartition() throws InterruptedException {
+        redis.redisson().<NotificationEventData>getQueue(QueuePartitionManager.LEGACY_QUEUE).offer(event("u1", "old"));
+
+        List<String> handled = startCollecting(1);
+
+        assertThat(handled).containsExactly("old");
+        assertThat(redis.redisson().getQueue(QueuePartitionManager.LEGACY_QUEUE).isEmpty()).isTrue();
+    }
+
+    private List<String> startCollecting(int expected) throws InterruptedException {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(expected);
+        manager.start(data -> {
+            handled.add(data.getMessage());
+            done.countDown();
+        });
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        return handled;
+    }
+
+    // An event is acknowledged just after its handler returns, so the last one may still be in flight
+    private void awaitAcknowledged(String userId) throws InterruptedException {
+        RDeque<NotificationEventData> processing = redis.redisson().getDeque(processingList(userId));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!processing.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(processing.isEmpty()).isTrue();
+    }
+
+    private String processingList(String userId) {
+        return "notifications:queue:{" + manager.partitionOf(userId) + "}:processing";
+    }
+
+    private static NotificationEventData event(String userId, String message) {
+        NotificationEventData data = new NotificationEventData();
+        data.setUserId(userId);
+        data.setType("like");
+        data.setMessage(message);
+        return data;
+    }
+}
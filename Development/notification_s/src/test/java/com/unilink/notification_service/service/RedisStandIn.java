@@ -0,0 +1,71 @@
+package com.unilink.notification_service.service;
+
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+/**
+ * A throwaway local Redis server with the clients the services use, so tests run their real
+ * scripts and pipelines. Starts empty; {@link #flush()} empties it between tests.
+ */
+final class RedisStandIn implements AutoCloseable {
+
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+    private final StringRedisTemplate template;
+    private RedissonClient redisson;
+    private final int port;
+
+    RedisStandIn() throws IOException {
+        port = freePort();
+        server = new RedisServer(port);
+        server.start();
+
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", port);
+        connectionFactory.afterPropertiesSet();
+        template = new StringRedisTemplate(connectionFactory);
+    }
+
+    StringRedisTemplate template() {
+        return template;
+    }
+
+    synchronized RedissonClient redisson() {
+        if (redisson == null) {
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+            redisson = Redisson.create(config);
+        }
+        return redisson;
+    }
+
+    void flush() {
+        template.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (redisson != null) {
+            redisson.shutdown();
+        }
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.unilink.notification_service.service;
+
+import com.unilink.notification_service.model.Notification;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The document conversion the compact schema migration applies to every legacy notification.
+ */
+class SchemaMigrationServiceTest {
+
+    private static final ObjectId ID = new ObjectId();
+    private static final Date EXPIRES_AT = new Date(1_800_000_000_000L);
+    private static final Date UPDATED_AT = new Date(1_700_000_000_000L);
+
+    @Test
+    void legacyFieldsAreRenamedToTheirAliases() {
+        Document compact = SchemaMigrationService.compact(legacy()
+                .append("type", "LIKE")
+                .append("priority", "HIGH"));
+
+        assertThat(compact).isEqualTo(new Document("_id", ID)
+                .append("u", "u1")
+                .append("t", Notification.NotificationType.LIKE.getCode())
+                .append("a", "a1")
+                .append("an", "Grace")
+                .append("ap", "grace.png")
+                .append("r", "post-1")
+                .append("m", "liked your post")
+                .append("rd", false)
+                .append("p", Notification.Priority.HIGH.getCode())
+                .append("md", new Document("source", "web"))
+                .append("x", EXPIRES_AT)
+                .append("ua", UPDATED_AT));
+    }
+
+    @Test
+    void typeAndPriorityNamesBecomeTheirCodes() {
+        Document compact = SchemaMigrationService.compact(legacy()
+                .append("type", "FRIEND_REQUEST")
+                .append("priority", "LOW"));
+
+        assertThat(compact.get("t")).isEqualTo(5);
+        assertThat(compact.get("p")).isEqualTo(3);
+    }
+
+    @Test
+    void mediumPriorityIsNotStored() {
+        Document compact = SchemaMigrationService.compact(legacy()
+                .append("type", "MESSAGE")
+                .append("priority", "MEDIUM"));
+
+        assertThat(compact).doesNotContainKey("p").doesNotContainKey("priority");
+    }
+
+    @Test
+    void groupCountMovesOutOfMetadata() {
+        Document grouped = legacy().append("type", "LIKE");
+        grouped.get("metadata", Document.class).append("groupCount", 4);
+        Document single = legacy().append("type", "LIKE");
+        single.get("metadata", Document.class).append("groupCount", 1);
+
+        Document compact = SchemaMigrationService.compact(grouped);
+        assertThat(compact.get("gc")).isEqualTo(4);
+        assertThat(compact.get("md", Document.class)).isEqualTo(new Document("source", "web"));
+
+        Document ungrouped = SchemaMigrationService.compact(single);
+        assertThat(ungrouped).doesNotContainKey("gc");
+        assertThat(ungrouped.get("md", Document.class)).isEqualTo(new Document("source", "web"));
+    }
+
+    @Test
+    void createdAtIsDropped() {
+        Document compact = SchemaMigrationService.compact(legacy()
+                .append("type", "LIKE")
+                .append("createdAt", new Date()));
+
+        assertThat(compact).doesNotContainKey("createdAt");
+    }
+
+    @Test
+    void anAlreadyCompactDocumentPassesThroughUnchanged() {
+        Document compact = new Document("_id", ID)
+                .append("u", "u1")
+                .append("t", Notification.NotificationType.LIKE.getCode())
+                .append("rd", true)
+                .append("p", Notification.Priority.HIGH.getCode())
+                .append("gc", 3)
+                .append("md", new Document("source", "web"))
+                .append("x", EXPIRES_AT);
+
+        assertThat(SchemaMigrationService.compact(new Document(compact))).isEqualTo(compact);
+    }
+
+    @Test
+    void anUnknownTypeOrPriorityLeavesTheDocumentAlone() {
+        assertThat(SchemaMigrationService.compact(legacy().append("type", "POKE"))).isNull();
+        assertThat(SchemaMigrationService.compact(legacy().append("type", "LIKE").append("priority", "URGENT"))).isNull();
+    }
+
+    private static Document legacy() {
+        return new Document("_id", ID)
+                .append("userId", "u1")
+                .append("actorId", "a1")
+                .append("actorName", "Grace")
+                .append("actorPicture", "grace.png")
+                .append("relatedId", "post-1")
+                .append("message", "liked your post")
+                .append("read", false)
+                .append("metadata", new Document("source", "web"))
+                .append("expiresAt", EXPIRES_AT)
+                .append("updatedAt", UPDATED_AT);
+    }
+}
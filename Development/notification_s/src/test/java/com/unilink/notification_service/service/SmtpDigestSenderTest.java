@@ -0,0 +1,192 @@
+package com.unilink.notification_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends digests through {@link SmtpDigestSender} to a minimal in-process SMTP server that
+ * records what it receives.
+ */
+class SmtpDigestSenderTest {
+
+    private SmtpStandIn smtp;
+    private SmtpDigestSender sender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStandIn();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        sender = new SmtpDigestSender(mailSender, "notifications@unilink.test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void sendsOneMessagePerDigestOverOneConnection() {
+        List<DigestSender.Digest> rejected = sender.send(List.of(
+                new DigestSender.Digest("u1", "ada@example.com", "You have 2 new notifications",
+                        "- Grace liked your post\n- Alan viewed your profile\n"),
+                new DigestSender.Digest("u2", "grace@example.com", "You have 1 new notification",
+                        "- Ada sent you a message\n")));
+
+        assertThat(rejected).isEmpty();
+        assertThat(smtp.messages()).hasSize(2);
+        assertThat(smtp.connections()).isEqualTo(1);
+
+        SmtpStandIn.Received first = smtp.messages().get(0);
+        assertThat(first.from()).isEqualTo("notifications@unilink.test");
+        assertThat(first.recipients()).containsExactly("ada@example.com");
+        assertThat(first.data()).contains("Subject: You have 2 new notifications", "Grace liked your post");
+
+        SmtpStandIn.Received second = smtp.messages().get(1);
+        assertThat(second.recipients()).containsExactly("grace@example.com");
+        assertThat(second.data()).contains("Subject: You have 1 new notification", "Ada sent you a message");
+    }
+
+    @Test
+    void returnsOnlyTheDigestsTheServerRefused() {
+        smtp.refuse("gone@example.com");
+        DigestSender.Digest refused = new DigestSender.Digest("u2", "gone@example.com", "You have 1 new notification",
+                "- Ada sent you a message\n");
+
+        List<DigestSender.Digest> rejected = sender.send(List.of(
+                new DigestSender.Digest("u1", "ada@example.com", "You have 1 new notification", "- Grace liked your post\n"),
+                refused,
+                new DigestSender.Digest("u3", "alan@example.com", "You have 1 new notification", "- Edsger viewed your profile\n")));
+
+        assertThat(rejected).containsExactly(refused);
+        assertThat(smtp.messages()).extracting(SmtpStandIn.Received::recipients)
+                .containsExactly(List.of("ada@example.com"), List.of("alan@example.com"));
+    }
+
+    /**
+     * Just enough SMTP for JavaMail: accepts everything and keeps each message's envelope and data.
+     */
+    private static final class SmtpStandIn implements AutoCloseable {
+
+        record Received(String from, List<String> recipients, String data) {
+        }
+
+        private final ServerSocket server;
+        private final Thread acceptor;
+        private final List<Received> messages = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final Set<String> refused = ConcurrentHashMap.newKeySet();
+
+        SmtpStandIn() throws IOException {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            acceptor = new Thread(this::acceptLoop, "smtp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        List<Received> messages() {
+            return messages;
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        void refuse(String address) {
+            refused.add(address);
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    connections.incrementAndGet();
+                    converse(socket);
+                } catch (IOException e) {
+                    // Closed by the test
+                }
+            }
+        }
+
+        // One client at a time is all the sender needs
+        private void converse(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            reply(out, "220 stand-in ESMTP");
+
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 stand-in");
+                } else if (command.startsWith("MAIL FROM:")) {
+                    from = address(line);
+                    recipients = new ArrayList<>();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO:")) {
+                    if (refused.contains(address(line))) {
+                        reply(out, "550 No such user");
+                    } else {
+                        recipients.add(address(line));
+                        reply(out, "250 OK");
+                    }
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+                    }
+                    messages.add(new Received(from, List.copyOf(recipients), data.toString()));
+                    reply(out, "250 OK");
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    // RSET, NOOP and anything else
+                    reply(out, "250 OK");
+                }
+            }
+        }
+
+        private static String address(String line) {
+            return line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}